@@ -177,6 +177,31 @@ public interface AssemblerConfigurationSource
      */
     boolean isIgnorePermissions();
 
+    /**
+     * @return The directory of the unpack cache, <code>null</code> when it is disabled.
+     * @since 3.1.1
+     */
+    File getUnpackCacheDirectory();
+
+    /**
+     * @return The maximum size of the unpack cache in megabytes.
+     * @since 3.1.1
+     */
+    long getUnpackCacheMaxSize();
+
+    /**
+     * @return Extract archives unpacked by several dependency sets once yes/no.
+     * @since 3.1.1
+     */
+    boolean isShareUnpackedArchives();
+
+    /**
+     * @return The number of threads preparing the entries of module projects, <code>1</code> to prepare them one
+     *         after another.
+     * @since 3.1.1
+     */
+    int getModuleThreads();
+
     /**
      * @return The current encoding.
      */
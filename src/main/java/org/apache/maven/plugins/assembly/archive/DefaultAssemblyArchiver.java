@@ -23,6 +23,9 @@ import org.apache.maven.plugin.DebugConfigurationListener;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.archiver.AssemblyProxyArchiver;
+import org.apache.maven.plugins.assembly.archive.archiver.AssemblySources;
+import org.apache.maven.plugins.assembly.archive.archiver.DirectoryScans;
+import org.apache.maven.plugins.assembly.archive.archiver.ZipFilePool;
 import org.apache.maven.plugins.assembly.archive.phase.AssemblyArchiverPhase;
 import org.apache.maven.plugins.assembly.archive.phase.AssemblyArchiverPhaseComparator;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolutionException;
@@ -162,7 +165,7 @@ public class DefaultAssemblyArchiver
             {
                 basedir = AssemblyFormatUtils.getOutputDirectory( specifiedBasedir, finalName, configSource,
                                                                   AssemblyFormatUtils.moduleProjectInterpolator(
-                                                                      configSource.getProject() ),
+                                                                      configSource.getProject(), configSource ),
                                                                   AssemblyFormatUtils.artifactProjectInterpolator(
                                                                       null ) );
             }
@@ -182,6 +185,12 @@ public class DefaultAssemblyArchiver
             }
 
             archiver.createArchive();
+
+            final AssemblySources sources = AssemblySources.getFor( configSource );
+            if ( sources != null )
+            {
+                sources.addOutput( destFile );
+            }
         }
         catch ( final ArchiverException | IOException e )
         {
@@ -335,8 +344,13 @@ public class DefaultAssemblyArchiver
             prefix = finalName;
         }
 
-        archiver = new AssemblyProxyArchiver( prefix, archiver, containerHandlers, extraSelectors, extraFinalizers,
-                                              configSource.getWorkingDirectory(), getLogger() );
+        final AssemblyProxyArchiver proxy =
+            new AssemblyProxyArchiver( prefix, archiver, containerHandlers, extraSelectors, extraFinalizers,
+                                       configSource.getWorkingDirectory(), getLogger() );
+        proxy.setZipFilePool( ZipFilePool.forConfigSource( configSource ) );
+        proxy.setDirectoryScans( DirectoryScans.forConfigSource( configSource ) );
+        proxy.setAssemblySources( AssemblySources.getFor( configSource ) );
+        archiver = proxy;
         if ( configSource.isDryRun() )
         {
             archiver = new DryRunArchiver( archiver, getLogger() );
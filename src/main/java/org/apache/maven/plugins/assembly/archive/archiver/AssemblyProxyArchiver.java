@@ -20,6 +20,8 @@ package org.apache.maven.plugins.assembly.archive.archiver;
  */
 
 import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
+import org.apache.maven.plugins.assembly.filter.TransformingContainerDescriptorHandler;
+import org.codehaus.plexus.archiver.AbstractArchiver;
 import org.codehaus.plexus.archiver.ArchiveEntry;
 import org.codehaus.plexus.archiver.ArchiveFinalizer;
 import org.codehaus.plexus.archiver.ArchivedFileSet;
@@ -30,21 +32,34 @@ import org.codehaus.plexus.archiver.FinalizerEnabled;
 import org.codehaus.plexus.archiver.ResourceIterator;
 import org.codehaus.plexus.archiver.util.DefaultArchivedFileSet;
 import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.PlexusArchiverZipFileResourceCollection;
+import org.codehaus.plexus.archiver.zip.PlexusIoZipFileResourceCollection;
+import org.codehaus.plexus.components.io.filemappers.FileMapper;
 import org.codehaus.plexus.components.io.fileselectors.FileInfo;
 import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoArchiveResourceCollection;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResourceCollection;
 import org.codehaus.plexus.components.io.resources.PlexusIoResource;
 import org.codehaus.plexus.components.io.resources.PlexusIoResourceCollection;
+import org.codehaus.plexus.components.io.resources.proxy.PlexusIoProxyResourceCollection;
 import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.IOUtil;
 
 import javax.annotation.Nonnull;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -53,6 +68,7 @@ import java.util.Map;
  * <li>dry-running (where the delegate archiver is never actually called)</li>
  * <li>prefixing (where all paths have a set global prefix prepended before addition)</li>
  * <li>duplication checks on archive additions (for archive-file path + prefix)</li>
+ * <li>transformation of entry paths and contents by {@link TransformingContainerDescriptorHandler}s</li>
  * </ul>
  *
  * @author jdcasey
@@ -74,6 +90,8 @@ public class AssemblyProxyArchiver
 
     private FileSelector[] selectors;
 
+    private final List<TransformingContainerDescriptorHandler> transformers = new ArrayList<>();
+
     private boolean forced;
 
     /**
@@ -81,6 +99,15 @@ public class AssemblyProxyArchiver
      */
     private boolean useJvmChmod;
 
+    /**
+     * @since 3.1.1
+     */
+    private ZipFilePool zipFilePool;
+
+    private DirectoryScans directoryScans;
+
+    private AssemblySources assemblySources;
+
     public AssemblyProxyArchiver( final String rootPrefix, final Archiver delegate,
                                   final List<ContainerDescriptorHandler> containerDescriptorHandlers,
                                   final List<FileSelector> extraSelectors, final List<ArchiveFinalizer> extraFinalizers,
@@ -108,6 +135,11 @@ public class AssemblyProxyArchiver
             {
                 selectors.add( handler );
 
+                if ( handler instanceof TransformingContainerDescriptorHandler )
+                {
+                    transformers.add( (TransformingContainerDescriptorHandler) handler );
+                }
+
                 if ( finalizer != null )
                 {
                     finalizer.addArchiveFinalizer( handler );
@@ -153,7 +185,7 @@ public class AssemblyProxyArchiver
 
             debug( "Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs );
+            doAddArchivedFileSet( fs, null );
         }
         finally
         {
@@ -185,7 +217,7 @@ public class AssemblyProxyArchiver
 
             debug( "Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs );
+            doAddArchivedFileSet( fs, null );
         }
         finally
         {
@@ -211,7 +243,7 @@ public class AssemblyProxyArchiver
 
             debug( "Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs );
+            doAddArchivedFileSet( fs, null );
         }
         finally
         {
@@ -235,7 +267,7 @@ public class AssemblyProxyArchiver
 
             debug( "Adding archived file-set in: " + archiveFile + " to archive location: " + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs );
+            doAddArchivedFileSet( fs, null );
         }
         finally
         {
@@ -395,9 +427,15 @@ public class AssemblyProxyArchiver
             inPublicApi.set( Boolean.TRUE );
             try
             {
-                debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destFileName );
+                final String destName = transformPath( destFileName );
 
-                delegate.addFile( inputFile, rootPrefix + destFileName, permissions );
+                debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destName );
+
+                if ( assemblySources != null )
+                {
+                    assemblySources.addFile( inputFile );
+                }
+                delegate.addFile( transformFile( inputFile, destFileName ), rootPrefix + destName, permissions );
             }
             finally
             {
@@ -417,9 +455,15 @@ public class AssemblyProxyArchiver
             inPublicApi.set( Boolean.TRUE );
             try
             {
-                debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destFileName );
+                final String destName = transformPath( destFileName );
+
+                debug( "Adding file: " + inputFile + " to archive location: " + rootPrefix + destName );
 
-                delegate.addFile( inputFile, rootPrefix + destFileName );
+                if ( assemblySources != null )
+                {
+                    assemblySources.addFile( inputFile );
+                }
+                delegate.addFile( transformFile( inputFile, destFileName ), rootPrefix + destName );
             }
             finally
             {
@@ -673,7 +717,7 @@ public class AssemblyProxyArchiver
 
             debug( "Adding archived file-set in: " + fileSet.getArchive() + " to archive location: " + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs );
+            doAddArchivedFileSet( fs, null );
         }
         finally
         {
@@ -692,7 +736,7 @@ public class AssemblyProxyArchiver
             debug( "Adding archived file-set in: " + archivedFileSet.getArchive() + " to archive location: "
                        + fs.getPrefix() );
 
-            delegate.addArchivedFileSet( fs, charset );
+            doAddArchivedFileSet( fs, charset );
         }
         finally
         {
@@ -721,8 +765,305 @@ public class AssemblyProxyArchiver
         }
     }
 
+    private void doAddArchivedFileSet( final ArchivedFileSet fs, final Charset charset )
+    {
+        if ( assemblySources != null )
+        {
+            assemblySources.addFile( fs.getArchive() );
+        }
+
+        final boolean zip = isZipArchive( fs.getArchive() );
+        final PooledZipFileResourceCollection pooled = zip ? pooledCollection( fs.getArchive(), charset ) : null;
+        if ( pooled == null && ( transformers.isEmpty() || !zip ) )
+        {
+            if ( !transformers.isEmpty() && fs.getArchive().isFile() && logger != null )
+            {
+                logger.warn( "Cannot transform the entries of: " + fs.getArchive() + ", only the entries of zip based "
+                                 + "archives are transformed. Adding them unchanged." );
+            }
+
+            if ( charset == null )
+            {
+                delegate.addArchivedFileSet( fs );
+            }
+            else
+            {
+                delegate.addArchivedFileSet( fs, charset );
+            }
+
+            return;
+        }
+
+        // plexus-archiver file sets can neither rename entries nor share open archives, so the resource collection is
+        // set up here instead.
+        final AbstractPlexusIoArchiveResourceCollection archive;
+        if ( pooled != null )
+        {
+            archive = pooled;
+        }
+        else if ( fs.getArchive().getName().toLowerCase( Locale.ENGLISH ).endsWith( ".zip" ) )
+        {
+            // like plexus-archiver, which reads zip files with the collection keeping the unix modes of the entries
+            final PlexusArchiverZipFileResourceCollection zipFile = new PlexusArchiverZipFileResourceCollection();
+            if ( charset != null )
+            {
+                zipFile.setEncoding( charset );
+            }
+            archive = zipFile;
+        }
+        else
+        {
+            final PlexusIoZipFileResourceCollection zipFile = new PlexusIoZipFileResourceCollection();
+            if ( charset != null )
+            {
+                zipFile.setEncoding( charset );
+            }
+            archive = zipFile;
+        }
+        archive.setFile( fs.getArchive() );
+
+        final PlexusIoProxyResourceCollection collection = new PlexusIoProxyResourceCollection( archive );
+        collection.setIncludes( fs.getIncludes() );
+        collection.setExcludes( fs.getExcludes() );
+        collection.setIncludingEmptyDirectories( fs.isIncludingEmptyDirectories() );
+        collection.setCaseSensitive( fs.isCaseSensitive() );
+        collection.setUsingDefaultExcludes( fs.isUsingDefaultExcludes() );
+        setPrefixAndTransformers( collection, fs.getPrefix(), fs.getFileSelectors(), fs.getStreamTransformer() );
+
+        if ( delegate.getOverrideDirectoryMode() > -1 || delegate.getOverrideFileMode() > -1 )
+        {
+            collection.setOverrideAttributes( -1, null, -1, null, delegate.getOverrideFileMode(),
+                                              delegate.getOverrideDirectoryMode() );
+        }
+
+        if ( delegate.getDefaultDirectoryMode() > -1 || delegate.getDefaultFileMode() > -1 )
+        {
+            collection.setDefaultAttributes( -1, null, -1, null, delegate.getDefaultFileMode(),
+                                             delegate.getDefaultDirectoryMode() );
+        }
+
+        delegate.addResources( collection );
+    }
+
+    /**
+     * @return a collection reading <code>archive</code> from the zip file pool, or <code>null</code> when there is no
+     *         pool or the archive cannot be read from it.
+     */
+    private PooledZipFileResourceCollection pooledCollection( final File archive, final Charset charset )
+    {
+        if ( zipFilePool == null )
+        {
+            return null;
+        }
+
+        final PooledZipFileResourceCollection collection = new PooledZipFileResourceCollection( zipFilePool, charset );
+        collection.setFile( archive );
+        try
+        {
+            return collection.isSupported() ? collection : null;
+        }
+        catch ( final IOException e )
+        {
+            debug( "Not sharing the open archive " + archive + ": " + e.getMessage() );
+            return null;
+        }
+    }
+
+    private static boolean isZipArchive( final File archive )
+    {
+        if ( !archive.isFile() )
+        {
+            return false;
+        }
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new FileInputStream( archive ) );
+            final boolean zip = archive.length() >= 4 && in.readInt() == 0x504B0304; // local file header
+            in.close();
+            in = null;
+
+            return zip;
+        }
+        catch ( final IOException e )
+        {
+            return false;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    /**
+     * Without transformers the collection adds the prefix. Transformers match the paths the entries are stored under,
+     * such as the <code>META-INF/services/</code> entries of a file set with that prefix, so the file mapper adds the
+     * prefix before transforming the path instead.
+     */
+    private void setPrefixAndTransformers( final AbstractPlexusIoResourceCollection collection, final String prefix,
+                                           final FileSelector[] fileSelectors,
+                                           final InputStreamTransformer streamTransformer )
+    {
+        if ( transformers.isEmpty() )
+        {
+            collection.setPrefix( prefix );
+            collection.setFileSelectors( fileSelectors );
+            collection.setStreamTransformer( streamTransformer );
+            return;
+        }
+
+        final String root = prefix != null ? prefix : "";
+        collection.setFileSelectors( transformingSelectors( fileSelectors, root ) );
+        collection.setStreamTransformer( transformingStreamTransformer( streamTransformer, root ) );
+        collection.setFileMappers( new FileMapper[]{ new FileMapper()
+        {
+            @Override
+            @Nonnull
+            public String getMappedFileName( @Nonnull final String name )
+            {
+                return transformPath( root, name );
+            }
+        } } );
+    }
+
+    /**
+     * Container descriptor handlers get to see the entries the way they are stored in the archive, that is after all
+     * transformations were applied.
+     */
+    private FileSelector[] transformingSelectors( final FileSelector[] fileSelectors, final String prefix )
+    {
+        if ( fileSelectors == null || fileSelectors.length == 0 )
+        {
+            return fileSelectors;
+        }
+
+        return new FileSelector[]{ new FileSelector()
+        {
+            @Override
+            public boolean isSelected( @Nonnull final FileInfo fileInfo )
+                throws IOException
+            {
+                final FileInfo transformed = new TransformedFileInfo( fileInfo, prefix );
+                for ( final FileSelector selector : fileSelectors )
+                {
+                    if ( !selector.isSelected( transformed ) )
+                    {
+                        return false;
+                    }
+                }
+
+                return true;
+            }
+        } };
+    }
+
+    private InputStreamTransformer transformingStreamTransformer( final InputStreamTransformer streamTransformer,
+                                                                  final String prefix )
+    {
+        return new InputStreamTransformer()
+        {
+            @Override
+            @Nonnull
+            public InputStream transform( @Nonnull final PlexusIoResource resource, @Nonnull final InputStream in )
+                throws IOException
+            {
+                final InputStream contents =
+                    streamTransformer != null ? streamTransformer.transform( resource, in ) : in;
+
+                return transformContents( prefix + resource.getName(), contents );
+            }
+        };
+    }
+
+    private String transformPath( final String path )
+    {
+        String result = path;
+        for ( final TransformingContainerDescriptorHandler transformer : transformers )
+        {
+            result = transformer.transformPath( result );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The transformed path of the entry <code>name</code> of a file set with <code>prefix</code>, including
+     *         the prefix. Entries not transformed as a whole, such as class files below
+     *         <code>WEB-INF/classes/</code>, are transformed relative to the prefix.
+     */
+    private String transformPath( final String prefix, final String name )
+    {
+        final String path = prefix + name;
+        final String transformed = transformPath( path );
+        return transformed.equals( path ) ? prefix + transformPath( name ) : transformed;
+    }
+
+    private InputStream transformContents( final String path, final InputStream contents )
+        throws IOException
+    {
+        String currentPath = path;
+        InputStream result = contents;
+        for ( final TransformingContainerDescriptorHandler transformer : transformers )
+        {
+            result = transformer.transformContents( currentPath, result );
+            currentPath = transformer.transformPath( currentPath );
+        }
+
+        return result;
+    }
+
+    private File transformFile( final File inputFile, final String destFileName )
+    {
+        if ( transformers.isEmpty() || !inputFile.isFile() )
+        {
+            return inputFile;
+        }
+
+        InputStream in = null;
+        OutputStream out = null;
+        try
+        {
+            in = new FileInputStream( inputFile );
+
+            final InputStream transformed = transformContents( destFileName, in );
+            if ( transformed == in )
+            {
+                return inputFile;
+            }
+
+            final File f = File.createTempFile( "maven-assembly-plugin", "tmp" );
+            f.deleteOnExit();
+
+            out = new FileOutputStream( f );
+            IOUtil.copy( transformed, out );
+            out.close();
+            out = null;
+
+            transformed.close();
+            in.close();
+            in = null;
+
+            return f;
+        }
+        catch ( final IOException e )
+        {
+            throw new ArchiverException( "Error transforming file: " + inputFile, e );
+        }
+        finally
+        {
+            IOUtil.close( out );
+            IOUtil.close( in );
+        }
+    }
+
     private void doAddFileSet( final FileSet fs )
     {
+        if ( assemblySources != null )
+        {
+            assemblySources.addFileSet( fs );
+        }
+
         final String fsPath = fs.getDirectory().getAbsolutePath().replace( '\\', '/' );
 
         if ( fsPath.equals( assemblyWorkPath ) )
@@ -768,12 +1109,57 @@ public class AssemblyProxyArchiver
             dfs.setPrefix( fs.getPrefix() );
             dfs.setUsingDefaultExcludes( fs.isUsingDefaultExcludes() );
 
-            delegate.addFileSet( dfs );
+            addFileSetToDelegate( dfs );
         }
         else
+        {
+            addFileSetToDelegate( fs );
+        }
+    }
+
+    /**
+     * Adds <code>fs</code> the way {@link AbstractArchiver#addFileSet(FileSet)} does, except that directories excluded
+     * as a whole are not scanned at all, and that directories scanned in advance are not scanned again.
+     */
+    private void addFileSetToDelegate( final FileSet fs )
+    {
+        PlexusIoFileResourceCollection collection =
+            delegate instanceof AbstractArchiver && fs.getDirectory().isDirectory()
+                ? PrunedFileResourceCollection.forExcludes( fs.getExcludes(), fs.isCaseSensitive(), directoryScans )
+                : null;
+        if ( collection == null && !transformers.isEmpty() && fs.getDirectory().isDirectory() )
+        {
+            // plexus-archiver file sets can not rename entries
+            collection = new PlexusIoFileResourceCollection();
+        }
+        if ( collection == null )
         {
             delegate.addFileSet( fs );
+            return;
+        }
+
+        collection.setFollowingSymLinks( false );
+        collection.setIncludes( fs.getIncludes() );
+        collection.setExcludes( fs.getExcludes() );
+        collection.setBaseDir( fs.getDirectory() );
+        collection.setIncludingEmptyDirectories( fs.isIncludingEmptyDirectories() );
+        collection.setCaseSensitive( fs.isCaseSensitive() );
+        collection.setUsingDefaultExcludes( fs.isUsingDefaultExcludes() );
+        setPrefixAndTransformers( collection, fs.getPrefix(), fs.getFileSelectors(), fs.getStreamTransformer() );
+
+        if ( delegate.getOverrideDirectoryMode() > -1 || delegate.getOverrideFileMode() > -1 )
+        {
+            collection.setOverrideAttributes( -1, null, -1, null, delegate.getOverrideFileMode(),
+                                              delegate.getOverrideDirectoryMode() );
         }
+
+        if ( delegate.getDefaultDirectoryMode() > -1 || delegate.getDefaultFileMode() > -1 )
+        {
+            collection.setDefaultAttributes( -1, null, -1, null, delegate.getDefaultFileMode(),
+                                             delegate.getDefaultDirectoryMode() );
+        }
+
+        delegate.addResources( collection );
     }
 
     private boolean acceptFile( final File inputFile )
@@ -968,6 +1354,40 @@ public class AssemblyProxyArchiver
         this.useJvmChmod = useJvmChmod;
     }
 
+    /**
+     * Reads archived file sets of zip archives through <code>zipFilePool</code>, sharing their open archives.
+     *
+     * @param zipFilePool the pool of the assembly execution, or <code>null</code> to open every archive on its own.
+     * @since 3.1.1
+     */
+    public void setZipFilePool( final ZipFilePool zipFilePool )
+    {
+        this.zipFilePool = zipFilePool;
+    }
+
+    /**
+     * Takes the directory scans of file sets from <code>directoryScans</code> if they were scanned in advance.
+     *
+     * @param directoryScans the scans of the assembly execution, or <code>null</code> to scan every file set when the
+     *            archive is created.
+     * @since 3.1.1
+     */
+    public void setDirectoryScans( final DirectoryScans directoryScans )
+    {
+        this.directoryScans = directoryScans;
+    }
+
+    /**
+     * Records the source directories and files of the entries added in <code>assemblySources</code>.
+     *
+     * @param assemblySources the sources of the assembly execution, or <code>null</code> not to record them.
+     * @since 3.1.1
+     */
+    public void setAssemblySources( final AssemblySources assemblySources )
+    {
+        this.assemblySources = assemblySources;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -986,6 +1406,54 @@ public class AssemblyProxyArchiver
         delegate.setIgnorePermissions( ignorePermissions );
     }
 
+    private final class TransformedFileInfo
+        implements FileInfo
+    {
+
+        private final FileInfo fileInfo;
+
+        private final String prefix;
+
+        TransformedFileInfo( final FileInfo fileInfo, final String prefix )
+        {
+            this.fileInfo = fileInfo;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public InputStream getContents()
+            throws IOException
+        {
+            return transformContents( prefix + fileInfo.getName(), fileInfo.getContents() );
+        }
+
+        @Override
+        public String getName()
+        {
+            // relative to the prefix, like the names of the entries that are not transformed
+            final String path = transformPath( prefix, fileInfo.getName() );
+            return path.startsWith( prefix ) ? path.substring( prefix.length() ) : path;
+        }
+
+        @Override
+        public boolean isDirectory()
+        {
+            return fileInfo.isDirectory();
+        }
+
+        @Override
+        public boolean isFile()
+        {
+            return fileInfo.isFile();
+        }
+
+        @Override
+        public boolean isSymbolicLink()
+        {
+            return fileInfo.isSymbolicLink();
+        }
+    }
+
     private static final class DefaultFileInfo
         implements FileInfo
     {
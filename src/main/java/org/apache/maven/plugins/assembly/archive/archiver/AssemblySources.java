@@ -0,0 +1,290 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.codehaus.plexus.archiver.FileSet;
+import org.codehaus.plexus.util.AbstractScanner;
+import org.codehaus.plexus.util.SelectorUtils;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The source directories and files an assembly execution read, and the archives it created, recorded only while the
+ * execution is {@link #track(AssemblerConfigurationSource) tracked}, for the assembly to be created again when one of
+ * the sources changes.
+ *
+ * @since 3.1.1
+ */
+public final class AssemblySources
+{
+
+    private static final Map<AssemblerConfigurationSource, AssemblySources> SOURCES = new WeakHashMap<>();
+
+    /**
+     * The directories scanned by file sets, with the includes and excludes of each of these file sets.
+     */
+    private final Map<File, List<Selection>> directories = new LinkedHashMap<>();
+
+    private final Set<File> files = new LinkedHashSet<>();
+
+    private final Set<File> outputs = new LinkedHashSet<>();
+
+    AssemblySources()
+    {
+    }
+
+    /**
+     * Starts recording the sources of the assembly execution configured by <code>configSource</code>.
+     *
+     * @return the sources of the execution.
+     */
+    public static AssemblySources track( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( SOURCES )
+        {
+            AssemblySources sources = SOURCES.get( configSource );
+            if ( sources == null )
+            {
+                sources = new AssemblySources();
+                SOURCES.put( configSource, sources );
+            }
+            return sources;
+        }
+    }
+
+    /**
+     * @return the sources of the assembly execution configured by <code>configSource</code>, or <code>null</code> if
+     *         the execution is not tracked.
+     */
+    public static AssemblySources getFor( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( SOURCES )
+        {
+            return SOURCES.get( configSource );
+        }
+    }
+
+    /**
+     * Stops recording the sources of the assembly execution configured by <code>configSource</code>.
+     */
+    public static void untrack( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( SOURCES )
+        {
+            SOURCES.remove( configSource );
+        }
+    }
+
+    /**
+     * Records the directory scanned by a file set, and the files it selects.
+     */
+    public synchronized void addFileSet( final FileSet fileSet )
+    {
+        final File directory = fileSet.getDirectory().getAbsoluteFile();
+        List<Selection> selections = directories.get( directory );
+        if ( selections == null )
+        {
+            selections = new ArrayList<>();
+            directories.put( directory, selections );
+        }
+        selections.add( new Selection( fileSet ) );
+    }
+
+    /**
+     * Records a file, or an archive, added to an assembly.
+     */
+    public synchronized void addFile( final File file )
+    {
+        files.add( file.getAbsoluteFile() );
+    }
+
+    /**
+     * Records an archive, or a directory, created by the execution.
+     */
+    public synchronized void addOutput( final File output )
+    {
+        outputs.add( output.getAbsoluteFile() );
+    }
+
+    public synchronized Set<File> getDirectories()
+    {
+        return new LinkedHashSet<>( directories.keySet() );
+    }
+
+    public synchronized Set<File> getFiles()
+    {
+        return new LinkedHashSet<>( files );
+    }
+
+    public synchronized Set<File> getOutputs()
+    {
+        return new LinkedHashSet<>( outputs );
+    }
+
+    /**
+     * @param file a changed file, which may have been deleted.
+     * @return <code>true</code> if <code>file</code> is a recorded file, a directory scanned by a file set, or a file
+     *         selected by the includes and excludes of such a file set, or a directory that may hold one. What the
+     *         execution created is never a source.
+     */
+    public synchronized boolean isSource( final File file )
+    {
+        final File absolute = file.getAbsoluteFile();
+        final Path path = absolute.toPath();
+        for ( final File output : outputs )
+        {
+            if ( path.startsWith( output.toPath() ) )
+            {
+                return false;
+            }
+        }
+
+        if ( files.contains( absolute ) )
+        {
+            return true;
+        }
+
+        // a deleted file may have been a directory
+        final boolean directory = !absolute.isFile();
+        for ( final Map.Entry<File, List<Selection>> entry : directories.entrySet() )
+        {
+            final Path root = entry.getKey().toPath();
+            if ( !path.startsWith( root ) )
+            {
+                continue;
+            }
+
+            final String relativePath = root.relativize( path ).toString();
+            if ( relativePath.isEmpty() )
+            {
+                return true;
+            }
+
+            for ( final Selection selection : entry.getValue() )
+            {
+                if ( selection.isSelected( relativePath, directory ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets everything recorded, before the assembly is created again.
+     */
+    public synchronized void clear()
+    {
+        directories.clear();
+        files.clear();
+        outputs.clear();
+    }
+
+    /**
+     * The includes and excludes of a file set, normalized the way the directory scanner does.
+     */
+    private static final class Selection
+    {
+
+        private final String[] includes;
+
+        private final String[] excludes;
+
+        private final boolean caseSensitive;
+
+        Selection( final FileSet fileSet )
+        {
+            includes = normalize( fileSet.getIncludes() );
+
+            final List<String> allExcludes = new ArrayList<>();
+            if ( fileSet.getExcludes() != null )
+            {
+                allExcludes.addAll( Arrays.asList( fileSet.getExcludes() ) );
+            }
+            if ( fileSet.isUsingDefaultExcludes() )
+            {
+                allExcludes.addAll( Arrays.asList( AbstractScanner.DEFAULTEXCLUDES ) );
+            }
+            excludes = normalize( allExcludes.toArray( new String[allExcludes.size()] ) );
+
+            caseSensitive = fileSet.isCaseSensitive();
+        }
+
+        boolean isSelected( final String relativePath, final boolean directory )
+        {
+            for ( final String exclude : excludes )
+            {
+                if ( SelectorUtils.matchPath( exclude, relativePath, caseSensitive ) )
+                {
+                    return false;
+                }
+            }
+
+            if ( includes.length == 0 )
+            {
+                return true;
+            }
+
+            for ( final String include : includes )
+            {
+                if ( SelectorUtils.matchPath( include, relativePath, caseSensitive )
+                    || ( directory && SelectorUtils.matchPatternStart( include, relativePath, caseSensitive ) ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String[] normalize( final String[] patterns )
+        {
+            if ( patterns == null )
+            {
+                return new String[0];
+            }
+
+            final String[] normalized = new String[patterns.length];
+            for ( int i = 0; i < patterns.length; i++ )
+            {
+                String pattern = patterns[i].trim().replace( '/', File.separatorChar );
+                pattern = pattern.replace( '\\', File.separatorChar );
+                if ( pattern.endsWith( File.separator ) )
+                {
+                    pattern += "**";
+                }
+                normalized[i] = pattern;
+            }
+            return normalized;
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.codehaus.plexus.archiver.FileSet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The directory scans of an assembly execution. File sets scanned ahead of time, while their module is prepared on a
+ * worker thread, leave their scan for the archiver to pick up instead of scanning the directory again; a scan is
+ * taken once. Every scan lists the directories through a {@link DirectoryTree} kept per canonical directory, so that
+ * the file sets, formats and assemblies of the execution which scan the same directory evaluate their patterns
+ * against listings read once, as long as the directories are not modified.
+ *
+ * @since 3.1.1
+ */
+public final class DirectoryScans
+{
+
+    private static final Map<AssemblerConfigurationSource, DirectoryScans> SCANS = new WeakHashMap<>();
+
+    private final Map<List<Object>, Scan> scans = new ConcurrentHashMap<>();
+
+    private final Map<File, DirectoryTree> trees = new HashMap<>();
+
+    DirectoryScans()
+    {
+    }
+
+    /**
+     * @return the scans of the assembly execution configured by <code>configSource</code>.
+     */
+    public static DirectoryScans forConfigSource( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( SCANS )
+        {
+            DirectoryScans scans = SCANS.get( configSource );
+            if ( scans == null )
+            {
+                scans = new DirectoryScans();
+                SCANS.put( configSource, scans );
+            }
+            return scans;
+        }
+    }
+
+    /**
+     * Drops the scans of the assembly execution configured by <code>configSource</code> which were not taken.
+     */
+    public static void releaseFor( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( SCANS )
+        {
+            SCANS.remove( configSource );
+        }
+    }
+
+    /**
+     * Scans the directory of <code>fileSet</code>, unless it does not exist.
+     */
+    public void prefetch( final FileSet fileSet )
+    {
+        final File directory = fileSet.getDirectory();
+        if ( directory == null || !directory.isDirectory() )
+        {
+            return;
+        }
+
+        final List<Object> key =
+            key( directory, fileSet.getIncludes(), fileSet.getExcludes(), fileSet.isUsingDefaultExcludes(),
+                 fileSet.isCaseSensitive() );
+        if ( !scans.containsKey( key ) )
+        {
+            scans.put( key, PrunedFileResourceCollection.scan( directory, fileSet.getIncludes(), fileSet.getExcludes(),
+                                                               fileSet.isUsingDefaultExcludes(),
+                                                               fileSet.isCaseSensitive(), false, this ) );
+        }
+    }
+
+    /**
+     * @return the prefetched scan of <code>directory</code> with these patterns, or <code>null</code> if there is none.
+     */
+    Scan take( final File directory, final String[] includes, final String[] excludes,
+               final boolean usingDefaultExcludes, final boolean caseSensitive )
+    {
+        return scans.remove( key( directory, includes, excludes, usingDefaultExcludes, caseSensitive ) );
+    }
+
+    /**
+     * @return the tree of <code>directory</code> shared by the scans of this execution, or <code>null</code> if the
+     *         directory is a symbolic link.
+     */
+    DirectoryTree getTree( final File directory )
+    {
+        if ( Files.isSymbolicLink( directory.toPath() ) )
+        {
+            return null;
+        }
+
+        File canonicalDirectory;
+        try
+        {
+            canonicalDirectory = directory.getCanonicalFile();
+        }
+        catch ( final IOException e )
+        {
+            canonicalDirectory = directory.getAbsoluteFile();
+        }
+
+        synchronized ( trees )
+        {
+            DirectoryTree tree = trees.get( canonicalDirectory );
+            if ( tree == null )
+            {
+                tree = DirectoryTree.of( canonicalDirectory.toPath() );
+                trees.put( canonicalDirectory, tree );
+            }
+            return tree;
+        }
+    }
+
+    int size()
+    {
+        return scans.size();
+    }
+
+    private static List<Object> key( final File directory, final String[] includes, final String[] excludes,
+                                     final boolean usingDefaultExcludes, final boolean caseSensitive )
+    {
+        return Arrays.<Object>asList( directory.getAbsoluteFile(), patterns( includes ), patterns( excludes ),
+                                      usingDefaultExcludes, caseSensitive );
+    }
+
+    private static List<String> patterns( final String[] patterns )
+    {
+        return patterns == null ? Collections.<String>emptyList() : Arrays.asList( patterns.clone() );
+    }
+
+    /**
+     * The included directories and files of a directory, relative to it.
+     */
+    static final class Scan
+    {
+
+        private final String[] includedDirectories;
+
+        private final String[] includedFiles;
+
+        Scan( final String[] includedDirectories, final String[] includedFiles )
+        {
+            this.includedDirectories = includedDirectories;
+            this.includedFiles = includedFiles;
+        }
+
+        String[] getIncludedDirectories()
+        {
+            return includedDirectories;
+        }
+
+        String[] getIncludedFiles()
+        {
+            return includedFiles;
+        }
+
+    }
+
+}
@@ -0,0 +1,204 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A directory whose listing is read on first use and kept, together with the type of each entry, as long as the
+ * modification time of the directory does not change. Adding, removing or renaming an entry changes that time, so a
+ * tree shared by several scans only lists again the directories which changed in between. A listing read while its
+ * directory was modified within the last {@link #RACY_INTERVAL} milliseconds is not trusted, since a change in the same
+ * clock tick would go unnoticed.
+ *
+ * @since 3.1.1
+ */
+final class DirectoryTree
+{
+
+    /**
+     * The coarsest modification time granularity of common file systems.
+     */
+    static final long RACY_INTERVAL = 2000;
+
+    private final Path path;
+
+    private final String name;
+
+    private final boolean directory;
+
+    private final boolean regularFile;
+
+    private final boolean symbolicLink;
+
+    private List<DirectoryTree> children;
+
+    private long modified;
+
+    private DirectoryTree( final Path path, final boolean directory, final boolean regularFile,
+                           final boolean symbolicLink )
+    {
+        this.path = path;
+        this.name = path.getFileName() != null ? path.getFileName().toString() : "";
+        this.directory = directory;
+        this.regularFile = regularFile;
+        this.symbolicLink = symbolicLink;
+    }
+
+    /**
+     * @return the tree of the directory <code>path</code>.
+     */
+    static DirectoryTree of( final Path path )
+    {
+        return new DirectoryTree( path, true, false, Files.isSymbolicLink( path ) );
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    boolean isDirectory()
+    {
+        return directory;
+    }
+
+    boolean isRegularFile()
+    {
+        return regularFile;
+    }
+
+    /**
+     * @return <code>true</code> if this is a directory reached through a symbolic link.
+     */
+    boolean isSymbolicLink()
+    {
+        return symbolicLink;
+    }
+
+    /**
+     * @return the directories and files in this directory, in listing order, leaving out dangling links and entries
+     *         which are neither; empty if the directory cannot be read.
+     */
+    synchronized List<DirectoryTree> getChildren()
+    {
+        final long now = System.currentTimeMillis();
+        long lastModified;
+        try
+        {
+            lastModified = Files.getLastModifiedTime( path ).toMillis();
+        }
+        catch ( final IOException e )
+        {
+            lastModified = -1;
+        }
+
+        if ( children == null || lastModified < 0 || lastModified != modified )
+        {
+            children = keepUnchanged( list() );
+            modified = now - lastModified < RACY_INTERVAL ? -1 : lastModified;
+        }
+        return children;
+    }
+
+    /**
+     * @return <code>entries</code>, with the subdirectories listed before in place of the new ones, so that their
+     *         listings are kept as long as they are valid.
+     */
+    private List<DirectoryTree> keepUnchanged( final List<DirectoryTree> entries )
+    {
+        if ( children == null || children.isEmpty() )
+        {
+            return entries;
+        }
+
+        final Map<String, DirectoryTree> previous = new HashMap<>();
+        for ( final DirectoryTree child : children )
+        {
+            if ( child.directory )
+            {
+                previous.put( child.name, child );
+            }
+        }
+
+        for ( int i = 0; i < entries.size(); i++ )
+        {
+            final DirectoryTree entry = entries.get( i );
+            final DirectoryTree child = previous.get( entry.name );
+            if ( entry.directory && child != null && child.symbolicLink == entry.symbolicLink )
+            {
+                entries.set( i, child );
+            }
+        }
+        return entries;
+    }
+
+    private List<DirectoryTree> list()
+    {
+        final List<DirectoryTree> entries = new ArrayList<>();
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream( path ) )
+        {
+            for ( final Path entry : stream )
+            {
+                final BasicFileAttributes attributes;
+                try
+                {
+                    attributes = Files.readAttributes( entry, BasicFileAttributes.class );
+                }
+                catch ( final IOException e )
+                {
+                    // a dangling link, neither a directory nor a file
+                    continue;
+                }
+
+                if ( attributes.isDirectory() )
+                {
+                    entries.add( new DirectoryTree( entry, true, false, Files.isSymbolicLink( entry ) ) );
+                }
+                else if ( attributes.isRegularFile() )
+                {
+                    entries.add( new DirectoryTree( entry, false, true, false ) );
+                }
+            }
+        }
+        catch ( final IOException | DirectoryIteratorException e )
+        {
+            // like File.list(), an unreadable directory has no entries
+            return Collections.emptyList();
+        }
+        return entries;
+    }
+
+}
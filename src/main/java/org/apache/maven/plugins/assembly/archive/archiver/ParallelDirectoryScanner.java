@@ -0,0 +1,255 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.DirectoryScanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Directory scanner listing directories with NIO, through a {@link DirectoryTree}, and scanning subdirectories in
+ * parallel, on a fork/join pool. The
+ * included directories and files are the same as those of {@link DirectoryScanner}, in the same order: that of the
+ * directory listings, depth first. Directories excluded as a whole, by an exclude like <code>module/**</code>, are not
+ * entered at all. Only the included directories and files are collected.
+ *
+ * @since 3.1.1
+ */
+final class ParallelDirectoryScanner
+    extends DirectoryScanner
+{
+
+    private static ForkJoinPool pool;
+
+    private final Set<String> prunedDirectories;
+
+    private boolean followSymlinks = true;
+
+    private DirectoryTree tree;
+
+    /**
+     * @param prunedDirectories the relative paths, separated by <code>/</code> and lower case unless the scanner is
+     *                          case sensitive, of the directories not to enter.
+     */
+    ParallelDirectoryScanner( final Set<String> prunedDirectories )
+    {
+        this.prunedDirectories = prunedDirectories;
+    }
+
+    /**
+     * Scans the listings of <code>tree</code>, shared with other scans of the base directory, instead of listing the
+     * directories anew.
+     */
+    void setTree( final DirectoryTree tree )
+    {
+        this.tree = tree;
+    }
+
+    private static synchronized ForkJoinPool getPool()
+    {
+        if ( pool == null )
+        {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    @Override
+    public void setFollowSymlinks( final boolean followSymlinks )
+    {
+        super.setFollowSymlinks( followSymlinks );
+        this.followSymlinks = followSymlinks;
+    }
+
+    @Override
+    public void scan()
+    {
+        if ( basedir == null )
+        {
+            throw new IllegalStateException( "No basedir set" );
+        }
+        if ( !basedir.exists() )
+        {
+            throw new IllegalStateException( "basedir " + basedir + " does not exist" );
+        }
+        if ( !basedir.isDirectory() )
+        {
+            throw new IllegalStateException( "basedir " + basedir + " is not a directory" );
+        }
+
+        setupDefaultFilters();
+        setupMatchPatterns();
+
+        filesIncluded = new Vector<>();
+        filesNotIncluded = new Vector<>();
+        filesExcluded = new Vector<>();
+        filesDeselected = new Vector<>();
+        dirsIncluded = new Vector<>();
+        dirsNotIncluded = new Vector<>();
+        dirsExcluded = new Vector<>();
+        dirsDeselected = new Vector<>();
+
+        final String[] noTokens = new String[0];
+        if ( isIncluded( "", noTokens ) && !isExcluded( "", noTokens ) && isSelected( "", basedir ) )
+        {
+            dirsIncluded.add( "" );
+        }
+
+        final DirectoryTree tree = this.tree != null ? this.tree : DirectoryTree.of( basedir.toPath() );
+        final Listing listing = getPool().invoke( new ScanTask( tree, "", noTokens ) );
+        dirsIncluded.addAll( listing.directories );
+        filesIncluded.addAll( listing.files );
+    }
+
+    @Override
+    protected void slowScan()
+    {
+        // only the included directories and files are collected
+    }
+
+    /**
+     * The included directories and files below a directory, in scan order.
+     */
+    private static final class Listing
+    {
+
+        private final List<String> directories = new ArrayList<>();
+
+        private final List<String> files = new ArrayList<>();
+
+    }
+
+    /**
+     * Scans one directory, forking the scans of its subdirectories.
+     */
+    private final class ScanTask
+        extends RecursiveTask<Listing>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DirectoryTree directory;
+
+        private final String vpath;
+
+        private final String[] tokens;
+
+        ScanTask( final DirectoryTree directory, final String vpath, final String[] tokens )
+        {
+            this.directory = directory;
+            this.vpath = vpath;
+            this.tokens = tokens;
+        }
+
+        @Override
+        protected Listing compute()
+        {
+            final Listing listing = new Listing();
+            if ( !followSymlinks && directory.isSymbolicLink() )
+            {
+                // like DirectoryScanner, which lists a linked directory but none of its contents
+                return listing;
+            }
+
+            // included directories, names of included files and scans of subdirectories, in listing order
+            final List<Object> entries = new ArrayList<>();
+            for ( final DirectoryTree entry : directory.getChildren() )
+            {
+                final String fileName = entry.getName();
+                final String name = vpath + fileName;
+                final String[] entryTokens = Arrays.copyOf( tokens, tokens.length + 1 );
+                entryTokens[tokens.length] = fileName;
+
+                final boolean included = isIncluded( name, entryTokens ) && !isExcluded( name, entryTokens )
+                    && isSelected( name, entry.getPath().toFile() );
+                if ( entry.isDirectory() )
+                {
+                    if ( included )
+                    {
+                        entries.add( new IncludedDirectory( name ) );
+                    }
+
+                    if ( ( included || couldHoldIncluded( name ) ) && !isPruned( name ) )
+                    {
+                        final ScanTask task = new ScanTask( entry, name + File.separator, entryTokens );
+                        task.fork();
+                        entries.add( task );
+                    }
+                }
+                else if ( included )
+                {
+                    entries.add( name );
+                }
+            }
+
+            for ( final Object entry : entries )
+            {
+                if ( entry instanceof ScanTask )
+                {
+                    final Listing subListing = ( (ScanTask) entry ).join();
+                    listing.directories.addAll( subListing.directories );
+                    listing.files.addAll( subListing.files );
+                }
+                else if ( entry instanceof IncludedDirectory )
+                {
+                    listing.directories.add( ( (IncludedDirectory) entry ).name );
+                }
+                else
+                {
+                    listing.files.add( (String) entry );
+                }
+            }
+            return listing;
+        }
+
+    }
+
+    private boolean isPruned( final String name )
+    {
+        if ( prunedDirectories.isEmpty() )
+        {
+            return false;
+        }
+
+        final String path = name.replace( File.separatorChar, '/' );
+        return prunedDirectories.contains( isCaseSensitive ? path : path.toLowerCase( Locale.ENGLISH ) );
+    }
+
+    private static final class IncludedDirectory
+    {
+
+        private final String name;
+
+        IncludedDirectory( final String name )
+        {
+            this.name = name;
+        }
+
+    }
+
+}
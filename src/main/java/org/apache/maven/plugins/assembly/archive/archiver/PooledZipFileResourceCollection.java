@@ -0,0 +1,195 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.codehaus.plexus.components.io.attributes.PlexusIoResourceAttributes;
+import org.codehaus.plexus.components.io.attributes.SimpleResourceAttributes;
+import org.codehaus.plexus.components.io.functions.ResourceAttributeSupplier;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoArchiveResourceCollection;
+import org.codehaus.plexus.components.io.resources.AbstractPlexusIoResource;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * Resource collection of a zip archive reading its entries from a {@link ZipFilePool}, with the same resources as
+ * <code>PlexusArchiverZipFileResourceCollection</code>, including the unix modes of the entries. Archives holding
+ * symbolic links are left to the collections of plexus-archiver.
+ *
+ * @since 3.1.1
+ */
+final class PooledZipFileResourceCollection
+    extends AbstractPlexusIoArchiveResourceCollection
+{
+
+    private final ZipFilePool pool;
+
+    private final Charset encoding;
+
+    PooledZipFileResourceCollection( final ZipFilePool pool, final Charset encoding )
+    {
+        this.pool = pool;
+        this.encoding = encoding;
+    }
+
+    /**
+     * @return <code>true</code> when the archive can be read from the pool, <code>false</code> when it needs a
+     *         collection of plexus-archiver.
+     */
+    boolean isSupported()
+        throws IOException
+    {
+        final ZipFilePool.Handle handle = pool.acquire( getFile(), encoding );
+        try
+        {
+            return !handle.hasSymbolicLinks();
+        }
+        finally
+        {
+            pool.release( handle );
+        }
+    }
+
+    @Override
+    public boolean isConcurrentAccessSupported()
+    {
+        // like PlexusArchiverZipFileResourceCollection, the contents are read while the entries are iterated
+        return false;
+    }
+
+    @Override
+    protected Iterator<PlexusIoResource> getEntries()
+        throws IOException
+    {
+        return new EntryIterator( pool.acquire( getFile(), encoding ) );
+    }
+
+    private final class EntryIterator
+        implements Iterator<PlexusIoResource>, Closeable
+    {
+
+        private final ZipFilePool.Handle handle;
+
+        private final Iterator<ZipArchiveEntry> entries;
+
+        private boolean released;
+
+        private EntryIterator( final ZipFilePool.Handle handle )
+        {
+            this.handle = handle;
+            this.entries = handle.getEntries().iterator();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return entries.hasNext();
+        }
+
+        @Override
+        public PlexusIoResource next()
+        {
+            return new ZipEntryResource( handle, entries.next() );
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException( "remove" );
+        }
+
+        @Override
+        public void close()
+        {
+            if ( !released )
+            {
+                released = true;
+                pool.release( handle );
+            }
+        }
+
+    }
+
+    private static final class ZipEntryResource
+        extends AbstractPlexusIoResource
+        implements ResourceAttributeSupplier
+    {
+
+        private final ZipFilePool.Handle handle;
+
+        private final ZipArchiveEntry entry;
+
+        private PlexusIoResourceAttributes attributes;
+
+        private ZipEntryResource( final ZipFilePool.Handle handle, final ZipArchiveEntry entry )
+        {
+            super( entry.getName(),
+                   entry.getTime() == -1 ? PlexusIoResource.UNKNOWN_MODIFICATION_DATE : entry.getTime(),
+                   entry.isDirectory() ? PlexusIoResource.UNKNOWN_RESOURCE_SIZE : entry.getSize(),
+                   !entry.isDirectory(), entry.isDirectory(), true );
+            this.handle = handle;
+            this.entry = entry;
+        }
+
+        @Override
+        @Nonnull
+        public InputStream getContents()
+            throws IOException
+        {
+            return handle.getZipFile().getInputStream( entry );
+        }
+
+        /**
+         * The unix mode of the entry without its file type bits, as plexus-archiver's <code>ZipResource</code> reads
+         * it, or no mode when the entry was not created on unix.
+         */
+        @Override
+        public synchronized PlexusIoResourceAttributes getAttributes()
+        {
+            if ( attributes == null )
+            {
+                int mode = -1;
+                if ( entry.getPlatform() == ZipArchiveEntry.PLATFORM_UNIX )
+                {
+                    mode = entry.getUnixMode();
+                    mode &= ( mode & 0100000 ) == 0100000 ? ~0100000 : ~0040000;
+                }
+                attributes = new SimpleResourceAttributes( null, null, null, null, mode );
+            }
+            return attributes;
+        }
+
+        @Override
+        public URL getURL()
+            throws IOException
+        {
+            return new URL( "jar:" + handle.getArchive().toURI().toURL() + "!/" + entry.getName() );
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.components.io.attributes.FileAttributes;
+import org.codehaus.plexus.components.io.attributes.PlexusIoResourceAttributes;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.components.io.resources.ResourceFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * File resource collection whose scanner never descends into directories excluded as a whole, that is by an exclude
+ * like <code>module/**</code> without wildcards before the trailing <code>/**</code>. The plexus-utils scanner walks
+ * excluded directories anyway, in case an include matches beneath them, although the exclude always wins. The
+ * resources are the same as those of {@link PlexusIoFileResourceCollection}, scanned by a
+ * {@link ParallelDirectoryScanner}. A scan prefetched into
+ * {@link DirectoryScans} replaces the scan altogether.
+ *
+ * @since 3.1.1
+ */
+final class PrunedFileResourceCollection
+    extends PlexusIoFileResourceCollection
+{
+
+    private final Set<String> prunedDirectories;
+
+    private DirectoryScans directoryScans;
+
+    private PrunedFileResourceCollection( final Set<String> prunedDirectories )
+    {
+        this.prunedDirectories = prunedDirectories;
+    }
+
+    /**
+     * @return a collection pruning the directories excluded as a whole by <code>excludes</code>, or <code>null</code>
+     *         if there are none.
+     */
+    static PrunedFileResourceCollection forExcludes( final String[] excludes, final boolean caseSensitive )
+    {
+        final Set<String> prunedDirectories = getPrunedDirectories( excludes, caseSensitive );
+        return prunedDirectories.isEmpty() ? null : new PrunedFileResourceCollection( prunedDirectories );
+    }
+
+    /**
+     * @return a collection pruning the directories excluded as a whole by <code>excludes</code> and taking the
+     *         prefetched scans of <code>directoryScans</code>, or <code>null</code> if it would do neither.
+     */
+    static PrunedFileResourceCollection forExcludes( final String[] excludes, final boolean caseSensitive,
+                                                     final DirectoryScans directoryScans )
+    {
+        if ( directoryScans == null )
+        {
+            return forExcludes( excludes, caseSensitive );
+        }
+
+        final PrunedFileResourceCollection collection =
+            new PrunedFileResourceCollection( getPrunedDirectories( excludes, caseSensitive ) );
+        collection.setDirectoryScans( directoryScans );
+        return collection;
+    }
+
+    static Set<String> getPrunedDirectories( final String[] excludes, final boolean caseSensitive )
+    {
+        if ( excludes == null )
+        {
+            return Collections.emptySet();
+        }
+
+        final Set<String> directories = new HashSet<>();
+        for ( final String exclude : excludes )
+        {
+            String directory = exclude.replace( '\\', '/' );
+            if ( !directory.endsWith( "/**" ) )
+            {
+                continue;
+            }
+
+            directory = directory.substring( 0, directory.length() - 3 );
+
+            if ( isLiteralPath( directory ) )
+            {
+                directories.add( caseSensitive ? directory : directory.toLowerCase( Locale.ENGLISH ) );
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * @return <code>true</code> if <code>path</code> names a single relative path, without wildcards, regular
+     *         expressions or <code>.</code> and <code>..</code> elements.
+     */
+    private static boolean isLiteralPath( final String path )
+    {
+        if ( path.startsWith( "%" ) || path.contains( "*" ) || path.contains( "?" ) || path.contains( "[" ) )
+        {
+            return false;
+        }
+
+        for ( final String element : path.split( "/", -1 ) )
+        {
+            if ( element.length() == 0 || ".".equals( element ) || "..".equals( element ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes prefetched scans from <code>directoryScans</code> when they match the scan of this collection.
+     */
+    void setDirectoryScans( final DirectoryScans directoryScans )
+    {
+        this.directoryScans = directoryScans;
+    }
+
+    @Override
+    public Iterator<PlexusIoResource> getResources()
+        throws IOException
+    {
+        DirectoryScans.Scan scan = directoryScans != null
+            ? directoryScans.take( getBaseDir(), getIncludes(), getExcludes(), isUsingDefaultExcludes(),
+                                   isCaseSensitive() )
+            : null;
+        if ( scan == null || isFollowingSymLinks() )
+        {
+            scan = scan( getBaseDir(), getIncludes(), getExcludes(), isUsingDefaultExcludes(), isCaseSensitive(),
+                         isFollowingSymLinks(), prunedDirectories, directoryScans );
+        }
+
+        final List<PlexusIoResource> resources = new ArrayList<>();
+        if ( isIncludingEmptyDirectories() )
+        {
+            addResources( resources, scan.getIncludedDirectories() );
+        }
+        addResources( resources, scan.getIncludedFiles() );
+        return resources.iterator();
+    }
+
+    /**
+     * Scans <code>baseDir</code> the way the resource collection does, without descending into directories excluded
+     * as a whole.
+     *
+     * @param directoryScans the scans sharing the listings of <code>baseDir</code>, or <code>null</code> to list it
+     *                       anew.
+     */
+    static DirectoryScans.Scan scan( final File baseDir, final String[] includes, final String[] excludes,
+                                     final boolean usingDefaultExcludes, final boolean caseSensitive,
+                                     final boolean followSymlinks, final DirectoryScans directoryScans )
+    {
+        return scan( baseDir, includes, excludes, usingDefaultExcludes, caseSensitive, followSymlinks,
+                     getPrunedDirectories( excludes, caseSensitive ), directoryScans );
+    }
+
+    private static DirectoryScans.Scan scan( final File baseDir, final String[] includes, final String[] excludes,
+                                             final boolean usingDefaultExcludes, final boolean caseSensitive,
+                                             final boolean followSymlinks, final Set<String> prunedDirectories,
+                                             final DirectoryScans directoryScans )
+    {
+        final ParallelDirectoryScanner scanner = new ParallelDirectoryScanner( prunedDirectories );
+        scanner.setBasedir( baseDir );
+        if ( directoryScans != null )
+        {
+            scanner.setTree( directoryScans.getTree( baseDir ) );
+        }
+
+        if ( includes != null && includes.length > 0 )
+        {
+            scanner.setIncludes( includes );
+        }
+
+        if ( excludes != null && excludes.length > 0 )
+        {
+            scanner.setExcludes( excludes );
+        }
+
+        if ( usingDefaultExcludes )
+        {
+            scanner.addDefaultExcludes();
+        }
+
+        scanner.setCaseSensitive( caseSensitive );
+        scanner.setFollowSymlinks( followSymlinks );
+        scanner.scan();
+
+        return new DirectoryScans.Scan( scanner.getIncludedDirectories(), scanner.getIncludedFiles() );
+    }
+
+    private void addResources( final List<PlexusIoResource> resources, final String[] paths )
+        throws IOException
+    {
+        final Map<Integer, String> userNames = new HashMap<>();
+        final Map<Integer, String> groupNames = new HashMap<>();
+        for ( final String path : paths )
+        {
+            final File file = new File( getBaseDir(), path.replace( '\\', '/' ) );
+
+            final PlexusIoResourceAttributes attributes =
+                mergeAttributes( new FileAttributes( file, userNames, groupNames ), file.isDirectory() );
+            final PlexusIoResource resource =
+                ResourceFactory.createResource( file, getName( path ), null, getStreamTransformer(), attributes );
+            if ( isSelected( resource ) )
+            {
+                resources.add( resource );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Bounded pool of open zip files shared by the archived file sets of an assembly execution, so a dependency added by
+ * several dependency sets, module binaries or formats has its central directory read once.
+ * <p>
+ * Zip files are keyed by canonical path, modification time, length and entry name encoding. Every handle in use is
+ * reference counted: the least recently used zip files beyond the bound are closed once they are released, and the
+ * remaining ones when the execution finishes.
+ * </p>
+ *
+ * @since 3.1.1
+ */
+public final class ZipFilePool
+{
+
+    static final int DEFAULT_MAX_OPEN = 32;
+
+    private static final Map<AssemblerConfigurationSource, ZipFilePool> POOLS = new WeakHashMap<>();
+
+    private final int maxOpen;
+
+    private final LinkedHashMap<String, Handle> handles = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private boolean closed;
+
+    ZipFilePool( final int maxOpen )
+    {
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * @param configSource the configuration source of the execution.
+     * @return the pool of the execution.
+     */
+    public static ZipFilePool forConfigSource( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( POOLS )
+        {
+            ZipFilePool pool = POOLS.get( configSource );
+            if ( pool == null )
+            {
+                pool = new ZipFilePool( DEFAULT_MAX_OPEN );
+                POOLS.put( configSource, pool );
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Closes the zip files of the execution.
+     *
+     * @param configSource the configuration source of the execution.
+     */
+    public static void closeFor( final AssemblerConfigurationSource configSource )
+    {
+        final ZipFilePool pool;
+        synchronized ( POOLS )
+        {
+            pool = POOLS.remove( configSource );
+        }
+        if ( pool != null )
+        {
+            pool.close();
+        }
+    }
+
+    /**
+     * Opens <code>archive</code>, or shares the zip file already open for it. Every handle must be released.
+     */
+    synchronized Handle acquire( final File archive, final Charset encoding )
+        throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "The zip file pool is closed." );
+        }
+
+        final File canonical = archive.getCanonicalFile();
+        final String key = canonical.getPath() + '@' + canonical.lastModified() + ':' + canonical.length() + ':'
+            + ( encoding != null ? encoding.name() : "" );
+
+        Handle handle = handles.get( key );
+        if ( handle == null )
+        {
+            // same default as PlexusIoZipFileResourceCollection
+            handle = new Handle( archive, new ZipFile( canonical, encoding != null ? encoding.name() : "UTF8" ) );
+            handles.put( key, handle );
+        }
+        handle.references++;
+
+        evict();
+        return handle;
+    }
+
+    synchronized void release( final Handle handle )
+    {
+        handle.references--;
+        if ( closed || !handles.containsValue( handle ) )
+        {
+            if ( handle.references == 0 )
+            {
+                handle.close();
+            }
+        }
+        else
+        {
+            evict();
+        }
+    }
+
+    synchronized int getOpenCount()
+    {
+        return handles.size();
+    }
+
+    synchronized void close()
+    {
+        closed = true;
+        for ( final Handle handle : handles.values() )
+        {
+            if ( handle.references == 0 )
+            {
+                handle.close();
+            }
+        }
+        handles.clear();
+    }
+
+    private void evict()
+    {
+        final Iterator<Handle> it = handles.values().iterator();
+        while ( handles.size() > maxOpen && it.hasNext() )
+        {
+            final Handle handle = it.next();
+            if ( handle.references == 0 )
+            {
+                it.remove();
+                handle.close();
+            }
+        }
+    }
+
+    /**
+     * An open zip file with its entries in physical order.
+     */
+    static final class Handle
+    {
+
+        private final File archive;
+
+        private final ZipFile zipFile;
+
+        private final List<ZipArchiveEntry> entries;
+
+        private final boolean symbolicLinks;
+
+        private int references;
+
+        private boolean open = true;
+
+        private Handle( final File archive, final ZipFile zipFile )
+        {
+            this.archive = archive;
+            this.zipFile = zipFile;
+
+            final List<ZipArchiveEntry> entries = new ArrayList<>();
+            boolean symbolicLinks = false;
+            for ( final Enumeration<ZipArchiveEntry> en = zipFile.getEntriesInPhysicalOrder(); en.hasMoreElements(); )
+            {
+                final ZipArchiveEntry entry = en.nextElement();
+                entries.add( entry );
+                symbolicLinks |= entry.isUnixSymlink();
+            }
+            this.entries = Collections.unmodifiableList( entries );
+            this.symbolicLinks = symbolicLinks;
+        }
+
+        File getArchive()
+        {
+            return archive;
+        }
+
+        ZipFile getZipFile()
+        {
+            return zipFile;
+        }
+
+        List<ZipArchiveEntry> getEntries()
+        {
+            return entries;
+        }
+
+        boolean hasSymbolicLinks()
+        {
+            return symbolicLinks;
+        }
+
+        /**
+         * @return <code>true</code> until the zip file is closed.
+         */
+        boolean isOpen()
+        {
+            return open;
+        }
+
+        private void close()
+        {
+            open = false;
+            try
+            {
+                zipFile.close();
+            }
+            catch ( final IOException e )
+            {
+                // nothing was written, so nothing can be lost
+            }
+        }
+
+    }
+
+}
@@ -24,6 +24,7 @@ import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
 import org.apache.maven.plugins.assembly.archive.task.AddDependencySetsTask;
+import org.apache.maven.plugins.assembly.artifact.DependencyProjectBuilder;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolutionException;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolver;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
@@ -61,6 +62,9 @@ public class DependencySetAssemblyPhase
     @Requirement
     private DependencyResolver dependencyResolver;
 
+    @Requirement
+    private DependencyProjectBuilder dependencyProjectBuilder;
+
 
     /**
      * Default constructor.
@@ -101,6 +105,7 @@ public class DependencySetAssemblyPhase
                                            dependencySetSetEntry.getValue(), configSource.getProject(), projectBuilder,
                                            getLogger() );
 
+            task.setDependencyProjectBuilder( dependencyProjectBuilder );
             task.execute( archiver, configSource );
         }
     }
@@ -92,7 +92,7 @@ public class FileItemAssemblyPhase
             final String outputDirectory =
                 AssemblyFormatUtils.getOutputDirectory( outputDirectory1, configSource.getFinalName(), configSource,
                                                         AssemblyFormatUtils.moduleProjectInterpolator(
-                                                            configSource.getProject() ),
+                                                            configSource.getProject(), configSource ),
                                                         AssemblyFormatUtils.artifactProjectInterpolator( null ) );
 
             String target;
@@ -0,0 +1,216 @@
+package org.apache.maven.plugins.assembly.archive.phase;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
+import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
+import org.apache.maven.plugins.assembly.archive.archiver.DirectoryScans;
+import org.apache.maven.plugins.assembly.archive.task.ArtifactTargets;
+import org.apache.maven.plugins.assembly.artifact.DependencyResolutionException;
+import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs a {@link ModuleTask} for each module project of a module set. With more than one
+ * {@link AssemblerConfigurationSource#getModuleThreads() module thread}, the modules are prepared on worker threads
+ * against {@link RecordingArchiver}s, and their entries are added to the archiver in the order of the modules, so that
+ * the assembly does not depend on which module was ready first.
+ *
+ * @since 3.1.1
+ */
+final class ModuleProjectWorkers
+{
+
+    private ModuleProjectWorkers()
+    {
+    }
+
+    /**
+     * The work for one module project.
+     */
+    interface ModuleTask
+    {
+
+        /**
+         * @param targets the entries added so far, or <code>null</code> if duplicates are skipped while the entries
+         *                are added to the archiver.
+         */
+        void execute( MavenProject moduleProject, Archiver archiver, ArtifactTargets targets )
+            throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException,
+            DependencyResolutionException;
+
+    }
+
+    /**
+     * @param targets the entries added so far, to skip adding them again, or <code>null</code> to add every entry.
+     * @param message the message logged at info level before the entries of a module are added, followed by the
+     *                module id, or <code>null</code> for none.
+     */
+    static void forEach( final Set<MavenProject> moduleProjects, final Archiver archiver,
+                         final AssemblerConfigurationSource configSource, final ArtifactTargets targets,
+                         final Logger logger, final String message, final ModuleTask task )
+        throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException,
+        DependencyResolutionException
+    {
+        final int threads = moduleProjects.size() > 1 ? Math.min( configSource.getModuleThreads(),
+                                                                  moduleProjects.size() ) : 1;
+        if ( threads <= 1 )
+        {
+            for ( final MavenProject moduleProject : moduleProjects )
+            {
+                if ( message != null )
+                {
+                    logger.info( message + moduleProject.getId() );
+                }
+                task.execute( moduleProject, archiver, targets );
+            }
+            return;
+        }
+
+        // the interpolators are created on first use, which the workers must not race for
+        configSource.getMainProjectInterpolator();
+        configSource.getCommandLinePropsInterpolator();
+        configSource.getEnvInterpolator();
+        configSource.getRepositoryInterpolator();
+
+        final DirectoryScans directoryScans = DirectoryScans.forConfigSource( configSource );
+        final ExecutorService executor = Executors.newFixedThreadPool( threads, new ModuleThreadFactory() );
+        try
+        {
+            final List<Future<RecordingArchiver>> recordings = new ArrayList<>();
+            for ( final MavenProject moduleProject : moduleProjects )
+            {
+                final RecordingArchiver recording = new RecordingArchiver( archiver, directoryScans );
+                recordings.add( executor.submit( new Callable<RecordingArchiver>()
+                {
+                    @Override
+                    public RecordingArchiver call()
+                        throws Exception
+                    {
+                        task.execute( moduleProject, recording.newArchiver(), null );
+                        return recording;
+                    }
+                } ) );
+            }
+
+            int index = 0;
+            for ( final MavenProject moduleProject : moduleProjects )
+            {
+                final RecordingArchiver recording = get( recordings.get( index++ ), moduleProject );
+                if ( message != null )
+                {
+                    logger.info( message + moduleProject.getId() );
+                }
+
+                try
+                {
+                    recording.replay( targets );
+                }
+                catch ( final ArchiverException e )
+                {
+                    throw new ArchiveCreationException(
+                        "Error adding entries of module project: " + moduleProject.getId() + ": " + e.getMessage(),
+                        e );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RecordingArchiver get( final Future<RecordingArchiver> recording, final MavenProject moduleProject )
+        throws ArchiveCreationException, AssemblyFormattingException, InvalidAssemblerConfigurationException,
+        DependencyResolutionException
+    {
+        try
+        {
+            return recording.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new ArchiveCreationException( "Interrupted preparing module project: " + moduleProject.getId(), e );
+        }
+        catch ( final ExecutionException e )
+        {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof ArchiveCreationException )
+            {
+                throw (ArchiveCreationException) cause;
+            }
+            else if ( cause instanceof AssemblyFormattingException )
+            {
+                throw (AssemblyFormattingException) cause;
+            }
+            else if ( cause instanceof InvalidAssemblerConfigurationException )
+            {
+                throw (InvalidAssemblerConfigurationException) cause;
+            }
+            else if ( cause instanceof DependencyResolutionException )
+            {
+                throw (DependencyResolutionException) cause;
+            }
+            else if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            else if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new ArchiveCreationException(
+                "Error preparing module project: " + moduleProject.getId() + ": " + cause.getMessage(), cause );
+        }
+    }
+
+    private static final class ModuleThreadFactory
+        implements ThreadFactory
+    {
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        private int count;
+
+        @Override
+        public synchronized Thread newThread( final Runnable runnable )
+        {
+            final Thread thread = new Thread( runnable, "assembly-module-" + ( ++count ) );
+            thread.setDaemon( true );
+            thread.setContextClassLoader( contextClassLoader );
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.apache.maven.plugins.assembly.archive.phase;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Module projects of the module sets of a build session. Aggregating projects with several descriptors, or reactor
+ * modules sharing a descriptor, resolve and filter the same module sets many times; both the module trees and the
+ * filtered module sets are kept until the reactor projects change.
+ *
+ * @since 3.1.1
+ */
+final class ModuleProjectsCache
+{
+
+    private static final Map<MavenSession, ModuleProjectsCache> CACHES = new WeakHashMap<>();
+
+    private final List<MavenProject> reactorProjects;
+
+    private final Map<List<Object>, Set<MavenProject>> moduleProjects = new HashMap<>();
+
+    private ModuleProjectsCache( final List<MavenProject> reactorProjects )
+    {
+        this.reactorProjects = new ArrayList<>( reactorProjects );
+    }
+
+    /**
+     * @return the cache of <code>session</code>, empty if <code>reactorProjects</code> are not the projects it was
+     *         filled for; <code>null</code> without a session.
+     */
+    static ModuleProjectsCache forSession( final MavenSession session, final List<MavenProject> reactorProjects )
+    {
+        if ( session == null )
+        {
+            return null;
+        }
+
+        synchronized ( CACHES )
+        {
+            ModuleProjectsCache cache = CACHES.get( session );
+            if ( cache == null || !cache.isFor( reactorProjects ) )
+            {
+                cache = new ModuleProjectsCache( reactorProjects );
+                CACHES.put( session, cache );
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @param root the project the modules are looked up for.
+     * @param criteria whatever else decides the module projects.
+     * @return the key of the module projects.
+     */
+    static List<Object> key( final MavenProject root, final Object... criteria )
+    {
+        final List<Object> key = new ArrayList<>( criteria.length + 1 );
+        key.add( new ProjectIdentity( root ) );
+        key.addAll( Arrays.asList( criteria ) );
+        return key;
+    }
+
+    synchronized Set<MavenProject> get( final List<Object> key )
+    {
+        return moduleProjects.get( key );
+    }
+
+    synchronized void put( final List<Object> key, final Set<MavenProject> projects )
+    {
+        moduleProjects.put( key, projects );
+    }
+
+    private boolean isFor( final List<MavenProject> projects )
+    {
+        if ( projects.size() != reactorProjects.size() )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < projects.size(); i++ )
+        {
+            if ( projects.get( i ) != reactorProjects.get( i ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Projects equal by their coordinates may still be different reactor projects.
+     */
+    private static final class ProjectIdentity
+    {
+
+        private final MavenProject project;
+
+        private ProjectIdentity( final MavenProject project )
+        {
+            this.project = project;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            return obj instanceof ProjectIdentity && ( (ProjectIdentity) obj ).project == project;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode( project );
+        }
+
+    }
+
+}
@@ -25,7 +25,9 @@ import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
 import org.apache.maven.plugins.assembly.archive.task.AddArtifactTask;
 import org.apache.maven.plugins.assembly.archive.task.AddDependencySetsTask;
+import org.apache.maven.plugins.assembly.archive.task.ArtifactTargets;
 import org.apache.maven.plugins.assembly.archive.task.AddFileSetsTask;
+import org.apache.maven.plugins.assembly.artifact.DependencyProjectBuilder;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolutionException;
 import org.apache.maven.plugins.assembly.artifact.DependencyResolver;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
@@ -93,6 +95,9 @@ public class ModuleSetAssemblyPhase
     @Requirement
     private DependencyResolver dependencyResolver;
 
+    @Requirement
+    private DependencyProjectBuilder dependencyProjectBuilder;
+
     /**
      * Create an instance.
      */
@@ -142,24 +147,47 @@ public class ModuleSetAssemblyPhase
                                                        final Logger logger )
         throws ArchiveCreationException
     {
-        MavenProject project = configSource.getProject();
-        Set<MavenProject> moduleProjects = null;
-
-        if ( moduleSet.isUseAllReactorProjects() )
+        final List<MavenProject> reactorProjects = configSource.getReactorProjects();
+        final MavenProject project =
+            moduleSet.isUseAllReactorProjects() ? reactorProjects.get( 0 ) : configSource.getProject();
+
+        final ModuleProjectsCache cache =
+            ModuleProjectsCache.forSession( configSource.getMavenSession(), reactorProjects );
+        final List<Object> key =
+            ModuleProjectsCache.key( project, moduleSet.isUseAllReactorProjects(), moduleSet.isIncludeSubModules(),
+                                     new ArrayList<>( moduleSet.getIncludes() ),
+                                     new ArrayList<>( moduleSet.getExcludes() ) );
+        Set<MavenProject> filtered = cache != null ? cache.get( key ) : null;
+        if ( filtered == null )
         {
-            if ( !moduleSet.isIncludeSubModules() )
+            filtered = FilterUtils.filterProjects( getModuleTree( moduleSet, project, reactorProjects, cache, logger ),
+                                                   moduleSet.getIncludes(), moduleSet.getExcludes(), true, logger );
+            if ( cache != null )
             {
-                moduleProjects = new LinkedHashSet<>( configSource.getReactorProjects() );
+                cache.put( key, filtered );
             }
+        }
 
-            project = configSource.getReactorProjects().get( 0 );
+        return new LinkedHashSet<>( filtered );
+    }
+
+    private static Set<MavenProject> getModuleTree( final ModuleSet moduleSet, final MavenProject project,
+                                                    final List<MavenProject> reactorProjects,
+                                                    final ModuleProjectsCache cache, final Logger logger )
+        throws ArchiveCreationException
+    {
+        if ( moduleSet.isUseAllReactorProjects() && !moduleSet.isIncludeSubModules() )
+        {
+            return new LinkedHashSet<>( reactorProjects );
         }
 
+        final List<Object> key = ModuleProjectsCache.key( project, moduleSet.isIncludeSubModules() );
+        Set<MavenProject> moduleProjects = cache != null ? cache.get( key ) : null;
         if ( moduleProjects == null )
         {
             try
             {
-                moduleProjects = ProjectUtils.getProjectModules( project, configSource.getReactorProjects(),
+                moduleProjects = ProjectUtils.getProjectModules( project, reactorProjects,
                                                                  moduleSet.isIncludeSubModules(), logger );
             }
             catch ( final IOException e )
@@ -167,10 +195,14 @@ public class ModuleSetAssemblyPhase
                 throw new ArchiveCreationException(
                     "Error retrieving module-set for project: " + project.getId() + ": " + e.getMessage(), e );
             }
+
+            if ( cache != null )
+            {
+                cache.put( key, moduleProjects );
+            }
         }
 
-        return FilterUtils.filterProjects( moduleProjects, moduleSet.getIncludes(), moduleSet.getExcludes(), true,
-                                           logger );
+        return moduleProjects;
     }
 
     /**
@@ -295,7 +327,7 @@ public class ModuleSetAssemblyPhase
 
         if ( depSets != null )
         {
-            Map<DependencySet, Set<Artifact>> dependencySetSetMap =
+            final Map<DependencySet, Set<Artifact>> dependencySetSetMap =
                 dependencyResolver.resolveDependencySets( assembly, moduleSet, configSource, depSets );
 
             for ( final DependencySet ds : depSets )
@@ -322,25 +354,45 @@ public class ModuleSetAssemblyPhase
                 getLogger().warn( sb.toString() );
             }
 
-            for ( final MavenProject moduleProject : moduleProjects )
+            // modules mostly share their dependencies, which only need adding once per location
+            final ArtifactTargets artifactTargets = new ArtifactTargets();
+            ModuleProjectWorkers.forEach( moduleProjects, archiver, configSource, artifactTargets, getLogger(), null,
+                                          new ModuleProjectWorkers.ModuleTask()
             {
-                getLogger().debug( "Processing binary dependencies for module project: " + moduleProject.getId() );
-
-                for ( Map.Entry<DependencySet, Set<Artifact>> dependencySetSetEntry : dependencySetSetMap.entrySet() )
+                @Override
+                public void execute( final MavenProject moduleProject, final Archiver moduleArchiver,
+                                     final ArtifactTargets targets )
+                    throws ArchiveCreationException, AssemblyFormattingException,
+                    InvalidAssemblerConfigurationException, DependencyResolutionException
                 {
-                    final AddDependencySetsTask task =
-                        new AddDependencySetsTask( Collections.singletonList( dependencySetSetEntry.getKey() ),
-                                                   dependencySetSetEntry.getValue(), moduleProject, projectBuilder,
-                                                   getLogger() );
-
-                    task.setModuleProject( moduleProject );
-                    task.setModuleArtifact( chosenModuleArtifacts.get( moduleProject ) );
-                    task.setDefaultOutputDirectory( binaries.getOutputDirectory() );
-                    task.setDefaultOutputFileNameMapping( binaries.getOutputFileNameMapping() );
-
-                    task.execute( archiver, configSource );
-
+                    getLogger().debug(
+                        "Processing binary dependencies for module project: " + moduleProject.getId() );
+
+                    for ( Map.Entry<DependencySet, Set<Artifact>> dependencySetSetEntry
+                        : dependencySetSetMap.entrySet() )
+                    {
+                        final AddDependencySetsTask task =
+                            new AddDependencySetsTask( Collections.singletonList( dependencySetSetEntry.getKey() ),
+                                                       dependencySetSetEntry.getValue(), moduleProject,
+                                                       projectBuilder, getLogger() );
+
+                        task.setDependencyProjectBuilder( dependencyProjectBuilder );
+                        task.setModuleProject( moduleProject );
+                        task.setModuleArtifact( chosenModuleArtifacts.get( moduleProject ) );
+                        task.setDefaultOutputDirectory( binaries.getOutputDirectory() );
+                        task.setDefaultOutputFileNameMapping( binaries.getOutputFileNameMapping() );
+                        task.setArtifactTargets( targets );
+
+                        task.execute( moduleArchiver, configSource );
+                    }
                 }
+            } );
+
+            if ( artifactTargets.getSkippedCount() > 0 )
+            {
+                getLogger().info( "Added " + artifactTargets.getAddedCount() + " binary dependencies of "
+                                      + moduleProjects.size() + " module projects, skipping "
+                                      + artifactTargets.getSkippedCount() + " duplicates." );
             }
         }
     }
@@ -441,24 +493,38 @@ public class ModuleSetAssemblyPhase
 
         fileSets.addAll( subFileSets );
 
-        for ( final MavenProject moduleProject : moduleProjects )
+        try
         {
-            getLogger().info( "Processing sources for module project: " + moduleProject.getId() );
-
-            final List<FileSet> moduleFileSets = new ArrayList<>();
-
-            for ( final FileSet fileSet : fileSets )
+            ModuleProjectWorkers.forEach( moduleProjects, archiver, configSource, null, getLogger(),
+                                          "Processing sources for module project: ",
+                                          new ModuleProjectWorkers.ModuleTask()
             {
-                moduleFileSets.add( createFileSet( fileSet, sources, moduleProject, configSource ) );
-            }
+                @Override
+                public void execute( final MavenProject moduleProject, final Archiver moduleArchiver,
+                                     final ArtifactTargets targets )
+                    throws ArchiveCreationException, AssemblyFormattingException
+                {
+                    final List<FileSet> moduleFileSets = new ArrayList<>();
 
-            final AddFileSetsTask task = new AddFileSetsTask( moduleFileSets );
+                    for ( final FileSet fileSet : fileSets )
+                    {
+                        moduleFileSets.add( createFileSet( fileSet, sources, moduleProject, configSource ) );
+                    }
 
-            task.setProject( moduleProject );
-            task.setModuleProject( moduleProject );
-            task.setLogger( getLogger() );
+                    final AddFileSetsTask task = new AddFileSetsTask( moduleFileSets );
+
+                    task.setProject( moduleProject );
+                    task.setModuleProject( moduleProject );
+                    task.setLogger( getLogger() );
 
-            task.execute( archiver, configSource );
+                    task.execute( moduleArchiver, configSource );
+                }
+            } );
+        }
+        catch ( final InvalidAssemblerConfigurationException | DependencyResolutionException e )
+        {
+            // not thrown by file sets
+            throw new ArchiveCreationException( e.getMessage(), e );
         }
     }
 
@@ -524,6 +590,7 @@ public class ModuleSetAssemblyPhase
 
         if ( sources.isExcludeSubModuleDirectories() )
         {
+            // excluded as a whole, the submodule directories are not even scanned by AssemblyProxyArchiver
             final List<String> modules = moduleProject.getModules();
             for ( final String moduleSubPath : modules )
             {
@@ -538,9 +605,9 @@ public class ModuleSetAssemblyPhase
         fs.setLineEnding( fileSet.getLineEnding() );
 
         FixedStringSearchInterpolator moduleProjectInterpolator =
-            AssemblyFormatUtils.moduleProjectInterpolator( moduleProject );
+            AssemblyFormatUtils.moduleProjectInterpolator( moduleProject, configSource );
         FixedStringSearchInterpolator artifactProjectInterpolator =
-            AssemblyFormatUtils.artifactProjectInterpolator( moduleProject );
+            AssemblyFormatUtils.artifactProjectInterpolator( moduleProject, configSource );
         String destPathPrefix = "";
         if ( sources.isIncludeModuleDirectory() )
         {
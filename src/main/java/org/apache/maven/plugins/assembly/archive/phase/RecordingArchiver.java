@@ -0,0 +1,276 @@
+package org.apache.maven.plugins.assembly.archive.phase;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.assembly.archive.archiver.DirectoryScans;
+import org.apache.maven.plugins.assembly.archive.task.ArtifactTargets;
+import org.codehaus.plexus.archiver.ArchivedFileSet;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.BaseFileSet;
+import org.codehaus.plexus.archiver.FileSet;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records the entries a module adds to an {@link Archiver}, so that the module can be prepared on a worker thread
+ * while the entries are added to the real archiver later, in the order of the modules. The override and default
+ * modes are tracked from the state of the real archiver when recording starts, the other getters read the real
+ * archiver, and anything else is unsupported.
+ *
+ * @since 3.1.1
+ */
+final class RecordingArchiver
+    implements InvocationHandler
+{
+
+    // CHECKSTYLE_OFF: MagicNumber
+    private static final int DEFAULT_FILE_MODE = 0100644;
+
+    private static final int FILE_TYPE = 0100000;
+
+    private static final int DIRECTORY_TYPE = 040000;
+
+    private static final int PERMISSIONS = 07777;
+    // CHECKSTYLE_ON: MagicNumber
+
+    private final Archiver target;
+
+    private final DirectoryScans directoryScans;
+
+    private final List<Call> calls = new ArrayList<>();
+
+    private int overrideFileMode;
+
+    private int overrideDirectoryMode;
+
+    private int defaultFileMode;
+
+    private int defaultDirectoryMode;
+
+    /**
+     * @param target         the archiver to read and to replay to, with the state the recorded module starts from.
+     * @param directoryScans where to prefetch the scans of recorded file sets, or <code>null</code> not to.
+     */
+    RecordingArchiver( final Archiver target, final DirectoryScans directoryScans )
+    {
+        this.target = target;
+        this.directoryScans = directoryScans;
+
+        overrideFileMode = target.getOverrideFileMode();
+        overrideDirectoryMode = target.getOverrideDirectoryMode();
+        defaultFileMode = target.getDefaultFileMode();
+        defaultDirectoryMode = target.getDefaultDirectoryMode();
+    }
+
+    /**
+     * @return an archiver recording into this.
+     */
+    Archiver newArchiver()
+    {
+        return (Archiver) Proxy.newProxyInstance( Archiver.class.getClassLoader(), new Class<?>[] { Archiver.class },
+                                                  this );
+    }
+
+    int getCallCount()
+    {
+        return calls.size();
+    }
+
+    @Override
+    public Object invoke( final Object proxy, final Method method, final Object[] args )
+        throws Throwable
+    {
+        final String name = method.getName();
+
+        if ( method.getDeclaringClass() == Object.class )
+        {
+            if ( "equals".equals( name ) )
+            {
+                return proxy == args[0];
+            }
+            return "hashCode".equals( name ) ? System.identityHashCode( proxy ) : "RecordingArchiver@" + target;
+        }
+
+        switch ( name )
+        {
+            case "getOverrideFileMode":
+                return overrideFileMode;
+            case "getOverrideDirectoryMode":
+                return overrideDirectoryMode;
+            case "getDefaultFileMode":
+                return defaultFileMode;
+            case "getDefaultDirectoryMode":
+                return defaultDirectoryMode;
+            case "getFileMode":
+                return overrideFileMode >= 0 ? overrideFileMode : defaultFileMode >= 0 ? defaultFileMode
+                    : DEFAULT_FILE_MODE;
+            case "getDirectoryMode":
+                return overrideDirectoryMode >= 0 ? overrideDirectoryMode : defaultDirectoryMode;
+            case "setFileMode":
+                overrideFileMode = mode( (Integer) args[0], FILE_TYPE );
+                break;
+            case "setDirectoryMode":
+                overrideDirectoryMode = mode( (Integer) args[0], DIRECTORY_TYPE );
+                break;
+            case "setDefaultFileMode":
+                defaultFileMode = ( (Integer) args[0] & PERMISSIONS ) | FILE_TYPE;
+                break;
+            case "setDefaultDirectoryMode":
+                defaultDirectoryMode = ( (Integer) args[0] & PERMISSIONS ) | DIRECTORY_TYPE;
+                break;
+            case "getDestFile":
+            case "getIncludeEmptyDirs":
+            case "getDuplicateBehavior":
+            case "isForced":
+            case "isSupportingForced":
+            case "isUseJvmChmod":
+            case "isIgnorePermissions":
+                return invoke( target, method, args );
+            default:
+                if ( !name.startsWith( "add" ) )
+                {
+                    throw new UnsupportedOperationException( name + " is not supported while recording" );
+                }
+
+                if ( directoryScans != null && "addFileSet".equals( name ) )
+                {
+                    directoryScans.prefetch( (FileSet) args[0] );
+                }
+        }
+
+        calls.add( new Call( method, args, overrideFileMode, overrideDirectoryMode ) );
+        return null;
+    }
+
+    /**
+     * Makes the recorded calls on the real archiver, in order.
+     *
+     * @param targets the entries already added, to skip adding them again, or <code>null</code> to add every entry.
+     * @return the number of calls skipped as duplicates.
+     */
+    int replay( final ArtifactTargets targets )
+        throws ArchiverException
+    {
+        int skipped = 0;
+        for ( final Call call : calls )
+        {
+            if ( targets != null && !call.isFirstOf( targets ) )
+            {
+                skipped++;
+                continue;
+            }
+
+            try
+            {
+                invoke( target, call.method, call.args );
+            }
+            catch ( final ArchiverException e )
+            {
+                throw e;
+            }
+            catch ( final Throwable e )
+            {
+                throw new ArchiverException( "Error adding recorded entries: " + e.getMessage(), e );
+            }
+        }
+        calls.clear();
+        return skipped;
+    }
+
+    private static int mode( final int mode, final int type )
+    {
+        return mode < 0 ? -1 : ( mode & PERMISSIONS ) | type;
+    }
+
+    private static Object invoke( final Archiver archiver, final Method method, final Object[] args )
+        throws Throwable
+    {
+        try
+        {
+            return method.invoke( archiver, args );
+        }
+        catch ( final InvocationTargetException e )
+        {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Call
+    {
+
+        private final Method method;
+
+        private final Object[] args;
+
+        private final int overrideFileMode;
+
+        private final int overrideDirectoryMode;
+
+        Call( final Method method, final Object[] args, final int overrideFileMode, final int overrideDirectoryMode )
+        {
+            this.method = method;
+            this.args = args;
+            this.overrideFileMode = overrideFileMode;
+            this.overrideDirectoryMode = overrideDirectoryMode;
+        }
+
+        /**
+         * @return <code>false</code> if <code>targets</code> already has the entry of this call.
+         */
+        boolean isFirstOf( final ArtifactTargets targets )
+        {
+            final String name = method.getName();
+            if ( "addFile".equals( name ) )
+            {
+                final int mode = args.length > 2 ? (Integer) args[2] : overrideFileMode;
+                return targets.add( (File) args[0], (String) args[1], "file:" + mode );
+            }
+            else if ( "addFileSet".equals( name ) )
+            {
+                final FileSet fileSet = (FileSet) args[0];
+                return targets.add( fileSet.getDirectory(), fileSet.getPrefix(), "fileset:" + details( fileSet ) );
+            }
+            else if ( "addArchivedFileSet".equals( name ) && args[0] instanceof ArchivedFileSet )
+            {
+                final ArchivedFileSet fileSet = (ArchivedFileSet) args[0];
+                return targets.add( fileSet.getArchive(), fileSet.getPrefix(),
+                                    "archive:" + details( fileSet ) + ':' + ( args.length > 1 ? args[1] : null ) );
+            }
+            return true;
+        }
+
+        private String details( final BaseFileSet fileSet )
+        {
+            return overrideFileMode + ":" + overrideDirectoryMode + ':' + Arrays.toString( fileSet.getIncludes() ) + ':'
+                + Arrays.toString( fileSet.getExcludes() ) + ':' + fileSet.isUsingDefaultExcludes() + ':'
+                + fileSet.isCaseSensitive() + ':' + fileSet.isIncludingEmptyDirectories();
+        }
+
+    }
+
+}
@@ -83,7 +83,8 @@ public class RepositoryAssemblyPhase
             final String outputDirectory =
                 AssemblyFormatUtils.getOutputDirectory( repository.getOutputDirectory(), configSource.getFinalName(),
                                                         configSource, AssemblyFormatUtils.moduleProjectInterpolator(
-                        configSource.getProject() ), AssemblyFormatUtils.artifactProjectInterpolator( null ) );
+                        configSource.getProject(), configSource ),
+                                                        AssemblyFormatUtils.artifactProjectInterpolator( null ) );
 
             final File repositoryDirectory = new File( tempRoot, outputDirectory );
 
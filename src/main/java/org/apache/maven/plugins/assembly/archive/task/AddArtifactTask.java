@@ -38,6 +38,7 @@ import org.codehaus.plexus.util.StringUtils;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -76,6 +77,10 @@ public class AddArtifactTask
 
     private String outputFileNameMapping;
 
+    private UnpackedArtifactCache.SharedSelection sharedUnpack;
+
+    private ArtifactTargets targets;
+
     public AddArtifactTask( final Artifact artifact, final Logger logger, InputStreamTransformer transformer,
                             Charset encoding )
     {
@@ -100,8 +105,10 @@ public class AddArtifactTask
 
         String destDirectory =
             AssemblyFormatUtils.getOutputDirectory( outputDirectory, configSource.getFinalName(), configSource,
-                                                    AssemblyFormatUtils.moduleProjectInterpolator( moduleProject ),
-                                                    AssemblyFormatUtils.artifactProjectInterpolator( project ) );
+                                                    AssemblyFormatUtils.moduleProjectInterpolator(
+                                                        moduleProject, configSource ),
+                                                    AssemblyFormatUtils.artifactProjectInterpolator(
+                                                        project, configSource ) );
 
         boolean fileModeSet = false;
         boolean dirModeSet = false;
@@ -125,7 +132,7 @@ public class AddArtifactTask
 
             if ( unpack )
             {
-                unpacked( archiver, destDirectory );
+                unpacked( archiver, configSource, destDirectory );
             }
             else
             {
@@ -153,8 +160,10 @@ public class AddArtifactTask
         final String tempMapping =
             AssemblyFormatUtils.evaluateFileNameMapping( outputFileNameMapping, artifact, configSource.getProject(),
                                                          moduleArtifact, configSource,
-                                                         AssemblyFormatUtils.moduleProjectInterpolator( moduleProject ),
-                                                         AssemblyFormatUtils.artifactProjectInterpolator( project ) );
+                                                         AssemblyFormatUtils.moduleProjectInterpolator(
+                                                             moduleProject, configSource ),
+                                                         AssemblyFormatUtils.artifactProjectInterpolator(
+                                                             project, configSource ) );
 
         final String outputLocation = destDirectory + tempMapping;
 
@@ -162,6 +171,12 @@ public class AddArtifactTask
         {
             final File artifactFile = artifact.getFile();
 
+            if ( targets != null && !targets.add( artifactFile, outputLocation, "file:" + fileMode ) )
+            {
+                logger.debug( "Artifact: " + artifact.getId() + " was already added to: " + outputLocation + "." );
+                return;
+            }
+
             logger.debug(
                 "Adding artifact: " + artifact.getId() + " with file: " + artifactFile + " to assembly location: "
                     + outputLocation + "." );
@@ -182,7 +197,7 @@ public class AddArtifactTask
         }
     }
 
-    private void unpacked( Archiver archiver, String destDirectory )
+    private void unpacked( Archiver archiver, AssemblerConfigurationSource configSource, String destDirectory )
         throws ArchiveCreationException
     {
         String outputLocation = destDirectory;
@@ -208,6 +223,14 @@ public class AddArtifactTask
                 logger.warn(
                     "Skipping artifact: " + artifact.getId() + "; it does not have an associated file or directory." );
             }
+            else if ( targets != null && !targets.add( artifactFile, outputLocation,
+                                                       "unpack:" + fileMode + ':' + directoryMode + ':'
+                                                           + Arrays.toString( includesArray ) + ':'
+                                                           + Arrays.toString( excludesArray ) ) )
+            {
+                logger.debug( "Contents of artifact: " + artifact.getId() + " were already added to: "
+                                  + outputLocation + "." );
+            }
             else if ( artifactFile.isDirectory() )
             {
                 logger.debug( "Adding artifact directory contents for: " + artifact + " to: " + outputLocation );
@@ -226,12 +249,27 @@ public class AddArtifactTask
                 logger.debug(
                     "excludes:\n" + ( excludesArray == null ? "none" : StringUtils.join( excludesArray, "\n" ) )
                         + "\n" );
-                DefaultArchivedFileSet afs = DefaultArchivedFileSet.archivedFileSet( artifactFile );
-                afs.setIncludes( includesArray );
-                afs.setExcludes( excludesArray );
-                afs.setPrefix( outputLocation );
-                afs.setStreamTransformer( transformer );
-                archiver.addArchivedFileSet( afs, encoding );
+
+                final File contents = UnpackedArtifactCache.forConfigSource( configSource )
+                    .getContents( configSource, artifact, artifactFile, encoding, sharedUnpack, logger );
+                if ( contents != null )
+                {
+                    DefaultFileSet fs = DefaultFileSet.fileSet( contents );
+                    fs.setIncludes( includesArray );
+                    fs.setExcludes( excludesArray );
+                    fs.setPrefix( outputLocation );
+                    fs.setStreamTransformer( transformer );
+                    archiver.addFileSet( fs );
+                }
+                else
+                {
+                    DefaultArchivedFileSet afs = DefaultArchivedFileSet.archivedFileSet( artifactFile );
+                    afs.setIncludes( includesArray );
+                    afs.setExcludes( excludesArray );
+                    afs.setPrefix( outputLocation );
+                    afs.setStreamTransformer( transformer );
+                    archiver.addArchivedFileSet( afs, encoding );
+                }
             }
         }
         catch ( final ArchiverException e )
@@ -328,4 +366,14 @@ public class AddArtifactTask
         this.moduleArtifact = moduleArtifact;
     }
 
+    void setSharedUnpack( final UnpackedArtifactCache.SharedSelection sharedUnpack )
+    {
+        this.sharedUnpack = sharedUnpack;
+    }
+
+    void setTargets( final ArtifactTargets targets )
+    {
+        this.targets = targets;
+    }
+
 }
@@ -26,6 +26,8 @@ import org.apache.maven.model.Model;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
+import org.apache.maven.plugins.assembly.artifact.DependencyProjectBuilder;
+import org.apache.maven.plugins.assembly.artifact.ResolvedArtifacts;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
 import org.apache.maven.plugins.assembly.format.ReaderFormatter;
 import org.apache.maven.plugins.assembly.model.DependencySet;
@@ -81,6 +83,12 @@ public class AddDependencySetsTask
 
     private Artifact moduleArtifact;
 
+    private DependencyProjectBuilder dependencyProjectBuilder;
+
+    private final Map<File, UnpackedArtifactCache.SharedSelection> sharedUnpacks = new HashMap<>();
+
+    private ArtifactTargets artifactTargets;
+
 
     public AddDependencySetsTask( final List<DependencySet> dependencySets, final Set<Artifact> resolvedArtifacts,
                                   final MavenProject project, ProjectBuilder projectBuilder, final Logger logger )
@@ -107,15 +115,89 @@ public class AddDependencySetsTask
             logger.debug( "Project " + project.getId() + " has no dependencies. Skipping dependency set addition." );
         }
 
+        final List<Set<Artifact>> dependencyArtifacts = new ArrayList<>( dependencySets.size() );
         for ( final DependencySet dependencySet : dependencySets )
         {
-            addDependencySet( dependencySet, archiver, configSource );
+            dependencyArtifacts.add( resolveDependencyArtifacts( dependencySet ) );
+        }
+
+        shareRepeatedlyUnpackedArchives( dependencyArtifacts, configSource );
+
+        for ( int i = 0; i < dependencySets.size(); i++ )
+        {
+            addDependencySet( dependencySets.get( i ), dependencyArtifacts.get( i ), archiver, configSource );
+        }
+    }
+
+    /**
+     * Archives unpacked by several dependency sets, usually with different includes, are extracted once and every
+     * dependency set adds its part from the extracted files, instead of each one reading the whole archive. Only the
+     * entries selected by one of these dependency sets are extracted. Only done when the configuration enables it.
+     */
+    private void shareRepeatedlyUnpackedArchives( final List<Set<Artifact>> dependencyArtifacts,
+                                                  final AssemblerConfigurationSource configSource )
+    {
+        sharedUnpacks.clear();
+
+        final Map<File, UnpackedArtifactCache.SharedSelection> selections = new HashMap<>();
+        final Map<File, Integer> counts = new HashMap<>();
+        for ( int i = 0; i < dependencySets.size(); i++ )
+        {
+            final DependencySet dependencySet = dependencySets.get( i );
+            if ( !dependencySet.isUnpack() )
+            {
+                continue;
+            }
+
+            final UnpackOptions opts = dependencySet.getUnpackOptions();
+            String[] includes = opts != null ? TypeConversionUtils.toStringArray( opts.getIncludes() ) : null;
+            if ( includes == null )
+            {
+                includes = AddArtifactTask.DEFAULT_INCLUDES_ARRAY;
+            }
+            final String[] excludes = opts != null ? TypeConversionUtils.toStringArray( opts.getExcludes() ) : null;
+
+            for ( final Artifact depArtifact : dependencyArtifacts.get( i ) )
+            {
+                final File file = depArtifact.getFile();
+                if ( file == null || NON_ARCHIVE_DEPENDENCY_TYPES.contains( depArtifact.getType() ) )
+                {
+                    continue;
+                }
+
+                UnpackedArtifactCache.SharedSelection selection = selections.get( file.getAbsoluteFile() );
+                if ( selection == null )
+                {
+                    selection = new UnpackedArtifactCache.SharedSelection();
+                    selections.put( file.getAbsoluteFile(), selection );
+                }
+                selection.add( includes, excludes );
+
+                final Integer count = counts.get( file.getAbsoluteFile() );
+                counts.put( file.getAbsoluteFile(), count == null ? 1 : count + 1 );
+            }
+        }
+
+        for ( final Map.Entry<File, Integer> count : counts.entrySet() )
+        {
+            if ( count.getValue() > 1 && configSource.isShareUnpackedArchives() )
+            {
+                logger.debug( "Archive unpacked by several dependency sets: " + count.getKey() );
+                sharedUnpacks.put( count.getKey(), selections.get( count.getKey() ) );
+            }
         }
     }
 
     void addDependencySet( final DependencySet dependencySet, final Archiver archiver,
                            final AssemblerConfigurationSource configSource )
         throws AssemblyFormattingException, ArchiveCreationException, InvalidAssemblerConfigurationException
+    {
+        addDependencySet( dependencySet, resolveDependencyArtifacts( dependencySet ), archiver, configSource );
+    }
+
+    private void addDependencySet( final DependencySet dependencySet, final Set<Artifact> dependencyArtifacts,
+                                   final Archiver archiver, final AssemblerConfigurationSource configSource )
+        throws AssemblyFormattingException, ArchiveCreationException, InvalidAssemblerConfigurationException
     {
         logger.debug( "Processing DependencySet (output=" + dependencySet.getOutputDirectory() + ")" );
 
@@ -125,8 +207,6 @@ public class AddDependencySetsTask
                              + "AND useTransitiveFiltering == true. Transitive filtering flag will be ignored." );
         }
 
-        final Set<Artifact> dependencyArtifacts = resolveDependencyArtifacts( dependencySet );
-
         if ( !unpackTransformsContent( dependencySet ) && dependencyArtifacts.size() > 1 )
         {
             checkMultiArtifactOutputConfig( dependencySet );
@@ -140,25 +220,57 @@ public class AddDependencySetsTask
                                                           dependencySet.getUnpackOptions().getLineEnding() )
                 : null;
 
+        // the project of a dependency is only needed if the mappings refer to properties of its POM
+        final boolean projectRequired = isArtifactProjectRequired( dependencySet, false );
+        final boolean nonArchiveProjectRequired = isArtifactProjectRequired( dependencySet, true );
+
+        if ( dependencyProjectBuilder != null )
+        {
+            // build the required projects concurrently up front; the loop below consumes them in order
+            final List<Artifact> requiringProject = new ArrayList<>();
+            for ( final Artifact depArtifact : dependencyArtifacts )
+            {
+                if ( NON_ARCHIVE_DEPENDENCY_TYPES.contains( depArtifact.getType() )
+                    ? nonArchiveProjectRequired
+                    : projectRequired )
+                {
+                    requiringProject.add( depArtifact );
+                }
+            }
+
+            if ( requiringProject.size() > 1 )
+            {
+                dependencyProjectBuilder.prefetchProjects( requiringProject,
+                                                           getProjectBuildingRequest( configSource ) );
+            }
+        }
+
         for ( final Artifact depArtifact : dependencyArtifacts )
         {
-            ProjectBuildingRequest pbr = getProjectBuildingRequest( configSource );
+            final boolean nonArchive = NON_ARCHIVE_DEPENDENCY_TYPES.contains( depArtifact.getType() );
+
             MavenProject depProject;
-            try
+            if ( nonArchive ? nonArchiveProjectRequired : projectRequired )
             {
-                ProjectBuildingResult build = projectBuilder1.build( depArtifact, pbr );
-                depProject = build.getProject();
+                ProjectBuildingRequest pbr = getProjectBuildingRequest( configSource );
+                try
+                {
+                    depProject = buildProject( depArtifact, pbr );
+                }
+                catch ( final ProjectBuildingException e )
+                {
+                    logger.debug( "Error retrieving POM of module-dependency: " + depArtifact.getId() + "; Reason: "
+                                      + e.getMessage() + "\n\nBuilding stub project instance." );
+
+                    depProject = buildProjectStub( depArtifact );
+                }
             }
-            catch ( final ProjectBuildingException e )
+            else
             {
-                logger.debug(
-                    "Error retrieving POM of module-dependency: " + depArtifact.getId() + "; Reason: " + e.getMessage()
-                        + "\n\nBuilding stub project instance." );
-
                 depProject = buildProjectStub( depArtifact );
             }
 
-            if ( NON_ARCHIVE_DEPENDENCY_TYPES.contains( depArtifact.getType() ) )
+            if ( nonArchive )
             {
                 addNonArchiveDependency( depArtifact, depProject, dependencySet, archiver, configSource );
             }
@@ -170,6 +282,37 @@ public class AddDependencySetsTask
         }
     }
 
+    private boolean isArtifactProjectRequired( final DependencySet dependencySet, final boolean nonArchive )
+    {
+        if ( nonArchive )
+        {
+            // non-archive dependencies take the final name from the dependency project, and use no defaults
+            return AssemblyFormatUtils.isArtifactProjectRequired( dependencySet.getOutputDirectory(),
+                                                                  dependencySet.getOutputFileNameMapping(), true );
+        }
+
+        final String outputDirectory = dependencySet.getOutputDirectory() != null
+            ? dependencySet.getOutputDirectory()
+            : defaultOutputDirectory;
+        final String outputFileNameMapping = dependencySet.getOutputFileNameMapping() != null
+            ? dependencySet.getOutputFileNameMapping()
+            : defaultOutputFileNameMapping;
+
+        return AssemblyFormatUtils.isArtifactProjectRequired( outputDirectory, outputFileNameMapping, false );
+    }
+
+    private MavenProject buildProject( final Artifact depArtifact, final ProjectBuildingRequest pbr )
+        throws ProjectBuildingException
+    {
+        if ( dependencyProjectBuilder != null )
+        {
+            return dependencyProjectBuilder.buildProject( depArtifact, pbr );
+        }
+
+        ProjectBuildingResult build = projectBuilder1.build( depArtifact, pbr );
+        return build.getProject();
+    }
+
     private ProjectBuildingRequest getProjectBuildingRequest( AssemblerConfigurationSource configSource )
     {
         return configSource.getMavenSession().getProjectBuildingRequest();
@@ -244,6 +387,11 @@ public class AddDependencySetsTask
         }
 
         task.setUnpack( dependencySet.isUnpack() );
+        if ( dependencySet.isUnpack() && depArtifact.getFile() != null )
+        {
+            task.setSharedUnpack( sharedUnpacks.get( depArtifact.getFile().getAbsoluteFile() ) );
+        }
+        task.setTargets( artifactTargets );
 
         final UnpackOptions opts = dependencySet.getUnpackOptions();
         if ( isUnpackWithOptions( dependencySet ) )
@@ -275,6 +423,19 @@ public class AddDependencySetsTask
     Set<Artifact> resolveDependencyArtifacts( final DependencySet dependencySet )
         throws InvalidAssemblerConfigurationException
     {
+        // shared resolutions remember the filtered artifacts, so the other formats of the assembly can reuse them
+        final ResolvedArtifacts sharedResolution =
+            resolvedArtifacts instanceof ResolvedArtifacts ? (ResolvedArtifacts) resolvedArtifacts : null;
+        if ( sharedResolution != null )
+        {
+            final Set<Artifact> filtered = sharedResolution.getFilteredArtifacts( project, dependencySet );
+            if ( filtered != null )
+            {
+                logger.debug( "Reusing the filtered dependency artifacts of the dependency set." );
+                return filtered;
+            }
+        }
+
         final Set<Artifact> dependencyArtifacts = new LinkedHashSet<>();
         if ( resolvedArtifacts != null )
         {
@@ -333,6 +494,11 @@ public class AddDependencySetsTask
                                      dependencySet.isUseStrictFiltering(), dependencySet.isUseTransitiveFiltering(),
                                      logger, filter );
 
+        if ( sharedResolution != null )
+        {
+            return sharedResolution.setFilteredArtifacts( project, dependencySet, dependencyArtifacts );
+        }
+
         return dependencyArtifacts;
     }
 
@@ -346,9 +512,9 @@ public class AddDependencySetsTask
         String outputDirectory = dependencySet.getOutputDirectory();
 
         FixedStringSearchInterpolator moduleProjectInterpolator =
-            AssemblyFormatUtils.moduleProjectInterpolator( moduleProject );
+            AssemblyFormatUtils.moduleProjectInterpolator( moduleProject, configSource );
         FixedStringSearchInterpolator artifactProjectInterpolator =
-            AssemblyFormatUtils.artifactProjectInterpolator( depProject );
+            AssemblyFormatUtils.artifactProjectInterpolator( depProject, configSource );
         outputDirectory =
             AssemblyFormatUtils.getOutputDirectory( outputDirectory, depProject.getBuild().getFinalName(), configSource,
                                                     moduleProjectInterpolator, artifactProjectInterpolator );
@@ -370,6 +536,13 @@ public class AddDependencySetsTask
             target = outputDirectory + "/" + destName;
         }
 
+        if ( artifactTargets != null
+            && !artifactTargets.add( source, target, "file:" + dependencySet.getFileMode() ) )
+        {
+            logger.debug( "Dependency: " + depArtifact.getId() + " was already added to: " + target + "." );
+            return;
+        }
+
         try
         {
             final int mode = TypeConversionUtils.modeToInt( dependencySet.getFileMode(), logger );
@@ -417,4 +590,20 @@ public class AddDependencySetsTask
     {
         this.moduleArtifact = moduleArtifact;
     }
+
+    /**
+     * Shares the archive locations already added to with other tasks, skipping dependencies added there before.
+     *
+     * @param artifactTargets the locations added to by any of the tasks, or <code>null</code> not to skip anything.
+     * @since 3.1.1
+     */
+    public void setArtifactTargets( final ArtifactTargets artifactTargets )
+    {
+        this.artifactTargets = artifactTargets;
+    }
+
+    public void setDependencyProjectBuilder( final DependencyProjectBuilder dependencyProjectBuilder )
+    {
+        this.dependencyProjectBuilder = dependencyProjectBuilder;
+    }
 }
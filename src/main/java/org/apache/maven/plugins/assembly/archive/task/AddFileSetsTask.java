@@ -116,8 +116,10 @@ public class AddFileSetsTask
 
         destDirectory =
             AssemblyFormatUtils.getOutputDirectory( destDirectory, configSource.getFinalName(), configSource,
-                                                    AssemblyFormatUtils.moduleProjectInterpolator( moduleProject ),
-                                                    AssemblyFormatUtils.artifactProjectInterpolator( project ) );
+                                                    AssemblyFormatUtils.moduleProjectInterpolator(
+                                                        moduleProject, configSource ),
+                                                    AssemblyFormatUtils.artifactProjectInterpolator(
+                                                        project, configSource ) );
 
         if ( logger.isDebugEnabled() )
         {
@@ -0,0 +1,72 @@
+package org.apache.maven.plugins.assembly.archive.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records the archive locations dependencies were added to, so the dependency sets of the binaries of many module
+ * projects add a dependency shared by them only once per location instead of relying on the duplicate handling of the
+ * archiver.
+ *
+ * @since 3.1.1
+ */
+public final class ArtifactTargets
+{
+
+    private final Set<String> targets = new HashSet<>();
+
+    private int skipped;
+
+    /**
+     * @param source the file or directory added.
+     * @param target the archive location <code>source</code> is added to.
+     * @param details whatever else decides what ends up at <code>target</code>, like modes or unpack patterns.
+     * @return <code>true</code> if <code>source</code> was not added to <code>target</code> the same way before.
+     */
+    public boolean add( final File source, final String target, final String details )
+    {
+        final boolean added = targets.add( source.getAbsolutePath() + '\n' + target + '\n' + details );
+        if ( !added )
+        {
+            skipped++;
+        }
+        return added;
+    }
+
+    /**
+     * @return the number of distinct dependency locations.
+     */
+    public int getAddedCount()
+    {
+        return targets.size();
+    }
+
+    /**
+     * @return the number of additions skipped because they were already made.
+     */
+    public int getSkippedCount()
+    {
+        return skipped;
+    }
+
+}
@@ -0,0 +1,564 @@
+package org.apache.maven.plugins.assembly.archive.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.codehaus.plexus.archiver.ArchiverException;
+import org.codehaus.plexus.archiver.zip.ZipUnArchiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.components.io.fileselectors.FileSelector;
+import org.codehaus.plexus.components.io.fileselectors.IncludeExcludeFileSelector;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of the contents of unpacked zip based artifacts, so each archive is decompressed once.
+ * <p>
+ * Archives unpacked by several dependency sets of an execution are extracted once to the temporary directory of the
+ * assembly, and every dependency set adds its subset from the extracted files. Only the entries selected by at least
+ * one of these dependency sets are extracted: the entry names come from the central directory, so the other entries
+ * are never inflated.
+ * </p>
+ * <p>
+ * When an unpack cache directory is configured, every unpacked archive is extracted there instead, and the
+ * extraction is reused by later builds. An entry holds the complete extraction of one archive, keyed by the checksum
+ * of the archive and the encoding of its entry names, so dependency sets with different includes and excludes share
+ * it. SNAPSHOT artifacts are always checksummed; release artifacts use the <code>.sha1</code> file of the local
+ * repository when there is one. Every entry has a <code>.size</code> marker, written once the extraction is
+ * complete, whose modification time records the last use for the least recently used eviction. Entries used by the
+ * current execution are never evicted, as the archiver reads them when the assembly is created.
+ * </p>
+ * <p>
+ * Extracted files lose the unix modes of the entries on file systems without POSIX permissions, so such archives
+ * are added directly instead. Entries whose names differ only by case would overwrite each other on case insensitive
+ * file systems, so an archive holding them is added directly as well.
+ * </p>
+ *
+ * @since 3.1.1
+ */
+final class UnpackedArtifactCache
+{
+
+    private static final String SIZE_SUFFIX = ".size";
+
+    private static final String SHARED_DIRECTORY = "unpacked";
+
+    private static final Pattern SHA1 = Pattern.compile( "[0-9a-fA-F]{40}" );
+
+    private static final byte[] ZIP_SIGNATURE = { 'P', 'K', 3, 4 };
+
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" );
+
+    private static final Map<AssemblerConfigurationSource, UnpackedArtifactCache> CACHES = new WeakHashMap<>();
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final Set<String> usedKeys = new HashSet<>();
+
+    private final Map<String, File> sharedContents = new HashMap<>();
+
+    private UnpackedArtifactCache( final File directory, final long maxSize )
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param configSource the configuration source of the execution.
+     * @return the cache of the execution.
+     */
+    static UnpackedArtifactCache forConfigSource( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( CACHES )
+        {
+            UnpackedArtifactCache cache = CACHES.get( configSource );
+            if ( cache == null )
+            {
+                final File directory = configSource.getUnpackCacheDirectory();
+                final long maxSize = directory != null ? configSource.getUnpackCacheMaxSize() * 1024 * 1024 : 0;
+                cache = new UnpackedArtifactCache( directory, maxSize );
+                CACHES.put( configSource, cache );
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Returns the directory holding the extracted contents of <code>archive</code>, extracting it first when the
+     * cache has no entry for it.
+     *
+     * @param configSource the configuration source of the execution.
+     * @param artifact the artifact of the archive.
+     * @param archive the archive file.
+     * @param encoding the encoding of the entry names, may be <code>null</code>.
+     * @param shared the entries needed by all the dependency sets unpacking the archive, <code>null</code> when it
+     *            is unpacked only once.
+     * @param logger the logger.
+     * @return the extracted contents, or <code>null</code> when the archive is not cached.
+     */
+    synchronized File getContents( final AssemblerConfigurationSource configSource, final Artifact artifact,
+                                   final File archive, final Charset encoding, final SharedSelection shared,
+                                   final Logger logger )
+    {
+        if ( directory == null && shared == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            if ( !isZip( archive ) )
+            {
+                return null;
+            }
+
+            final String encodingName = encoding != null ? encoding.name() : "";
+            if ( directory == null )
+            {
+                final String key = toHex( sha1( archive.getAbsolutePath() + '\n' + archive.length() + '\n'
+                                                    + archive.lastModified() + '\n' + encodingName + '\n'
+                                                    + shared.getKey() ) );
+                File contents = sharedContents.get( key );
+                if ( contents == null )
+                {
+                    if ( !isExtractable( configSource, archive, encoding, shared, logger ) )
+                    {
+                        return null;
+                    }
+
+                    final File sharedDirectory =
+                        new File( configSource.getTemporaryRootDirectory(), SHARED_DIRECTORY );
+                    contents = new File( sharedDirectory, key );
+                    if ( contents.exists() )
+                    {
+                        // left by an earlier build, the temporary directory is not cleaned between builds
+                        FileUtils.deleteDirectory( contents );
+                    }
+                    logger.debug( "Extracting selected contents of: " + artifact.getId() + " once to: " + contents );
+                    extract( configSource, archive, encoding, shared, sharedDirectory, contents, logger );
+                    sharedContents.put( key, contents );
+                }
+                return contents;
+            }
+
+            final String key = toHex( sha1( checksum( artifact, archive ) + '\n' + encodingName ) );
+            final File contents = new File( directory, key );
+            final File sizeFile = new File( directory, key + SIZE_SUFFIX );
+
+            usedKeys.add( key );
+            if ( sizeFile.isFile() && contents.isDirectory() )
+            {
+                logger.debug( "Using cached contents of: " + artifact.getId() + " from: " + contents );
+                sizeFile.setLastModified( System.currentTimeMillis() );
+                return contents;
+            }
+
+            if ( !isExtractable( configSource, archive, encoding, null, logger ) )
+            {
+                return null;
+            }
+
+            logger.debug( "Caching contents of: " + artifact.getId() + " in: " + contents );
+            extract( configSource, archive, encoding, null, directory, contents, logger );
+
+            FileUtils.fileWrite( sizeFile, "UTF-8", Long.toString( sizeOf( contents ) ) );
+            evict( logger );
+            return contents;
+        }
+        catch ( final IOException | ArchiverException e )
+        {
+            logger.warn( "Cannot cache the contents of: " + artifact.getId() + ", unpacking it directly. Reason: "
+                             + e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     * @return <code>false</code> when the extracted files cannot keep the unix modes of the entries, or when entries
+     *         differ only by case.
+     */
+    private static boolean isExtractable( final AssemblerConfigurationSource configSource, final File archive,
+                                          final Charset encoding, final FileSelector selector, final Logger logger )
+        throws IOException
+    {
+        final boolean keepsModes = POSIX || configSource.isIgnorePermissions();
+        final Map<String, String> names = new HashMap<>();
+        try ( ZipFile zipFile = new ZipFile( archive, encoding != null ? encoding.name() : null, true ) )
+        {
+            for ( final Enumeration<ZipArchiveEntry> entries = zipFile.getEntries(); entries.hasMoreElements(); )
+            {
+                final ZipArchiveEntry entry = entries.nextElement();
+                if ( selector != null && !selector.isSelected( new EntryInfo( zipFile, entry ) ) )
+                {
+                    continue;
+                }
+
+                if ( !keepsModes && entry.getPlatform() == ZipArchiveEntry.PLATFORM_UNIX )
+                {
+                    logger.debug( "Not extracting: " + archive + ", the unix modes of its entries would be lost." );
+                    return false;
+                }
+
+                String name = entry.getName();
+                if ( name.endsWith( "/" ) )
+                {
+                    name = name.substring( 0, name.length() - 1 );
+                }
+                final String other = names.put( name.toLowerCase( Locale.ENGLISH ), name );
+                if ( other != null && !other.equals( name ) )
+                {
+                    logger.debug( "Not extracting: " + archive + ", its entries: " + other + " and: " + name
+                                      + " differ only by case and would overwrite each other." );
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void extract( final AssemblerConfigurationSource configSource, final File archive,
+                                 final Charset encoding, final FileSelector selector, final File parent,
+                                 final File contents, final Logger logger )
+        throws IOException
+    {
+        if ( !parent.isDirectory() && !parent.mkdirs() )
+        {
+            throw new IOException( "Cannot create directory: " + parent );
+        }
+
+        final File temp = Files.createTempDirectory( parent.toPath(), contents.getName() + ".tmp" ).toFile();
+        try
+        {
+            final ZipUnArchiver unArchiver = new ZipUnArchiver( archive );
+            unArchiver.enableLogging( logger );
+            unArchiver.setDestDirectory( temp );
+            unArchiver.setEncoding( encoding != null ? encoding.name() : null );
+            unArchiver.setUseJvmChmod( configSource.isUseJvmChmod() );
+            unArchiver.setIgnorePermissions( configSource.isIgnorePermissions() );
+            if ( selector != null )
+            {
+                unArchiver.setFileSelectors( new FileSelector[] { selector } );
+            }
+            unArchiver.extract();
+
+            // another build may have completed the entry in the meantime
+            if ( !temp.renameTo( contents ) && !contents.isDirectory() )
+            {
+                throw new IOException( "Cannot move: " + temp + " to: " + contents );
+            }
+        }
+        finally
+        {
+            if ( temp.exists() )
+            {
+                FileUtils.deleteDirectory( temp );
+            }
+        }
+    }
+
+    private void evict( final Logger logger )
+        throws IOException
+    {
+        final File[] sizeFiles = directory.listFiles();
+        if ( sizeFiles == null )
+        {
+            return;
+        }
+
+        final List<File> entries = new ArrayList<>();
+        long total = 0;
+        for ( final File sizeFile : sizeFiles )
+        {
+            if ( sizeFile.getName().endsWith( SIZE_SUFFIX ) )
+            {
+                entries.add( sizeFile );
+                total += readSize( sizeFile );
+            }
+        }
+
+        Collections.sort( entries, new Comparator<File>()
+        {
+            @Override
+            public int compare( final File first, final File second )
+            {
+                return Long.compare( first.lastModified(), second.lastModified() );
+            }
+        } );
+
+        for ( final File sizeFile : entries )
+        {
+            if ( total <= maxSize )
+            {
+                break;
+            }
+
+            final String name = sizeFile.getName();
+            final String key = name.substring( 0, name.length() - SIZE_SUFFIX.length() );
+            if ( !usedKeys.contains( key ) )
+            {
+                logger.debug( "Evicting unpack cache entry: " + key );
+                total -= readSize( sizeFile );
+                // the marker goes first, so a partially deleted entry is never used
+                if ( sizeFile.delete() )
+                {
+                    FileUtils.deleteDirectory( new File( directory, key ) );
+                }
+            }
+        }
+    }
+
+    private static String checksum( final Artifact artifact, final File archive )
+        throws IOException
+    {
+        if ( !artifact.isSnapshot() )
+        {
+            final File sha1File = new File( archive.getPath() + ".sha1" );
+            if ( sha1File.isFile() )
+            {
+                final String content = FileUtils.fileRead( sha1File, "UTF-8" ).trim();
+                final int end = content.indexOf( ' ' );
+                final String sha1 = end < 0 ? content : content.substring( 0, end );
+                if ( SHA1.matcher( sha1 ).matches() )
+                {
+                    return sha1.toLowerCase();
+                }
+            }
+        }
+
+        final MessageDigest digest = newSha1();
+        final byte[] buffer = new byte[8192];
+        try ( InputStream in = new FileInputStream( archive ) )
+        {
+            int count;
+            while ( ( count = in.read( buffer ) ) >= 0 )
+            {
+                digest.update( buffer, 0, count );
+            }
+        }
+        return toHex( digest.digest() );
+    }
+
+    private static byte[] sha1( final String value )
+        throws IOException
+    {
+        return newSha1().digest( value.getBytes( "UTF-8" ) );
+    }
+
+    private static MessageDigest newSha1()
+        throws IOException
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new IOException( "SHA-1 is not supported", e );
+        }
+    }
+
+    private static String toHex( final byte[] bytes )
+    {
+        final StringBuilder hex = new StringBuilder( bytes.length * 2 );
+        for ( final byte b : bytes )
+        {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return hex.toString();
+    }
+
+    private static boolean isZip( final File archive )
+        throws IOException
+    {
+        final byte[] signature = new byte[ZIP_SIGNATURE.length];
+        try ( InputStream in = new FileInputStream( archive ) )
+        {
+            int read = 0;
+            while ( read < signature.length )
+            {
+                final int count = in.read( signature, read, signature.length - read );
+                if ( count < 0 )
+                {
+                    return false;
+                }
+                read += count;
+            }
+        }
+        return Arrays.equals( signature, ZIP_SIGNATURE );
+    }
+
+    private static long readSize( final File sizeFile )
+    {
+        try
+        {
+            return Long.parseLong( FileUtils.fileRead( sizeFile, "UTF-8" ).trim() );
+        }
+        catch ( final IOException | NumberFormatException e )
+        {
+            return 0;
+        }
+    }
+
+    private static long sizeOf( final File file )
+    {
+        if ( Files.isSymbolicLink( file.toPath() ) )
+        {
+            return 0;
+        }
+        if ( file.isDirectory() )
+        {
+            long size = 0;
+            final File[] children = file.listFiles();
+            if ( children != null )
+            {
+                for ( final File child : children )
+                {
+                    size += sizeOf( child );
+                }
+            }
+            return size;
+        }
+        return file.length();
+    }
+
+    /**
+     * A zip entry, as seen by the file selectors of the unarchiver.
+     */
+    private static final class EntryInfo
+        implements FileInfo
+    {
+
+        private final ZipFile zipFile;
+
+        private final ZipArchiveEntry entry;
+
+        EntryInfo( final ZipFile zipFile, final ZipArchiveEntry entry )
+        {
+            this.zipFile = zipFile;
+            this.entry = entry;
+        }
+
+        @Override
+        public String getName()
+        {
+            return entry.getName();
+        }
+
+        @Override
+        public InputStream getContents()
+            throws IOException
+        {
+            return zipFile.getInputStream( entry );
+        }
+
+        @Override
+        public boolean isFile()
+        {
+            return !entry.isDirectory() && !entry.isUnixSymlink();
+        }
+
+        @Override
+        public boolean isDirectory()
+        {
+            return entry.isDirectory();
+        }
+
+        @Override
+        public boolean isSymbolicLink()
+        {
+            return entry.isUnixSymlink();
+        }
+
+    }
+
+    /**
+     * The entries of an archive needed by the dependency sets unpacking it: an entry is selected when the includes and
+     * excludes of at least one of them select it.
+     */
+    static final class SharedSelection
+        implements FileSelector
+    {
+
+        private final List<IncludeExcludeFileSelector> selectors = new ArrayList<>();
+
+        private final StringBuilder key = new StringBuilder();
+
+        void add( final String[] includes, final String[] excludes )
+        {
+            final IncludeExcludeFileSelector selector = new IncludeExcludeFileSelector();
+            selector.setIncludes( includes );
+            selector.setExcludes( excludes );
+            // never stricter than the file set of any dependency set, which filters again anyway
+            selector.setUseDefaultExcludes( false );
+            selectors.add( selector );
+
+            key.append( Arrays.toString( includes ) ).append( Arrays.toString( excludes ) ).append( '\n' );
+        }
+
+        String getKey()
+        {
+            return key.toString();
+        }
+
+        @Override
+        public boolean isSelected( final FileInfo fileInfo )
+            throws IOException
+        {
+            for ( final IncludeExcludeFileSelector selector : selectors )
+            {
+                if ( selector.isSelected( fileInfo ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,359 @@
+package org.apache.maven.plugins.assembly.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.logging.AbstractLogEnabled;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Caches the built projects, and the failures to build them, in a bounded LRU map. The cache is cleared whenever a
+ * request of another repository session comes in, so it never outlives a build session. Prefetching builds the
+ * projects on a bounded pool of daemon threads.
+ *
+ * @since 3.1.1
+ */
+@Component( role = DependencyProjectBuilder.class )
+public class DefaultDependencyProjectBuilder
+    extends AbstractLogEnabled
+    implements DependencyProjectBuilder
+{
+
+    /**
+     * The maximum number of projects kept in the cache.
+     */
+    static final int MAX_CACHED_PROJECTS = 1024;
+
+    /**
+     * The maximum number of threads building projects concurrently.
+     */
+    static final int MAX_PREFETCH_THREADS = 8;
+
+    @Requirement
+    private ProjectBuilder projectBuilder;
+
+    private final Map<ProjectKey, CachedProject> cache = new LinkedHashMap<ProjectKey, CachedProject>( 64, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<ProjectKey, CachedProject> eldest )
+        {
+            return size() > MAX_CACHED_PROJECTS;
+        }
+    };
+
+    private WeakReference<Object> cachedSession = new WeakReference<>( null );
+
+    /**
+     * Default constructor.
+     */
+    public DefaultDependencyProjectBuilder()
+    {
+        // used for plexus init
+    }
+
+    /**
+     * @param projectBuilder The Maven Project Builder.
+     */
+    public DefaultDependencyProjectBuilder( final ProjectBuilder projectBuilder )
+    {
+        this.projectBuilder = projectBuilder;
+    }
+
+    @Override
+    public MavenProject buildProject( final Artifact artifact, final ProjectBuildingRequest request )
+        throws ProjectBuildingException
+    {
+        final ProjectKey key = new ProjectKey( artifact, request );
+
+        CachedProject cached;
+        synchronized ( cache )
+        {
+            checkSession( request );
+
+            cached = cache.get( key );
+        }
+
+        if ( cached == null )
+        {
+            cached = build( key, artifact, request );
+        }
+        else if ( getLogger() != null && getLogger().isDebugEnabled() )
+        {
+            getLogger().debug( "Using cached project of: " + artifact.getId() );
+        }
+
+        return cached.getProject();
+    }
+
+    @Override
+    public void prefetchProjects( final Collection<Artifact> artifacts, final ProjectBuildingRequest request )
+    {
+        final Map<ProjectKey, Artifact> missing = new LinkedHashMap<>();
+        synchronized ( cache )
+        {
+            checkSession( request );
+
+            for ( final Artifact artifact : artifacts )
+            {
+                final ProjectKey key = new ProjectKey( artifact, request );
+                if ( !cache.containsKey( key ) && !missing.containsKey( key )
+                    && missing.size() < MAX_CACHED_PROJECTS )
+                {
+                    missing.put( key, artifact );
+                }
+            }
+        }
+
+        if ( missing.size() < 2 )
+        {
+            // nothing to gain over building on demand.
+            return;
+        }
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int threads = Math.min( missing.size(), Math.min( MAX_PREFETCH_THREADS, processors * 2 ) );
+
+        if ( getLogger() != null && getLogger().isDebugEnabled() )
+        {
+            getLogger().debug(
+                "Prefetching " + missing.size() + " dependency projects using " + threads + " threads." );
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool( threads, new PrefetchThreadFactory() );
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<>();
+            for ( final Map.Entry<ProjectKey, Artifact> entry : missing.entrySet() )
+            {
+                futures.add( executor.submit( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        // the request is not shared with other threads, as the project builder may modify it.
+                        build( entry.getKey(), entry.getValue(), new DefaultProjectBuildingRequest( request ) );
+                    }
+                } ) );
+            }
+
+            for ( final Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( final ExecutionException e )
+        {
+            // the project is built again when it is requested, which reports the problem.
+            if ( getLogger() != null )
+            {
+                getLogger().debug( "Error prefetching dependency project: " + e.getCause(), e.getCause() );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private CachedProject build( final ProjectKey key, final Artifact artifact, final ProjectBuildingRequest request )
+    {
+        CachedProject cached;
+        try
+        {
+            cached = new CachedProject( projectBuilder.build( artifact, request ).getProject(), null );
+        }
+        catch ( final ProjectBuildingException e )
+        {
+            cached = new CachedProject( null, e );
+        }
+
+        synchronized ( cache )
+        {
+            cache.put( key, cached );
+        }
+
+        return cached;
+    }
+
+    /**
+     * Must be called while holding the lock of the cache.
+     */
+    private void checkSession( final ProjectBuildingRequest request )
+    {
+        final Object session = request.getRepositorySession();
+        if ( cachedSession.get() != session )
+        {
+            cache.clear();
+            cachedSession = new WeakReference<>( session );
+        }
+    }
+
+    int getCacheSize()
+    {
+        synchronized ( cache )
+        {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Creates daemon threads running with the context class loader of the thread requesting the prefetch.
+     */
+    private static final class PrefetchThreadFactory
+        implements ThreadFactory
+    {
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        private int count;
+
+        @Override
+        public synchronized Thread newThread( final Runnable runnable )
+        {
+            final Thread thread = new Thread( runnable, "assembly-project-prefetch-" + ( ++count ) );
+            thread.setDaemon( true );
+            thread.setContextClassLoader( contextClassLoader );
+            return thread;
+        }
+    }
+
+    private static final class CachedProject
+    {
+        private final MavenProject project;
+
+        private final ProjectBuildingException failure;
+
+        CachedProject( final MavenProject project, final ProjectBuildingException failure )
+        {
+            this.project = project;
+            this.failure = failure;
+        }
+
+        MavenProject getProject()
+            throws ProjectBuildingException
+        {
+            if ( failure != null )
+            {
+                throw failure;
+            }
+
+            return project;
+        }
+    }
+
+    /**
+     * The coordinates of the project, plus everything in the request that affects how the project is built.
+     */
+    private static final class ProjectKey
+    {
+        private final List<Object> values;
+
+        private final int hashCode;
+
+        ProjectKey( final Artifact artifact, final ProjectBuildingRequest request )
+        {
+            values = new ArrayList<>();
+            values.addAll( Arrays.asList( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() ) );
+
+            final ArtifactRepository localRepository = request.getLocalRepository();
+            values.add( localRepository != null ? localRepository.getBasedir() : null );
+
+            final List<String> repositories = new ArrayList<>();
+            if ( request.getRemoteRepositories() != null )
+            {
+                for ( final ArtifactRepository repository : request.getRemoteRepositories() )
+                {
+                    repositories.add( repository.getId() + "=" + repository.getUrl() );
+                }
+            }
+            values.add( repositories );
+
+            values.add( copy( request.getActiveProfileIds() ) );
+            values.add( copy( request.getInactiveProfileIds() ) );
+            values.add( copy( request.getSystemProperties() ) );
+            values.add( copy( request.getUserProperties() ) );
+            values.add( request.getValidationLevel() );
+            values.add( request.isProcessPlugins() );
+            values.add( request.isResolveDependencies() );
+            values.add( String.valueOf( request.getRepositoryMerging() ) );
+
+            hashCode = values.hashCode();
+        }
+
+        private static Object copy( final List<String> list )
+        {
+            return list != null ? new ArrayList<>( list ) : null;
+        }
+
+        private static Object copy( final Properties properties )
+        {
+            return properties != null ? new LinkedHashMap<>( properties ) : null;
+        }
+
+        @Override
+        public boolean equals( final Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() )
+            {
+                return false;
+            }
+
+            final ProjectKey that = (ProjectKey) o;
+            return hashCode == that.hashCode && values.equals( that.values );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
+}
@@ -34,12 +34,18 @@ import org.codehaus.plexus.component.annotations.Requirement;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.util.StringUtils;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
+ * Resolves the artifacts of dependency sets. Within a mojo execution, identified by its configuration source, each
+ * dependency set of an assembly and module set is resolved only once and the result is shared by all formats.
+ *
  * @author jdcasey
  * @version $Id$
  */
@@ -50,7 +56,10 @@ public class DefaultDependencyResolver
 {
     @Requirement
     private RepositorySystem resolver;
-    
+
+    private final Map<AssemblerConfigurationSource, Map<ResolutionKey, ResolvedArtifacts>> resolutions =
+        new WeakHashMap<>();
+
     @Override
     public Map<DependencySet, Set<Artifact>> resolveDependencySets( final Assembly assembly, ModuleSet moduleSet,
                                                                     final AssemblerConfigurationSource configSource,
@@ -61,17 +70,23 @@ public class DefaultDependencyResolver
 
         for ( DependencySet dependencySet : dependencySets )
         {
+            final ResolutionKey key = new ResolutionKey( assembly, moduleSet, dependencySet );
+            ResolvedArtifacts artifacts = getResolution( configSource, key );
+            if ( artifacts == null )
+            {
+                final MavenProject currentProject = configSource.getProject();
 
-            final MavenProject currentProject = configSource.getProject();
+                final ResolutionManagementInfo info = new ResolutionManagementInfo();
+                updateDependencySetResolutionRequirements( dependencySet, info, currentProject );
+                updateModuleSetResolutionRequirements( moduleSet, dependencySet, info, configSource );
 
-            final ResolutionManagementInfo info = new ResolutionManagementInfo();
-            updateDependencySetResolutionRequirements( dependencySet, info, currentProject );
-            updateModuleSetResolutionRequirements( moduleSet, dependencySet, info, configSource );
+                artifacts = putResolution( configSource, key, info.getArtifacts() );
+            }
 
-            result.put( dependencySet, info.getArtifacts() );
+            result.put( dependencySet, artifacts );
 
         }
-        return result;
+        return Collections.unmodifiableMap( result );
     }
 
     @Override
@@ -84,15 +99,48 @@ public class DefaultDependencyResolver
 
         for ( DependencySet dependencySet : dependencySets )
         {
+            final ResolutionKey key = new ResolutionKey( assembly, null, dependencySet );
+            ResolvedArtifacts artifacts = getResolution( configSource, key );
+            if ( artifacts == null )
+            {
+                final MavenProject currentProject = configSource.getProject();
 
-            final MavenProject currentProject = configSource.getProject();
+                final ResolutionManagementInfo info = new ResolutionManagementInfo();
+                updateDependencySetResolutionRequirements( dependencySet, info, currentProject );
 
-            final ResolutionManagementInfo info = new ResolutionManagementInfo();
-            updateDependencySetResolutionRequirements( dependencySet, info, currentProject );
+                artifacts = putResolution( configSource, key, info.getArtifacts() );
+            }
 
-            result.put( dependencySet, info.getArtifacts() );
+            result.put( dependencySet, artifacts );
 
         }
+        return Collections.unmodifiableMap( result );
+    }
+
+    private ResolvedArtifacts getResolution( final AssemblerConfigurationSource configSource,
+                                             final ResolutionKey key )
+    {
+        synchronized ( resolutions )
+        {
+            final Map<ResolutionKey, ResolvedArtifacts> resolved = resolutions.get( configSource );
+            return resolved != null ? resolved.get( key ) : null;
+        }
+    }
+
+    private ResolvedArtifacts putResolution( final AssemblerConfigurationSource configSource,
+                                             final ResolutionKey key, final Set<Artifact> artifacts )
+    {
+        final ResolvedArtifacts result = new ResolvedArtifacts( artifacts );
+        synchronized ( resolutions )
+        {
+            Map<ResolutionKey, ResolvedArtifacts> resolved = resolutions.get( configSource );
+            if ( resolved == null )
+            {
+                resolved = new HashMap<>();
+                resolutions.put( configSource, resolved );
+            }
+            resolved.put( key, result );
+        }
         return result;
     }
 
@@ -162,4 +210,44 @@ public class DefaultDependencyResolver
         }
     }
 
+    /**
+     * Identifies the assembly, module set and dependency set of a resolution by identity.
+     */
+    private static final class ResolutionKey
+    {
+        private final Assembly assembly;
+
+        private final ModuleSet moduleSet;
+
+        private final DependencySet dependencySet;
+
+        ResolutionKey( final Assembly assembly, final ModuleSet moduleSet, final DependencySet dependencySet )
+        {
+            this.assembly = assembly;
+            this.moduleSet = moduleSet;
+            this.dependencySet = dependencySet;
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( !( obj instanceof ResolutionKey ) )
+            {
+                return false;
+            }
+
+            final ResolutionKey other = (ResolutionKey) obj;
+            return assembly == other.assembly && moduleSet == other.moduleSet
+                && dependencySet == other.dependencySet;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = System.identityHashCode( assembly );
+            result = 31 * result + System.identityHashCode( moduleSet );
+            return 31 * result + System.identityHashCode( dependencySet );
+        }
+    }
+
 }
@@ -0,0 +1,56 @@
+package org.apache.maven.plugins.assembly.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+
+import java.util.Collection;
+
+/**
+ * Builds the projects of dependency artifacts, caching them for the whole build session so that every dependency set,
+ * module, assembly and format needing the project of the same artifact shares a single instance.
+ *
+ * @since 3.1.1
+ */
+public interface DependencyProjectBuilder
+{
+
+    /**
+     * @param artifact The dependency artifact.
+     * @param request The project building request.
+     * @return The project of the artifact.
+     * @throws ProjectBuildingException in case the project cannot be built.
+     */
+    MavenProject buildProject( Artifact artifact, ProjectBuildingRequest request )
+        throws ProjectBuildingException;
+
+    /**
+     * Builds the projects of the given artifacts concurrently, so subsequent calls to
+     * {@link #buildProject(Artifact, ProjectBuildingRequest)} for these artifacts are served from the cache.
+     *
+     * @param artifacts The dependency artifacts.
+     * @param request The project building request.
+     */
+    void prefetchProjects( Collection<Artifact> artifacts, ProjectBuildingRequest request );
+
+}
@@ -0,0 +1,143 @@
+package org.apache.maven.plugins.assembly.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugins.assembly.model.DependencySet;
+import org.apache.maven.project.MavenProject;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of the artifacts resolved for a dependency set, which can be shared by all the formats of an
+ * assembly. It also remembers the artifacts remaining after the dependency set filters have been applied for a
+ * project, so filtering happens only once as well.
+ *
+ * @since 3.1.1
+ */
+public final class ResolvedArtifacts
+    extends AbstractSet<Artifact>
+{
+    private final Set<Artifact> artifacts;
+
+    private final Map<FilterKey, Set<Artifact>> filteredArtifacts = new HashMap<>();
+
+    ResolvedArtifacts( final Set<Artifact> artifacts )
+    {
+        this.artifacts = Collections.unmodifiableSet( new LinkedHashSet<>( artifacts ) );
+    }
+
+    @Override
+    public Iterator<Artifact> iterator()
+    {
+        return artifacts.iterator();
+    }
+
+    @Override
+    public int size()
+    {
+        return artifacts.size();
+    }
+
+    @Override
+    public boolean contains( final Object o )
+    {
+        return artifacts.contains( o );
+    }
+
+    /**
+     * @param project The project the dependency set is added for.
+     * @param dependencySet The dependency set.
+     * @return The filtered artifacts, or <code>null</code> if these artifacts have not been filtered for the
+     *         given project and dependency set yet.
+     */
+    public synchronized Set<Artifact> getFilteredArtifacts( final MavenProject project,
+                                                           final DependencySet dependencySet )
+    {
+        return filteredArtifacts.get( new FilterKey( project, dependencySet ) );
+    }
+
+    /**
+     * @param project The project the dependency set is added for.
+     * @param dependencySet The dependency set.
+     * @param filtered The artifacts remaining after filtering.
+     * @return An immutable copy of the filtered artifacts.
+     */
+    public synchronized Set<Artifact> setFilteredArtifacts( final MavenProject project,
+                                                           final DependencySet dependencySet,
+                                                           final Set<Artifact> filtered )
+    {
+        final Set<Artifact> result = Collections.unmodifiableSet( new LinkedHashSet<>( filtered ) );
+        filteredArtifacts.put( new FilterKey( project, dependencySet ), result );
+        return result;
+    }
+
+    /**
+     * Identifies the project and dependency set by identity. The flags adding the project artifacts are part of the
+     * key, since the module set phase switches them off after resolution.
+     */
+    private static final class FilterKey
+    {
+        private final MavenProject project;
+
+        private final DependencySet dependencySet;
+
+        private final boolean useProjectArtifact;
+
+        private final boolean useProjectAttachments;
+
+        FilterKey( final MavenProject project, final DependencySet dependencySet )
+        {
+            this.project = project;
+            this.dependencySet = dependencySet;
+            this.useProjectArtifact = dependencySet.isUseProjectArtifact();
+            this.useProjectAttachments = dependencySet.isUseProjectAttachments();
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( !( obj instanceof FilterKey ) )
+            {
+                return false;
+            }
+
+            final FilterKey other = (FilterKey) obj;
+            return project == other.project && dependencySet == other.dependencySet
+                && useProjectArtifact == other.useProjectArtifact
+                && useProjectAttachments == other.useProjectAttachments;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = System.identityHashCode( project );
+            result = 31 * result + System.identityHashCode( dependencySet );
+            result = 31 * result + ( useProjectArtifact ? 1 : 0 );
+            return 31 * result + ( useProjectAttachments ? 1 : 0 );
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.codehaus.plexus.util.IOUtil;
 
 import javax.annotation.Nonnull;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -46,6 +47,8 @@ abstract class AbstractLineAggregatingHandler
 
     private Map<String, List<String>> catalog = new HashMap<>();
 
+    private final MergedContentRegistry mergedContents = new MergedContentRegistry();
+
     private boolean excludeOverride = false;
 
     protected abstract String getOutputPathPrefix( final FileInfo fileInfo );
@@ -146,7 +149,11 @@ abstract class AbstractLineAggregatingHandler
                 catalog.put( name, lines );
             }
 
-            readLines( fileInfo, lines );
+            final byte[] content = mergedContents.readIfNotMerged( name, fileInfo );
+            if ( content != null )
+            {
+                readLines( content, lines );
+            }
 
             return false;
         }
@@ -154,13 +161,14 @@ abstract class AbstractLineAggregatingHandler
         return true;
     }
 
-    void readLines( final FileInfo fileInfo, final List<String> lines )
+    void readLines( final byte[] content, final List<String> lines )
         throws IOException
     {
         BufferedReader reader = null;
         try
         {
-            reader = new BufferedReader( new InputStreamReader( fileInfo.getContents(), getEncoding() ) );
+            reader =
+                new BufferedReader( new InputStreamReader( new ByteArrayInputStream( content ), getEncoding() ) );
 
             for ( String line = reader.readLine(); line != null; line = reader.readLine() )
             {
@@ -0,0 +1,305 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.UnArchiver;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.util.IOUtil;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Relocates packages while the entries stream into the archive, so a fat jar with relocated dependencies does not need
+ * a second repackaging pass. Class files are moved to the relocated package and the class references in their
+ * constant pool are rewritten, <code>META-INF/services</code> entries are renamed and their contents relocated.
+ *
+ * @since 3.1.1
+ */
+@Component( role = ContainerDescriptorHandler.class, hint = "relocation", instantiationStrategy = "per-lookup" )
+public class ClassRelocationHandler
+    implements TransformingContainerDescriptorHandler
+{
+
+    private static final String SERVICES_PATH_PREFIX = "META-INF/services/";
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+    // component configuration.
+
+    private List<Relocation> relocations;
+
+    @Override
+    public String transformPath( final String path )
+    {
+        if ( relocations == null )
+        {
+            return path;
+        }
+
+        final String root = getRoot( path );
+        final String name = path.substring( root.length() );
+
+        if ( name.endsWith( "/" ) )
+        {
+            // directory entries, so no empty package directories are left behind
+            for ( final Relocation relocation : relocations )
+            {
+                final String relocated = relocation.relocatePath( name );
+                if ( relocated != null )
+                {
+                    return root + relocated;
+                }
+            }
+        }
+        else if ( name.endsWith( CLASS_SUFFIX ) )
+        {
+            final String internalName = name.substring( 0, name.length() - CLASS_SUFFIX.length() );
+            for ( final Relocation relocation : relocations )
+            {
+                final String relocated = relocation.relocatePath( internalName );
+                if ( relocated != null )
+                {
+                    return root + relocated + CLASS_SUFFIX;
+                }
+            }
+        }
+        else if ( name.startsWith( SERVICES_PATH_PREFIX ) && name.length() > SERVICES_PATH_PREFIX.length() )
+        {
+            final String service = relocateClassName( name.substring( SERVICES_PATH_PREFIX.length() ) );
+            return root + SERVICES_PATH_PREFIX + service;
+        }
+
+        return path;
+    }
+
+    @Override
+    public InputStream transformContents( final String path, final InputStream contents )
+        throws IOException
+    {
+        if ( relocations == null )
+        {
+            return contents;
+        }
+
+        final String name = path.substring( getRoot( path ).length() );
+
+        if ( name.endsWith( CLASS_SUFFIX ) )
+        {
+            return new ByteArrayInputStream( relocateClass( IOUtil.toByteArray( contents ) ) );
+        }
+        else if ( name.startsWith( SERVICES_PATH_PREFIX ) && name.length() > SERVICES_PATH_PREFIX.length() )
+        {
+            return new ByteArrayInputStream( relocateServices( contents ) );
+        }
+
+        return contents;
+    }
+
+    /**
+     * @return The leading <code>/</code> or <code>./</code> of an archive path, which the relocated paths keep.
+     */
+    private static String getRoot( final String path )
+    {
+        if ( path.startsWith( "/" ) )
+        {
+            return "/";
+        }
+
+        return path.startsWith( "./" ) ? "./" : "";
+    }
+
+    /**
+     * Rewrites the UTF-8 entries of the constant pool of a class file, every class reference in the class ends up in
+     * one of those. All other structures of the class file are copied verbatim, as nothing refers to the byte offsets
+     * of constant pool entries.
+     *
+     * @param classFile The class file.
+     * @return The relocated class file, or the given bytes if it is not a class file.
+     * @throws IOException in case the class file is corrupt.
+     */
+    byte[] relocateClass( final byte[] classFile )
+        throws IOException
+    {
+        final DataInputStream in = new DataInputStream( new ByteArrayInputStream( classFile ) );
+        if ( classFile.length < 10 || in.readInt() != CLASS_MAGIC )
+        {
+            return classFile;
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream( classFile.length + 256 );
+        final DataOutputStream out = new DataOutputStream( buffer );
+
+        out.writeInt( CLASS_MAGIC );
+        out.writeInt( in.readInt() ); // minor and major version
+
+        final int constantPoolCount = in.readUnsignedShort();
+        out.writeShort( constantPoolCount );
+
+        for ( int i = 1; i < constantPoolCount; i++ )
+        {
+            final int tag = in.readUnsignedByte();
+            out.writeByte( tag );
+
+            switch ( tag )
+            {
+                case 1: // Utf8
+                    out.writeUTF( relocateConstant( in.readUTF() ) );
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    out.writeShort( in.readUnsignedShort() );
+                    break;
+                case 15: // MethodHandle
+                    out.writeByte( in.readUnsignedByte() );
+                    out.writeShort( in.readUnsignedShort() );
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    out.writeInt( in.readInt() );
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    out.writeLong( in.readLong() );
+                    i++; // takes two constant pool slots
+                    break;
+                default:
+                    throw new IOException( "Unknown constant pool tag " + tag + " in class file." );
+            }
+        }
+
+        IOUtil.copy( in, out );
+        out.close();
+
+        return buffer.toByteArray();
+    }
+
+    private byte[] relocateServices( final InputStream contents )
+        throws IOException
+    {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        final BufferedReader reader = new BufferedReader( new InputStreamReader( contents, StandardCharsets.UTF_8 ) );
+        final Writer writer = new OutputStreamWriter( buffer, StandardCharsets.UTF_8 );
+        for ( String line = reader.readLine(); line != null; line = reader.readLine() )
+        {
+            final String className = line.trim();
+            if ( className.length() > 0 && !className.startsWith( "#" ) )
+            {
+                line = relocateClassName( className );
+            }
+
+            writer.write( line );
+            writer.write( '\n' );
+        }
+
+        writer.close();
+        reader.close();
+
+        return buffer.toByteArray();
+    }
+
+    private String relocateClassName( final String className )
+    {
+        for ( final Relocation relocation : relocations )
+        {
+            final String relocated = relocation.relocateClassName( className );
+            if ( relocated != null )
+            {
+                return relocated;
+            }
+        }
+
+        return className;
+    }
+
+    private String relocateConstant( final String value )
+    {
+        for ( final Relocation relocation : relocations )
+        {
+            final String relocated = relocation.relocateConstant( value );
+            if ( relocated != value )
+            {
+                return relocated;
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public boolean isSelected( @Nonnull final FileInfo fileInfo )
+    {
+        return true;
+    }
+
+    @Override
+    public void finalizeArchiveCreation( final Archiver archiver )
+    {
+    }
+
+    @Override
+    public void finalizeArchiveExtraction( final UnArchiver unarchiver )
+    {
+    }
+
+    @Override
+    public List<String> getVirtualFiles()
+    {
+        return null;
+    }
+
+    @SuppressWarnings( "UnusedDeclaration" )
+    public List<Relocation> getRelocations()
+    {
+        return relocations;
+    }
+
+    @SuppressWarnings( "UnusedDeclaration" )
+    public void setRelocations( final List<Relocation> relocations )
+    {
+        this.relocations = relocations;
+    }
+
+}
@@ -36,6 +36,7 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import javax.annotation.Nonnull;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -63,6 +64,8 @@ public class ComponentsXmlArchiverFileFilter
     // some minimal access to the components accumulated for extending classes.
     Map<String, Xpp3Dom> components;
 
+    private final MergedContentRegistry mergedContents = new MergedContentRegistry();
+
     private boolean excludeOverride = false;
 
     void addComponentsXml( final Reader componentsReader )
@@ -192,10 +195,17 @@ public class ComponentsXmlArchiverFileFilter
 
             if ( ComponentsXmlArchiverFileFilter.COMPONENTS_XML_PATH.equals( entry ) )
             {
+                // identical descriptors cannot add components, as the first declaration of a component wins.
+                final byte[] content = mergedContents.readIfNotMerged( COMPONENTS_XML_PATH, fileInfo );
+                if ( content == null )
+                {
+                    return false;
+                }
+
                 Reader reader = null;
                 try
                 {
-                    reader = new BufferedReader( ReaderFactory.newXmlReader( fileInfo.getContents() ) );
+                    reader = new BufferedReader( ReaderFactory.newXmlReader( new ByteArrayInputStream( content ) ) );
                     addComponentsXml( reader );
                     reader.close();
                     reader = null;
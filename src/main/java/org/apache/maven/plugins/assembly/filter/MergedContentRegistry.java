@@ -0,0 +1,83 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Remembers the digests of the contents a container descriptor handler has already merged, so byte-identical copies
+ * of the same descriptor (shaded duplicates, classifier variants) are not decoded and merged over and over again.
+ * Only handlers whose output does not change when an identical copy is merged again may skip the copies.
+ */
+final class MergedContentRegistry
+{
+
+    private final Set<String> merged = new HashSet<>();
+
+    /**
+     * Reads the contents of the given file.
+     *
+     * @param target The merge target, contents are only compared with contents merged into the same target.
+     * @param fileInfo The file to read.
+     * @return The raw contents, or <code>null</code> when identical contents were already merged into the target.
+     * @throws IOException in case of an error reading the file.
+     */
+    byte[] readIfNotMerged( final String target, final FileInfo fileInfo )
+        throws IOException
+    {
+        final byte[] content;
+        InputStream in = null;
+        try
+        {
+            in = fileInfo.getContents();
+            content = IOUtil.toByteArray( in );
+            in.close();
+            in = null;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        return merged.add( target + ':' + content.length + ':' + digest( content ) ) ? content : null;
+    }
+
+    private static String digest( final byte[] content )
+    {
+        try
+        {
+            return new BigInteger( 1, MessageDigest.getInstance( "SHA-1" ).digest( content ) ).toString( 16 );
+        }
+        catch ( final NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 is not supported by this JVM", e );
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of a package relocation for the {@link ClassRelocationHandler}.
+ *
+ * @since 3.1.1
+ */
+public class Relocation
+{
+
+    /**
+     * The characters an 'L' starting a class type can follow in descriptors and signatures: delimiters, wildcard
+     * indicators and primitive type codes.
+     */
+    private static final String TYPE_PREDECESSORS = "()[;<:^*+-BCDFIJSZV";
+
+    private String pattern;
+
+    private String shadedPattern;
+
+    private List<String> excludes;
+
+    private String pathPattern;
+
+    private String shadedPathPattern;
+
+    private List<String> excludePaths;
+
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    public void setPattern( final String pattern )
+    {
+        this.pattern = pattern;
+        pathPattern = null;
+    }
+
+    public String getShadedPattern()
+    {
+        return shadedPattern;
+    }
+
+    public void setShadedPattern( final String shadedPattern )
+    {
+        this.shadedPattern = shadedPattern;
+        pathPattern = null;
+    }
+
+    public List<String> getExcludes()
+    {
+        return excludes;
+    }
+
+    public void setExcludes( final List<String> excludes )
+    {
+        this.excludes = excludes;
+        pathPattern = null;
+    }
+
+    /**
+     * @param className The fully qualified class name, for instance <code>com.acme.Foo</code>.
+     * @return The relocated class name, or <code>null</code> if the class is not relocated.
+     */
+    String relocateClassName( final String className )
+    {
+        final String relocated = relocatePath( className.replace( '.', '/' ) );
+
+        return relocated == null ? null : relocated.replace( '/', '.' );
+    }
+
+    /**
+     * @param internalName The internal name of a class, for instance <code>com/acme/Foo</code>.
+     * @return The relocated internal name, or <code>null</code> if the class is not relocated.
+     */
+    String relocatePath( final String internalName )
+    {
+        init();
+
+        if ( internalName.startsWith( pathPattern + "/" ) && !isExcluded( internalName ) )
+        {
+            return shadedPathPattern + internalName.substring( pathPattern.length() );
+        }
+
+        return null;
+    }
+
+    /**
+     * Relocates every class reference found in a constant pool string: internal names, type descriptors and generic
+     * signatures, as well as string constants holding a class or package name.
+     *
+     * @param value The string.
+     * @return The relocated string, which is the given instance if nothing was relocated.
+     */
+    String relocateConstant( final String value )
+    {
+        init();
+
+        if ( value.equals( pathPattern ) )
+        {
+            return shadedPathPattern;
+        }
+
+        if ( value.equals( pattern ) )
+        {
+            return shadedPattern;
+        }
+
+        if ( value.startsWith( pattern + "." ) )
+        {
+            final String relocated = relocateClassName( value );
+            return relocated == null ? value : relocated;
+        }
+
+        final String prefix = pathPattern + "/";
+
+        int idx = value.indexOf( prefix );
+        if ( idx < 0 )
+        {
+            return value;
+        }
+
+        final StringBuilder result = new StringBuilder( value.length() + 16 );
+
+        int copied = 0;
+        while ( idx > -1 )
+        {
+            final int end = findNameEnd( value, idx );
+            if ( isNameStart( value, idx ) && !isExcluded( value.substring( idx, end ) ) )
+            {
+                result.append( value, copied, idx ).append( shadedPathPattern ).append( '/' );
+                copied = idx + prefix.length();
+            }
+
+            idx = value.indexOf( prefix, end );
+        }
+
+        if ( copied == 0 )
+        {
+            return value;
+        }
+
+        return result.append( value, copied, value.length() ).toString();
+    }
+
+    private static boolean isNameStart( final String value, final int idx )
+    {
+        if ( idx == 0 )
+        {
+            return true;
+        }
+
+        // in descriptors and signatures a class reference is always introduced by 'L'
+        if ( value.charAt( idx - 1 ) != 'L' )
+        {
+            return false;
+        }
+
+        // and the 'L' itself starts a type: it follows a delimiter, or the end of a primitive type
+        return idx == 1 || TYPE_PREDECESSORS.indexOf( value.charAt( idx - 2 ) ) >= 0;
+    }
+
+    private static int findNameEnd( final String value, final int start )
+    {
+        int end = start;
+        while ( end < value.length() )
+        {
+            final char c = value.charAt( end );
+            if ( c != '/' && !Character.isJavaIdentifierPart( c ) )
+            {
+                break;
+            }
+            end++;
+        }
+
+        return end;
+    }
+
+    private boolean isExcluded( final String internalName )
+    {
+        for ( final String excludePath : excludePaths )
+        {
+            if ( SelectorUtils.matchPath( excludePath, internalName, "/", true ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void init()
+    {
+        if ( pathPattern != null )
+        {
+            return;
+        }
+
+        if ( pattern == null || shadedPattern == null )
+        {
+            throw new IllegalStateException(
+                "You must configure pattern and shadedPattern for each relocation of the relocation handler." );
+        }
+
+        final List<String> paths = new ArrayList<>();
+        if ( excludes != null )
+        {
+            for ( final String exclude : excludes )
+            {
+                paths.add( exclude.trim().replace( '.', '/' ) );
+            }
+        }
+
+        excludePaths = paths;
+        shadedPathPattern = shadedPattern.replace( '.', '/' );
+        pathPattern = pattern.replace( '.', '/' );
+    }
+
+}
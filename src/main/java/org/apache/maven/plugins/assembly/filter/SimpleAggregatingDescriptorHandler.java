@@ -20,6 +20,7 @@ package org.apache.maven.plugins.assembly.filter;
  */
 
 import org.apache.maven.plugins.assembly.utils.AssemblyFileUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.UnArchiver;
@@ -35,15 +36,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * @version $Id$
@@ -58,7 +60,10 @@ public class SimpleAggregatingDescriptorHandler
     @SuppressWarnings( "FieldCanBeLocal" )
     private final String commentChars = "#";
 
-    private final StringWriter aggregateWriter = new StringWriter();
+    /**
+     * Aggregated content is kept in memory up to this many bytes, then spilled to a temporary file.
+     */
+    private static final int AGGREGATE_MEMORY_THRESHOLD = 1024 * 1024;
 
     private final List<String> filenames = new ArrayList<>();
 
@@ -66,6 +71,14 @@ public class SimpleAggregatingDescriptorHandler
 
     private String filePattern;
 
+    private Pattern compiledFilePattern;
+
+    private String filePatternSuffix;
+
+    private DeferredFileOutputStream aggregateBuffer;
+
+    private Writer aggregateWriter;
+
     private String outputPath;
 
     private boolean overrideFilterAction;
@@ -104,15 +117,16 @@ public class SimpleAggregatingDescriptorHandler
     {
         File f;
 
-        Writer writer = null;
+        OutputStream out = null;
         try
         {
             f = File.createTempFile( "maven-assembly-plugin", "tmp" );
             f.deleteOnExit();
 
-            writer = AssemblyFileUtils.isPropertyFile( f )
-                         ? new OutputStreamWriter( new FileOutputStream( f ), StandardCharsets.ISO_8859_1 )
-                         : new OutputStreamWriter( new FileOutputStream( f ) ); // Still platform encoding
+            out = new FileOutputStream( f );
+
+            // Still platform encoding, the same one the aggregated content was buffered in
+            final Writer writer = new OutputStreamWriter( out );
 
             writer.write( commentChars + " Aggregated on " + new Date() + " from: " );
 
@@ -122,11 +136,17 @@ public class SimpleAggregatingDescriptorHandler
             }
 
             writer.write( "\n\n" );
+            writer.flush();
 
-            writer.write( aggregateWriter.toString() );
+            if ( aggregateWriter != null )
+            {
+                aggregateWriter.close();
+                aggregateBuffer.writeTo( out );
+                discardAggregateBuffer();
+            }
 
             writer.close();
-            writer = null;
+            out = null;
         }
         catch ( final IOException e )
         {
@@ -135,7 +155,7 @@ public class SimpleAggregatingDescriptorHandler
         }
         finally
         {
-            IOUtil.close( writer );
+            IOUtil.close( out );
         }
 
         return f;
@@ -167,7 +187,7 @@ public class SimpleAggregatingDescriptorHandler
 
         String name = AssemblyFileUtils.normalizeFileInfo( fileInfo );
 
-        if ( fileInfo.isFile() && name.matches( filePattern ) )
+        if ( fileInfo.isFile() && matchesFilePattern( name ) )
         {
             readProperties( fileInfo );
             filenames.add( name );
@@ -187,38 +207,128 @@ public class SimpleAggregatingDescriptorHandler
         }
     }
 
+    private boolean matchesFilePattern( final String name )
+    {
+        if ( compiledFilePattern == null )
+        {
+            compiledFilePattern = Pattern.compile( filePattern );
+            filePatternSuffix = getLiteralSuffix( filePattern );
+        }
+
+        // cheap rejection for the vast majority of entries, which can never match the pattern anyway
+        return name.endsWith( filePatternSuffix ) && compiledFilePattern.matcher( name ).matches();
+    }
+
+    /**
+     * Computes the literal text every string fully matching the given regular expression must end with.
+     *
+     * @param regex The regular expression.
+     * @return The literal suffix, or an empty string when none can be determined safely.
+     */
+    static String getLiteralSuffix( final String regex )
+    {
+        if ( regex.indexOf( '|' ) > -1 || regex.contains( "(?" ) )
+        {
+            // alternations and embedded flags make the trailing characters unreliable.
+            return "";
+        }
+
+        for ( int i = 0; i < regex.length() - 1; i++ )
+        {
+            if ( regex.charAt( i ) == '\\' )
+            {
+                if ( Character.isLetterOrDigit( regex.charAt( i + 1 ) ) )
+                {
+                    // only an escaped punctuation character stands for itself, while unicode, hexadecimal, octal
+                    // and control escapes, quoting and classes like \d do not end with the text they match
+                    return "";
+                }
+                i++;
+            }
+        }
+
+        final StringBuilder suffix = new StringBuilder();
+
+        int i = regex.length() - 1;
+        while ( i >= 0 )
+        {
+            final char c = regex.charAt( i );
+
+            int backslashes = 0;
+            while ( i - backslashes - 1 >= 0 && regex.charAt( i - backslashes - 1 ) == '\\' )
+            {
+                backslashes++;
+            }
+
+            if ( backslashes % 2 == 1 )
+            {
+                if ( Character.isLetterOrDigit( c ) )
+                {
+                    // character class or back reference, like \d or \1
+                    break;
+                }
+
+                suffix.append( c );
+                i -= 2;
+            }
+            else if ( ".*+?[](){}^$\\".indexOf( c ) > -1 )
+            {
+                break;
+            }
+            else
+            {
+                suffix.append( c );
+                i--;
+            }
+        }
+
+        return suffix.reverse().toString();
+    }
+
     private void readProperties( final FileInfo fileInfo )
         throws IOException
     {
+        if ( aggregateWriter == null )
+        {
+            aggregateBuffer =
+                new DeferredFileOutputStream( AGGREGATE_MEMORY_THRESHOLD, "maven-assembly-plugin", "tmp", null );
+            aggregateWriter = new OutputStreamWriter( aggregateBuffer ); // platform encoding
+        }
+
         Reader reader = null;
-        StringWriter writer = null;
         try
         {
-            writer = new StringWriter();
-
             reader = AssemblyFileUtils.isPropertyFile( fileInfo.getName() )
                          ? new InputStreamReader( fileInfo.getContents(), StandardCharsets.ISO_8859_1 )
                          : new InputStreamReader( fileInfo.getContents() ); // platform encoding
 
-            IOUtil.copy( reader, writer );
-
-            writer.close();
-            final String content = writer.toString();
-            writer = null;
+            aggregateWriter.write( "\n" );
+            IOUtil.copy( reader, aggregateWriter );
 
             reader.close();
             reader = null;
-
-            aggregateWriter.write( "\n" );
-            aggregateWriter.write( content );
         }
         finally
         {
-            IOUtil.close( writer );
             IOUtil.close( reader );
         }
     }
 
+    private void discardAggregateBuffer()
+    {
+        if ( aggregateBuffer != null && !aggregateBuffer.isInMemory() )
+        {
+            final File spilled = aggregateBuffer.getFile();
+            if ( spilled != null && !spilled.delete() )
+            {
+                spilled.deleteOnExit();
+            }
+        }
+
+        aggregateBuffer = null;
+        aggregateWriter = null;
+    }
+
     protected final Logger getLogger()
     {
         if ( logger == null )
@@ -245,6 +355,8 @@ public class SimpleAggregatingDescriptorHandler
     public void setFilePattern( final String filePattern )
     {
         this.filePattern = filePattern;
+        this.compiledFilePattern = null;
+        this.filePatternSuffix = null;
     }
 
     @SuppressWarnings( "UnusedDeclaration" )
@@ -0,0 +1,51 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A container descriptor handler that also rewrites the entries streaming into the archive, both their paths and their
+ * contents. Transformations are applied to the file sets, zip based archived file sets and single files added to the
+ * assembly.
+ *
+ * @since 3.1.1
+ */
+public interface TransformingContainerDescriptorHandler
+    extends ContainerDescriptorHandler
+{
+
+    /**
+     * @param path The path of the entry in the archive, including the prefix of the file set it is added with.
+     * @return The path the entry is stored under, or the given path if it is not changed.
+     */
+    String transformPath( String path );
+
+    /**
+     * @param path The path of the entry, before {@link #transformPath(String)} is applied.
+     * @param contents The contents of the entry.
+     * @return The transformed contents, or the given stream if the entry is not changed.
+     * @throws IOException in case of an error reading the contents.
+     */
+    InputStream transformContents( String path, InputStream contents )
+        throws IOException;
+
+}
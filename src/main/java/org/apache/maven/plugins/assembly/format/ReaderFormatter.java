@@ -26,6 +26,7 @@ import org.apache.maven.plugins.assembly.utils.LineEndings;
 import org.apache.maven.plugins.assembly.utils.LineEndingsUtils;
 import org.apache.maven.shared.filtering.MavenFilteringException;
 import org.apache.maven.shared.filtering.MavenReaderFilterRequest;
+import org.apache.maven.shared.utils.io.FileUtils.FilterWrapper;
 import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
 import org.codehaus.plexus.components.io.resources.PlexusIoResource;
 
@@ -35,61 +36,185 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  *
  */
 public class ReaderFormatter
 {
-    private static Reader createReaderFilter( @Nonnull Reader source, String escapeString, List<String> delimiters,
-                                              AssemblerConfigurationSource configSource, boolean isPropertiesFile )
+    /**
+     * The filter wrappers of each assembly execution, for files which are property files or not.
+     */
+    private static final Map<AssemblerConfigurationSource, Map<Boolean, List<FilterWrapper>>> FILTER_WRAPPERS =
+        new WeakHashMap<>();
+
+    /**
+     * The encodings in which the lines of a file can be scanned for delimiter starts as bytes.
+     */
+    private static final List<Charset> ASCII_COMPATIBLE_CHARSETS =
+        Arrays.asList( StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII );
+
+    private static Reader createReaderFilter( @Nonnull Reader source, AssemblerConfigurationSource configSource,
+                                              boolean isPropertiesFile )
         throws IOException
     {
         try
         {
+            return configSource.getMavenReaderFilter().filter( source, true,
+                                                               getFilterWrappers( configSource, isPropertiesFile ) );
+        }
+        catch ( MavenFilteringException e )
+        {
+            IOException ioe = new IOException( "Error filtering file '" + source + "': " + e.getMessage(), e );
+            throw ioe;
+        }
+    }
 
-            MavenReaderFilterRequest filterRequest =
-                new MavenReaderFilterRequest( source, true, configSource.getProject(), configSource.getFilters(),
-                                              isPropertiesFile, configSource.getMavenSession(), null );
-            
-            filterRequest.setEscapeString( escapeString );
-
-            // if these are NOT set, just use the defaults, which are '${*}' and '@'.
-            if ( delimiters != null && !delimiters.isEmpty() )
+    /**
+     * The filter wrappers hold the values of the filter files and the project build filters, which are loaded once
+     * per assembly execution rather than once per filtered file.
+     */
+    private static List<FilterWrapper> getFilterWrappers( AssemblerConfigurationSource configSource,
+                                                          boolean isPropertiesFile )
+        throws MavenFilteringException
+    {
+        synchronized ( FILTER_WRAPPERS )
+        {
+            Map<Boolean, List<FilterWrapper>> wrappers = FILTER_WRAPPERS.get( configSource );
+            if ( wrappers == null )
             {
-                LinkedHashSet<String> delims = new LinkedHashSet<>();
-                for ( String delim : delimiters )
-                {
-                    if ( delim == null )
-                    {
-                        // FIXME: ${filter:*} could also trigger this condition. Need a better long-term solution.
-                        delims.add( "${*}" );
-                    }
-                    else
-                    {
-                        delims.add( delim );
-                    }
-                }
+                wrappers = new HashMap<>();
+                FILTER_WRAPPERS.put( configSource, wrappers );
+            }
 
-                filterRequest.setDelimiters( delims );
+            List<FilterWrapper> filterWrappers = wrappers.get( isPropertiesFile );
+            if ( filterWrappers == null )
+            {
+                filterWrappers = configSource.getMavenReaderFilter().getDefaultFilterWrappers(
+                    createFilterRequest( configSource, isPropertiesFile ) );
+                wrappers.put( isPropertiesFile, filterWrappers );
             }
-            else
+            return filterWrappers;
+        }
+    }
+
+    private static MavenReaderFilterRequest createFilterRequest( AssemblerConfigurationSource configSource,
+                                                                 boolean isPropertiesFile )
+    {
+        MavenReaderFilterRequest filterRequest =
+            new MavenReaderFilterRequest( null, true, configSource.getProject(), configSource.getFilters(),
+                                          isPropertiesFile, configSource.getMavenSession(), null );
+
+        filterRequest.setEscapeString( configSource.getEscapeString() );
+
+        // if these are NOT set, just use the defaults, which are '${*}' and '@'.
+        List<String> delimiters = configSource.getDelimiters();
+        if ( delimiters != null && !delimiters.isEmpty() )
+        {
+            LinkedHashSet<String> delims = new LinkedHashSet<>();
+            for ( String delim : delimiters )
             {
-                filterRequest.setDelimiters( filterRequest.getDelimiters() );
+                if ( delim == null )
+                {
+                    // FIXME: ${filter:*} could also trigger this condition. Need a better long-term solution.
+                    delims.add( "${*}" );
+                }
+                else
+                {
+                    delims.add( delim );
+                }
             }
 
-            filterRequest.setInjectProjectBuildFilters( configSource.isIncludeProjectBuildFilters() );
-            return configSource.getMavenReaderFilter().filter( filterRequest );
+            filterRequest.setDelimiters( delims );
         }
-        catch ( MavenFilteringException e )
+        else
         {
-            IOException ioe = new IOException( "Error filtering file '" + source + "': " + e.getMessage(), e );
-            throw ioe;
+            filterRequest.setDelimiters( filterRequest.getDelimiters() );
+        }
+
+        filterRequest.setInjectProjectBuildFilters( configSource.isIncludeProjectBuildFilters() );
+        return filterRequest;
+    }
+
+    /**
+     * Drops the filter wrappers of the assembly execution configured by <code>configSource</code>, so that the next
+     * execution loads the filter files again.
+     *
+     * @since 3.1.1
+     */
+    public static void releaseFor( final AssemblerConfigurationSource configSource )
+    {
+        synchronized ( FILTER_WRAPPERS )
+        {
+            FILTER_WRAPPERS.remove( configSource );
         }
     }
 
+    private static InputStream filterStream( InputStream inputStream, String encoding,
+                                             AssemblerConfigurationSource configSource, boolean isPropertyFile )
+        throws IOException
+    {
+        Reader source = encoding != null
+            ? new InputStreamReader( inputStream, encoding )
+            : new InputStreamReader( inputStream ); // wtf platform encoding ? TODO: Fix this
+        Reader filtered = createReaderFilter( source, configSource, isPropertyFile );
+        return encoding != null
+            ? new ReaderInputStream( filtered, encoding )
+            : new ReaderInputStream( filtered );
+    }
+
+    private static List<String> getDelimiterStarts( AssemblerConfigurationSource configSource )
+    {
+        List<String> starts = new ArrayList<>();
+        for ( String delimiter : createFilterRequest( configSource, false ).getDelimiters() )
+        {
+            // like DelimiterSpecification, a delimiter without '*' both starts and ends an expression
+            int split = delimiter.indexOf( '*' );
+            starts.add( split < 0 ? delimiter : delimiter.substring( 0, split ) );
+        }
+        return starts;
+    }
+
+    /**
+     * @return the delimiter starts in <code>encoding</code>, or <code>null</code> if the bytes of files in that
+     *         encoding cannot be scanned for them, or some delimiter start is empty.
+     */
+    private static byte[][] encodeDelimiterStarts( List<String> delimiterStarts, String encoding )
+    {
+        Charset charset;
+        try
+        {
+            charset = encoding != null ? Charset.forName( encoding ) : Charset.defaultCharset();
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+        if ( !ASCII_COMPATIBLE_CHARSETS.contains( charset ) )
+        {
+            return null;
+        }
+
+        byte[][] encodedStarts = new byte[delimiterStarts.size()][];
+        for ( int i = 0; i < encodedStarts.length; i++ )
+        {
+            encodedStarts[i] = delimiterStarts.get( i ).getBytes( charset );
+            if ( encodedStarts[i].length == 0 )
+            {
+                return null;
+            }
+        }
+        return encodedStarts;
+    }
 
     private static boolean isForbiddenFiletypes( PlexusIoResource plexusIoResource )
     {
@@ -123,6 +248,7 @@ public class ReaderFormatter
 
         if ( transformLineEndings || isFiltered )
         {
+            final List<String> delimiterStarts = isFiltered ? getDelimiterStarts( configSource ) : null;
             return new InputStreamTransformer()
             {
                 @Override
@@ -134,18 +260,28 @@ public class ReaderFormatter
                     InputStream result = inputStream;
                     if ( isFiltered )
                     {
-                        boolean isPropertyFile = AssemblyFileUtils.isPropertyFile( plexusIoResource.getName() );
+                        final boolean isPropertyFile = AssemblyFileUtils.isPropertyFile( plexusIoResource.getName() );
                         final String encoding = isPropertyFile ? "ISO-8859-1" : configSource.getEncoding();
 
-                        Reader source = encoding != null
-                            ? new InputStreamReader( inputStream, encoding )
-                            : new InputStreamReader( inputStream ); // wtf platform encoding ? TODO: Fix this
-                        Reader filtered =
-                            createReaderFilter( source, configSource.getEscapeString(), configSource.getDelimiters(),
-                                                configSource, isPropertyFile );
-                        result = encoding != null
-                            ? new ReaderInputStream( filtered, encoding )
-                            : new ReaderInputStream( filtered );
+                        final byte[][] encodedStarts = encodeDelimiterStarts( delimiterStarts, encoding );
+                        if ( encodedStarts != null )
+                        {
+                            // lines without any delimiter start are copied as they are, the others filtered in runs
+                            final TokenScanningInputStream.Filter filter = new TokenScanningInputStream.Filter()
+                            {
+                                @Override
+                                public InputStream filter( InputStream lines )
+                                    throws IOException
+                                {
+                                    return filterStream( lines, encoding, configSource, isPropertyFile );
+                                }
+                            };
+                            result = new TokenScanningInputStream( inputStream, encodedStarts, filter );
+                        }
+                        else
+                        {
+                            result = filterStream( inputStream, encoding, configSource, isPropertyFile );
+                        }
                     }
                     if ( transformLineEndings )
                     {
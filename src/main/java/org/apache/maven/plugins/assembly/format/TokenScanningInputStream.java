@@ -0,0 +1,355 @@
+package org.apache.maven.plugins.assembly.format;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Filters a stream one run of lines at a time, working on bytes. Lines without any delimiter start are copied as they
+ * are, since a filter leaves them unchanged, and only runs of consecutive lines holding a delimiter start are decoded,
+ * filtered and encoded again. An expression never spans lines, so filtering the runs on their own gives the same
+ * result as filtering the whole stream, escapes included. The lines are scanned as bytes, which is only valid for
+ * encodings, like UTF-8 and ISO-8859-1, in which a line feed and the delimiter starts are always encoded the same way
+ * and never appear inside the encoding of another character. A long run is filtered in parts ending at line feeds,
+ * so that only about a buffer of lines is held at a time.
+ *
+ * @since 3.1.1
+ */
+final class TokenScanningInputStream
+    extends InputStream
+{
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Filters runs of lines.
+     */
+    interface Filter
+    {
+
+        /**
+         * @param lines whole lines holding delimiter starts, except that the last line of the stream may have no line
+         *              feed.
+         * @return the filtered lines.
+         */
+        InputStream filter( InputStream lines )
+            throws IOException;
+
+    }
+
+    private final InputStream in;
+
+    private final byte[][] delimiterStarts;
+
+    private final Filter filter;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /**
+     * The next byte to return.
+     */
+    private int position;
+
+    /**
+     * The end of the lines to copy, and the start of the lines to filter.
+     */
+    private int passable;
+
+    /**
+     * The end of the lines to filter.
+     */
+    private int segmentEnd;
+
+    /**
+     * The next byte to scan.
+     */
+    private int scanned;
+
+    /**
+     * The end of the bytes read.
+     */
+    private int limit;
+
+    /**
+     * Whether the line being scanned holds a delimiter start.
+     */
+    private boolean delimited;
+
+    private boolean eof;
+
+    private InputStream filtered;
+
+    private int filteredSegments;
+
+    /**
+     * @param delimiterStarts the encoded starts of the delimiters, none of them empty.
+     */
+    TokenScanningInputStream( final InputStream in, final byte[][] delimiterStarts, final Filter filter )
+    {
+        this.in = in;
+        this.delimiterStarts = delimiterStarts;
+        this.filter = filter;
+    }
+
+    /**
+     * @return the number of runs of lines filtered so far.
+     */
+    int getFilteredSegments()
+    {
+        return filteredSegments;
+    }
+
+    @Override
+    public int read()
+        throws IOException
+    {
+        while ( true )
+        {
+            if ( filtered != null )
+            {
+                final int b = filtered.read();
+                if ( b >= 0 )
+                {
+                    return b;
+                }
+                endSegment();
+            }
+            else if ( position < passable )
+            {
+                return buffer[position++] & 0xff;
+            }
+            else if ( !scan() && filtered == null )
+            {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public int read( final byte[] b, final int off, final int len )
+        throws IOException
+    {
+        if ( len == 0 )
+        {
+            return 0;
+        }
+
+        while ( true )
+        {
+            if ( filtered != null )
+            {
+                final int count = filtered.read( b, off, len );
+                if ( count >= 0 )
+                {
+                    return count;
+                }
+                endSegment();
+            }
+            else if ( position < passable )
+            {
+                final int count = Math.min( len, passable - position );
+                System.arraycopy( buffer, position, b, off, count );
+                position += count;
+                return count;
+            }
+            else if ( !scan() && filtered == null )
+            {
+                return -1;
+            }
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        if ( filtered != null )
+        {
+            filtered.close();
+        }
+        in.close();
+    }
+
+    /**
+     * Scans lines, until there are some to copy or to filter.
+     *
+     * @return <code>true</code> if there are lines to copy.
+     */
+    private boolean scan()
+        throws IOException
+    {
+        while ( true )
+        {
+            while ( scanned < limit )
+            {
+                if ( !delimited )
+                {
+                    final int match = matchDelimiterStart( scanned );
+                    if ( match < 0 )
+                    {
+                        // a delimiter start may continue in the bytes not read yet
+                        break;
+                    }
+                    delimited = match > 0;
+                }
+
+                if ( buffer[scanned++] == '\n' )
+                {
+                    if ( delimited )
+                    {
+                        segmentEnd = scanned;
+                        delimited = false;
+                        if ( segmentEnd - passable >= BUFFER_SIZE )
+                        {
+                            return flushSegment();
+                        }
+                    }
+                    else if ( segmentEnd > passable )
+                    {
+                        // the lines to filter end here, and this line is scanned again once they are
+                        return flushSegment();
+                    }
+                    else
+                    {
+                        passable = segmentEnd = scanned;
+                    }
+                }
+            }
+
+            if ( eof && scanned == limit )
+            {
+                if ( delimited )
+                {
+                    segmentEnd = scanned;
+                    delimited = false;
+                }
+                else if ( segmentEnd == passable )
+                {
+                    passable = segmentEnd = limit;
+                }
+            }
+
+            if ( passable > position )
+            {
+                return true;
+            }
+            else if ( segmentEnd > passable )
+            {
+                return flushSegment();
+            }
+            else if ( eof && scanned == limit )
+            {
+                return false;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Starts filtering the lines to filter, once the lines before them are copied, and scans the following lines
+     * again when they are filtered.
+     *
+     * @return <code>true</code> if there are lines to copy first.
+     */
+    private boolean flushSegment()
+        throws IOException
+    {
+        scanned = segmentEnd;
+        delimited = false;
+        if ( passable > position )
+        {
+            return true;
+        }
+
+        // the buffer is left as it is until the filtered lines are read
+        filtered = filter.filter( new ByteArrayInputStream( buffer, passable, segmentEnd - passable ) );
+        filteredSegments++;
+        return false;
+    }
+
+    private void endSegment()
+        throws IOException
+    {
+        filtered.close();
+        filtered = null;
+        position = passable = segmentEnd;
+    }
+
+    /**
+     * @return 1 if a delimiter start begins at <code>index</code>, 0 if none does, and -1 if one may, depending on
+     *         bytes not read yet.
+     */
+    private int matchDelimiterStart( final int index )
+    {
+        int result = 0;
+        for ( final byte[] start : delimiterStarts )
+        {
+            final int available = Math.min( start.length, limit - index );
+            int i = 0;
+            while ( i < available && buffer[index + i] == start[i] )
+            {
+                i++;
+            }
+
+            if ( i == start.length )
+            {
+                return 1;
+            }
+            else if ( i == available && !eof )
+            {
+                result = -1;
+            }
+        }
+        return result;
+    }
+
+    private void fill()
+        throws IOException
+    {
+        if ( position > 0 )
+        {
+            System.arraycopy( buffer, position, buffer, 0, limit - position );
+            passable -= position;
+            segmentEnd -= position;
+            scanned -= position;
+            limit -= position;
+            position = 0;
+        }
+        if ( limit == buffer.length )
+        {
+            // a long line, which is kept until its end
+            buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+        }
+
+        final int read = in.read( buffer, limit, buffer.length - limit );
+        if ( read < 0 )
+        {
+            eof = true;
+        }
+        else
+        {
+            limit += read;
+        }
+    }
+
+}
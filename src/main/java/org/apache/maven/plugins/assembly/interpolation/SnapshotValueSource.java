@@ -0,0 +1,181 @@
+package org.apache.maven.plugins.assembly.interpolation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.codehaus.plexus.interpolation.fixed.FixedValueSource;
+import org.codehaus.plexus.interpolation.fixed.InterpolationState;
+import org.codehaus.plexus.interpolation.fixed.PrefixedValueSourceWrapper;
+import org.codehaus.plexus.interpolation.reflection.ReflectionValueExtractor;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Value source resolving expressions against the properties of an object, like
+ * {@link org.codehaus.plexus.interpolation.fixed.ObjectBasedValueSource}, but extracting each expression by reflection
+ * only once. The extracted values form a flat snapshot of the object keyed by expression, and the snapshot of a
+ * project or artifact is shared by all the interpolators of an assembly execution, so descriptor interpolation,
+ * output directories and file name mappings all read the same values. Expressions reading the file of an artifact, or
+ * the artifacts of a project, are evaluated on every lookup, since files are set on artifacts while assemblies are
+ * created.
+ *
+ * @since 3.1.1
+ */
+public final class SnapshotValueSource
+    implements FixedValueSource
+{
+
+    private static final Object NULL_VALUE = new Object();
+
+    private static final Map<AssemblerConfigurationSource, Map<Object, SnapshotValueSource>> SNAPSHOTS =
+        new WeakHashMap<>();
+
+    private final Object root;
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    private SnapshotValueSource( final Object root )
+    {
+        this.root = root;
+    }
+
+    /**
+     * Returns the snapshot of <code>root</code> shared within the given assembly execution.
+     *
+     * @param configSource the configuration source of the execution, or <code>null</code> for a private snapshot.
+     * @param root the object to resolve expressions against.
+     * @return the snapshot value source.
+     */
+    public static SnapshotValueSource of( final AssemblerConfigurationSource configSource, final Object root )
+    {
+        if ( configSource == null )
+        {
+            return new SnapshotValueSource( root );
+        }
+
+        synchronized ( SNAPSHOTS )
+        {
+            Map<Object, SnapshotValueSource> snapshots = SNAPSHOTS.get( configSource );
+            if ( snapshots == null )
+            {
+                snapshots = new IdentityHashMap<>();
+                SNAPSHOTS.put( configSource, snapshots );
+            }
+
+            SnapshotValueSource snapshot = snapshots.get( root );
+            if ( snapshot == null )
+            {
+                snapshot = new SnapshotValueSource( root );
+                snapshots.put( root, snapshot );
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Equivalent of {@link org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource} backed by the shared
+     * snapshot of <code>root</code>.
+     */
+    public static FixedValueSource prefixed( final AssemblerConfigurationSource configSource, final Object root,
+                                             final String prefix )
+    {
+        return new PrefixedValueSourceWrapper( of( configSource, root ), prefix );
+    }
+
+    /**
+     * Equivalent of {@link org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource} backed by the shared
+     * snapshot of <code>root</code>.
+     */
+    public static FixedValueSource prefixed( final AssemblerConfigurationSource configSource, final Object root,
+                                             final List<String> prefixes, final boolean allowUnprefixed )
+    {
+        return new PrefixedValueSourceWrapper( of( configSource, root ), prefixes, allowUnprefixed );
+    }
+
+    @Override
+    public Object getValue( final String expression, final InterpolationState interpolationState )
+    {
+        if ( expression == null || expression.trim().length() < 1 )
+        {
+            return null;
+        }
+
+        final boolean cacheable = isCacheable( expression );
+        if ( cacheable )
+        {
+            synchronized ( values )
+            {
+                final Object value = values.get( expression );
+                if ( value != null )
+                {
+                    return value == NULL_VALUE ? null : value;
+                }
+            }
+        }
+
+        final Object value;
+        try
+        {
+            value = ReflectionValueExtractor.evaluate( expression, root, false );
+        }
+        catch ( Exception e )
+        {
+            // not remembered, so every lookup reports the failure like ObjectBasedValueSource does
+            interpolationState.addFeedback( "Failed to extract '" + expression + "' from: " + root, e );
+            return null;
+        }
+
+        if ( cacheable )
+        {
+            synchronized ( values )
+            {
+                values.put( expression, value == null ? NULL_VALUE : value );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return <code>false</code> if <code>expression</code> reads a file, like <code>file.name</code>, or an artifact
+     *         of a project, like <code>artifact.file</code>, which change during an execution.
+     */
+    private static boolean isCacheable( final String expression )
+    {
+        final String[] segments = expression.trim().split( "\\." );
+        if ( "artifact".equals( segments[0] ) || "attachedArtifacts".equals( segments[0] ) )
+        {
+            return false;
+        }
+
+        for ( final String segment : segments )
+        {
+            if ( "file".equals( segment ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -24,6 +24,7 @@ import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.interpolation.AssemblyExpressionEvaluator;
 import org.apache.maven.plugins.assembly.interpolation.AssemblyInterpolator;
+import org.apache.maven.plugins.assembly.interpolation.SnapshotValueSource;
 import org.apache.maven.plugins.assembly.model.Assembly;
 import org.apache.maven.plugins.assembly.model.Component;
 import org.apache.maven.plugins.assembly.model.ContainerDescriptorHandlerConfig;
@@ -48,7 +49,6 @@ import org.codehaus.plexus.interpolation.PrefixAwareRecursionInterceptor;
 import org.codehaus.plexus.interpolation.RecursionInterceptor;
 import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
 import org.codehaus.plexus.interpolation.fixed.InterpolationState;
-import org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource;
 import org.codehaus.plexus.interpolation.fixed.PrefixedPropertiesValueSource;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.logging.Logger;
@@ -79,12 +79,24 @@ public class DefaultAssemblyReader
 {
 
     public static FixedStringSearchInterpolator createProjectInterpolator( MavenProject project )
+    {
+        return createProjectInterpolator( project, null );
+    }
+
+    /**
+     * @param project the project to interpolate <code>project.</code> expressions from.
+     * @param configSource the execution sharing the project snapshot, may be <code>null</code>.
+     * @return the project interpolator.
+     */
+    public static FixedStringSearchInterpolator createProjectInterpolator( MavenProject project,
+                                                                          AssemblerConfigurationSource configSource )
     {
         // CHECKSTYLE_OFF: LineLength
         return FixedStringSearchInterpolator.create( new PrefixedPropertiesValueSource( InterpolationConstants.PROJECT_PROPERTIES_PREFIXES,
                                                                                         project.getProperties(), true ),
-                                                     new PrefixedObjectValueSource( InterpolationConstants.PROJECT_PREFIXES,
-                                                                                    project, true ) );
+                                                     SnapshotValueSource.prefixed( configSource, project,
+                                                                                   InterpolationConstants.PROJECT_PREFIXES,
+                                                                                   true ) );
         // CHECKSTYLE_ON: LineLength
     }
 
@@ -343,7 +355,8 @@ public class DefaultAssemblyReader
             is.setRecursionInterceptor( interceptor );
 
             FixedStringSearchInterpolator interpolator =
-                AssemblyInterpolator.fullInterpolator( project, createProjectInterpolator( project ), configSource );
+                AssemblyInterpolator.fullInterpolator( project, createProjectInterpolator( project, configSource ),
+                                                      configSource );
             AssemblyXpp3Reader.ContentTransformer transformer =
                 AssemblyInterpolator.assemblyInterpolator( interpolator, is, getLogger() );
 
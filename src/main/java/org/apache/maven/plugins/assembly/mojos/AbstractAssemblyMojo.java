@@ -32,7 +32,11 @@ import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.plugins.assembly.archive.ArchiveCreationException;
 import org.apache.maven.plugins.assembly.archive.AssemblyArchiver;
+import org.apache.maven.plugins.assembly.archive.archiver.DirectoryScans;
+import org.apache.maven.plugins.assembly.archive.archiver.ZipFilePool;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
+import org.apache.maven.plugins.assembly.format.ReaderFormatter;
+import org.apache.maven.plugins.assembly.interpolation.SnapshotValueSource;
 import org.apache.maven.plugins.assembly.io.AssemblyReadException;
 import org.apache.maven.plugins.assembly.io.AssemblyReader;
 import org.apache.maven.plugins.assembly.model.Assembly;
@@ -371,6 +375,56 @@ public abstract class AbstractAssemblyMojo
     @Parameter( property = "assembly.ignorePermissions", defaultValue = "false" )
     private boolean ignorePermissions;
 
+    /**
+     * <p>
+     * Directory of a persistent cache of unpacked dependency contents, which can be shared by builds. When set, zip
+     * based dependencies unpacked into an assembly are extracted to this directory once per checksum, and later
+     * builds add the extracted files instead of decompressing the archive again. Archives whose entries carry unix
+     * modes are still added directly on file systems without POSIX permissions, and so are archives whose entry names
+     * differ only by case. The cache is disabled by default.
+     * </p>
+     *
+     * @since 3.1.1
+     */
+    @Parameter( property = "assembly.unpackCacheDirectory" )
+    private File unpackCacheDirectory;
+
+    /**
+     * <p>
+     * Maximum size of the unpack cache in megabytes. The least recently used entries are removed when it is
+     * exceeded.
+     * </p>
+     *
+     * @since 3.1.1
+     */
+    @Parameter( property = "assembly.unpackCacheMaxSize", defaultValue = "1024" )
+    private long unpackCacheMaxSize;
+
+    /**
+     * <p>
+     * Extract zip based dependencies unpacked by several dependency sets once to the temporary directory, and add the
+     * part of every dependency set from the extracted files instead of reading the archive again. The extracted files
+     * only keep the unix modes of the entries on file systems supporting them, so archives with unix modes are still
+     * added directly elsewhere, and so are archives whose entry names differ only by case. Disabled by default.
+     * </p>
+     *
+     * @since 3.1.1
+     */
+    @Parameter( property = "assembly.shareUnpackedArchives", defaultValue = "false" )
+    private boolean shareUnpackedArchives;
+
+    /**
+     * <p>
+     * Number of threads preparing the module sources and module binaries of module sets: their file-set
+     * interpolation, directory scans and file name mappings. The entries are still added to the assembly in the order
+     * of the modules. The default of 1 prepares one module after another.
+     * </p>
+     *
+     * @since 3.1.1
+     */
+    @Parameter( property = "assembly.moduleThreads", defaultValue = "1" )
+    private int moduleThreads;
+
     /**
      * <p>
      * Set of delimiters for expressions to filter within the resources. These delimiters are specified in the form
@@ -396,13 +450,19 @@ public abstract class AbstractAssemblyMojo
     private List<String> delimiters;
 
     public static FixedStringSearchInterpolator mainProjectInterpolator( MavenProject mainProject )
+    {
+        return mainProjectInterpolator( mainProject, null );
+    }
+
+    private static FixedStringSearchInterpolator mainProjectInterpolator( MavenProject mainProject,
+                                                                         AssemblerConfigurationSource configSource )
     {
         if ( mainProject != null )
         {
             // 5
             return FixedStringSearchInterpolator.create(
-                new org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource(
-                    InterpolationConstants.PROJECT_PREFIXES, mainProject, true ),
+                SnapshotValueSource.prefixed( configSource, mainProject, InterpolationConstants.PROJECT_PREFIXES,
+                                              true ),
 
                 // 6
                 new org.codehaus.plexus.interpolation.fixed.PrefixedPropertiesValueSource(
@@ -455,6 +515,29 @@ public abstract class AbstractAssemblyMojo
         // TODO: include dependencies marked for distribution under certain formats
         // TODO: how, might we plug this into an installer, such as NSIS?
 
+        try
+        {
+            createAssemblies( assemblies );
+        }
+        finally
+        {
+            ZipFilePool.closeFor( this );
+            DirectoryScans.releaseFor( this );
+            ReaderFormatter.releaseFor( this );
+        }
+    }
+
+    /**
+     * @since 3.1.1
+     */
+    void setAttach( final boolean attach )
+    {
+        this.attach = attach;
+    }
+
+    private void createAssemblies( final List<Assembly> assemblies )
+        throws MojoExecutionException, MojoFailureException
+    {
         boolean warnedAboutMainProjectArtifact = false;
         for ( final Assembly assembly : assemblies )
         {
@@ -851,6 +934,30 @@ public abstract class AbstractAssemblyMojo
         return ignorePermissions;
     }
 
+    @Override
+    public File getUnpackCacheDirectory()
+    {
+        return unpackCacheDirectory;
+    }
+
+    @Override
+    public long getUnpackCacheMaxSize()
+    {
+        return unpackCacheMaxSize;
+    }
+
+    @Override
+    public boolean isShareUnpackedArchives()
+    {
+        return shareUnpackedArchives;
+    }
+
+    @Override
+    public int getModuleThreads()
+    {
+        return moduleThreads;
+    }
+
     @Override
     public String getEncoding()
     {
@@ -923,7 +1030,7 @@ public abstract class AbstractAssemblyMojo
     {
         if ( mainProjectInterpolator == null )
         {
-            this.mainProjectInterpolator = mainProjectInterpolator( getProject() );
+            this.mainProjectInterpolator = mainProjectInterpolator( getProject(), this );
         }
         return mainProjectInterpolator;
     }
@@ -0,0 +1,370 @@
+package org.apache.maven.plugins.assembly.mojos;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches source directories, with all their subdirectories, and single source files for changes. Changes are
+ * collected until none happened for the debounce interval, so that saving or generating several files at once is
+ * reported once. Only the changes accepted by the filter are reported, and nothing below the excluded roots is
+ * watched, so that the files written by the build itself never trigger it again. A source directory that does not
+ * exist yet is watched for through its nearest existing parent.
+ *
+ * @since 3.1.1
+ */
+final class SourceWatcher
+    implements Closeable
+{
+
+    private final WatchService watchService;
+
+    private final long debounce;
+
+    private final FileFilter filter;
+
+    private final List<Path> excludedRoots = new ArrayList<>();
+
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    /**
+     * The directories watched with all their entries.
+     */
+    private final Set<Path> trees = new HashSet<>();
+
+    /**
+     * The directories watched only for some of their files, with the names of those files.
+     */
+    private final Map<Path, Set<Path>> files = new HashMap<>();
+
+    /**
+     * The nearest existing parents of missing source directories, with those directories.
+     */
+    private final Map<Path, Set<Path>> missing = new HashMap<>();
+
+    /**
+     * @param debounce the milliseconds without changes after which changes are reported.
+     * @param filter accepts the changed files and directories to report, which may have been deleted.
+     * @param excludedRoots the directories whose contents are never watched.
+     */
+    SourceWatcher( final long debounce, final FileFilter filter, final Collection<File> excludedRoots )
+        throws IOException
+    {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounce = debounce;
+        this.filter = filter;
+        for ( final File root : excludedRoots )
+        {
+            this.excludedRoots.add( root.toPath().toAbsolutePath() );
+        }
+    }
+
+    /**
+     * Adds the <code>sourceDirectories</code>, with their subdirectories, and the parent directories of the
+     * <code>sourceFiles</code> to the watched directories.
+     */
+    void watch( final Collection<File> sourceDirectories, final Collection<File> sourceFiles )
+        throws IOException
+    {
+        for ( final File directory : sourceDirectories )
+        {
+            watchDirectory( directory.toPath().toAbsolutePath() );
+        }
+
+        for ( final File file : sourceFiles )
+        {
+            final Path path = file.toPath().toAbsolutePath();
+            final Path parent = path.getParent();
+            if ( parent != null && Files.isDirectory( parent ) && !isExcluded( path ) )
+            {
+                Set<Path> names = files.get( parent );
+                if ( names == null )
+                {
+                    names = new HashSet<>();
+                    files.put( parent, names );
+                    register( parent );
+                }
+                names.add( path.getFileName() );
+            }
+        }
+    }
+
+    /**
+     * @return the number of watched directories.
+     */
+    int getWatchedDirectoryCount()
+    {
+        return directories.size();
+    }
+
+    /**
+     * Waits for changes to the watched sources.
+     *
+     * @return the changes, once none happened for the debounce interval.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    Changes awaitChanges()
+        throws InterruptedException, IOException
+    {
+        final Changes changes = new Changes();
+        while ( changes.paths.isEmpty() )
+        {
+            WatchKey key = watchService.take();
+            while ( key != null )
+            {
+                poll( key, changes );
+                key = watchService.poll( debounce, TimeUnit.MILLISECONDS );
+            }
+        }
+        return changes;
+    }
+
+    private void poll( final WatchKey key, final Changes changes )
+        throws IOException
+    {
+        final Path directory = directories.get( key );
+        if ( directory == null )
+        {
+            key.cancel();
+            return;
+        }
+
+        final boolean tree = trees.contains( directory );
+        final Set<Path> names = files.get( directory );
+        boolean created = false;
+        for ( final WatchEvent<?> event : key.pollEvents() )
+        {
+            if ( event.kind() == StandardWatchEventKinds.OVERFLOW )
+            {
+                // events were lost, so anything below the directory may have changed
+                if ( tree || names != null )
+                {
+                    changes.paths.add( directory );
+                    changes.deleted = true;
+                }
+                created = true;
+                continue;
+            }
+
+            final Path name = (Path) event.context();
+            final Path path = directory.resolve( name );
+            created |= event.kind() == StandardWatchEventKinds.ENTRY_CREATE;
+            if ( isExcluded( path ) )
+            {
+                continue;
+            }
+
+            if ( tree && event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                && Files.isDirectory( path, LinkOption.NOFOLLOW_LINKS ) )
+            {
+                watchTree( path );
+            }
+
+            if ( ( tree || ( names != null && names.contains( name ) ) ) && filter.accept( path.toFile() ) )
+            {
+                changes.paths.add( path );
+                changes.deleted |= event.kind() == StandardWatchEventKinds.ENTRY_DELETE;
+            }
+        }
+
+        final Set<Path> missingDirectories = created ? missing.remove( directory ) : null;
+        if ( missingDirectories != null )
+        {
+            watchCreated( missingDirectories, changes );
+        }
+
+        if ( !key.reset() )
+        {
+            // the directory is gone, and watched again if created again
+            directories.remove( key );
+            trees.remove( directory );
+            files.remove( directory );
+
+            final Set<Path> orphans = missing.remove( directory );
+            if ( orphans != null )
+            {
+                watchCreated( orphans, changes );
+            }
+        }
+    }
+
+    /**
+     * Watches the missing source directories again, reporting those that were created.
+     */
+    private void watchCreated( final Set<Path> missingDirectories, final Changes changes )
+        throws IOException
+    {
+        for ( final Path missingDirectory : missingDirectories )
+        {
+            if ( watchDirectory( missingDirectory ) && filter.accept( missingDirectory.toFile() ) )
+            {
+                changes.paths.add( missingDirectory );
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if <code>directory</code> exists and is now watched, <code>false</code> if it is
+     *         excluded or watched for through its nearest existing parent.
+     */
+    private boolean watchDirectory( final Path directory )
+        throws IOException
+    {
+        if ( isExcluded( directory ) )
+        {
+            return false;
+        }
+
+        if ( Files.isDirectory( directory ) )
+        {
+            watchTree( directory );
+            return true;
+        }
+
+        Path parent = directory.getParent();
+        while ( parent != null && !Files.isDirectory( parent ) )
+        {
+            parent = parent.getParent();
+        }
+        if ( parent != null )
+        {
+            Set<Path> missingDirectories = missing.get( parent );
+            if ( missingDirectories == null )
+            {
+                missingDirectories = new HashSet<>();
+                missing.put( parent, missingDirectories );
+                register( parent );
+            }
+            missingDirectories.add( directory );
+        }
+        return false;
+    }
+
+    private void watchTree( final Path root )
+        throws IOException
+    {
+        Files.walkFileTree( root, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory( final Path directory, final BasicFileAttributes attributes )
+                throws IOException
+            {
+                if ( isExcluded( directory ) )
+                {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if ( trees.add( directory ) )
+                {
+                    register( directory );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed( final Path file, final IOException e )
+            {
+                // an entry gone while walking, which is reported as a change anyway
+                return FileVisitResult.CONTINUE;
+            }
+        } );
+    }
+
+    private boolean isExcluded( final Path path )
+    {
+        for ( final Path root : excludedRoots )
+        {
+            if ( path.startsWith( root ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void register( final Path directory )
+        throws IOException
+    {
+        // registering a directory again returns the same key
+        final WatchKey key =
+            directory.register( watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY );
+        directories.put( key, directory );
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        watchService.close();
+    }
+
+    /**
+     * The sources changed since the last changes were reported.
+     */
+    static final class Changes
+    {
+
+        private final Set<Path> paths = new LinkedHashSet<>();
+
+        private boolean deleted;
+
+        /**
+         * @return the changed files and directories, in the order they were first reported.
+         */
+        Set<Path> getPaths()
+        {
+            return paths;
+        }
+
+        /**
+         * @return <code>true</code> if a source was deleted or renamed, so that its entry is left over in the assembly
+         *         unless it is created again from scratch.
+         */
+        boolean isDeleted()
+        {
+            return deleted;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package org.apache.maven.plugins.assembly.mojos;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.plugins.assembly.archive.archiver.AssemblySources;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assemble an application bundle or distribution from an assembly descriptor, like the {@code single} goal, and then
+ * keep it up to date: whenever a file selected by a file set, or a file or archive added to the assembly, changes,
+ * the assemblies are created again, through the same phases, until the build is stopped. This is intended for the
+ * {@code dir} format during development, where files whose entry is up to date are not copied again. When a source is
+ * deleted or renamed, the directories created are removed first, so that they hold exactly what a full build creates.
+ * Nothing below the output directory, the temporary directory or the working directory is watched, as the build
+ * writes there. The assemblies are attached to the project by the first build only.
+ *
+ * @since 3.1.1
+ */
+@Mojo( name = "watch", inheritByDefault = false, requiresDependencyResolution = ResolutionScope.TEST,
+    threadSafe = true )
+public class WatchAssemblyMojo
+    extends AbstractAssemblyMojo
+{
+
+    /**
+     * The milliseconds without further changes to wait for before the assemblies are created again.
+     *
+     * @since 3.1.1
+     */
+    @Parameter( property = "assembly.watchDebounce", defaultValue = "500" )
+    private long watchDebounce;
+
+    /**
+     */
+    @Parameter( defaultValue = "${project}", readonly = true, required = true )
+    private MavenProject project;
+
+    @Override
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        final AssemblySources sources = AssemblySources.track( this );
+        final FileFilter filter = new FileFilter()
+        {
+            @Override
+            public boolean accept( final File file )
+            {
+                return sources.isSource( file );
+            }
+        };
+        try ( SourceWatcher watcher = new SourceWatcher( watchDebounce, filter, getExcludedRoots() ) )
+        {
+            createAssemblies();
+            setAttach( false );
+
+            watcher.watch( sources.getDirectories(), sources.getFiles() );
+            if ( watcher.getWatchedDirectoryCount() == 0 )
+            {
+                getLog().info( "No assembly sources to watch." );
+                return;
+            }
+
+            while ( true )
+            {
+                watcher.watch( sources.getDirectories(), sources.getFiles() );
+                getLog().info( "Watching " + watcher.getWatchedDirectoryCount()
+                                   + " directories for changes to the assembly sources." );
+
+                final SourceWatcher.Changes changes = watcher.awaitChanges();
+                for ( final Path path : changes.getPaths() )
+                {
+                    getLog().debug( "Changed: " + path );
+                }
+                getLog().info(
+                    changes.getPaths().size() + " assembly sources changed, creating the assemblies again." );
+
+                if ( changes.isDeleted() )
+                {
+                    deleteOutputDirectories( sources );
+                }
+                sources.clear();
+
+                try
+                {
+                    createAssemblies();
+                }
+                catch ( final MojoExecutionException | MojoFailureException e )
+                {
+                    // keep watching, the next change may fix the sources
+                    getLog().error( e.getMessage(), e );
+                }
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            getLog().info( "Stopped watching the assembly sources." );
+        }
+        catch ( final IOException e )
+        {
+            throw new MojoExecutionException( "Error watching the assembly sources: " + e.getMessage(), e );
+        }
+        finally
+        {
+            AssemblySources.untrack( this );
+        }
+    }
+
+    /**
+     * Creates the assemblies the way the {@code single} goal does.
+     */
+    void createAssemblies()
+        throws MojoExecutionException, MojoFailureException
+    {
+        super.execute();
+    }
+
+    void setWatchDebounce( final long watchDebounce )
+    {
+        this.watchDebounce = watchDebounce;
+    }
+
+    private List<File> getExcludedRoots()
+    {
+        final List<File> roots = new ArrayList<>();
+        final File[] candidates = { getOutputDirectory(), getTemporaryRootDirectory(), getWorkingDirectory() };
+        for ( final File root : candidates )
+        {
+            if ( root != null )
+            {
+                roots.add( root );
+            }
+        }
+        return roots;
+    }
+
+    private void deleteOutputDirectories( final AssemblySources sources )
+        throws IOException
+    {
+        for ( final File output : sources.getOutputs() )
+        {
+            if ( output.isDirectory() )
+            {
+                getLog().debug( "Removing " + output + " to create it from scratch." );
+                FileUtils.deleteDirectory( output );
+            }
+        }
+    }
+
+    @Override
+    public MavenProject getProject()
+    {
+        return project;
+    }
+
+}
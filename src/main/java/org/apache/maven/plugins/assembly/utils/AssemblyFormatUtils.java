@@ -23,11 +23,12 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
 import org.apache.maven.plugins.assembly.format.AssemblyFormattingException;
+import org.apache.maven.plugins.assembly.interpolation.SnapshotValueSource;
 import org.apache.maven.plugins.assembly.model.Assembly;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.utils.Os;
 import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
-import org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource;
+import org.codehaus.plexus.interpolation.fixed.FixedValueSource;
 import org.codehaus.plexus.interpolation.fixed.PrefixedPropertiesValueSource;
 import org.codehaus.plexus.interpolation.fixed.PropertiesBasedValueSource;
 import org.codehaus.plexus.logging.Logger;
@@ -47,6 +48,23 @@ import java.util.Properties;
 public final class AssemblyFormatUtils
 {
 
+    private static final String ARTIFACT_PREFIX = "artifact.";
+
+    /**
+     * The <code>artifact.*</code> properties of an output directory that evaluate the same for the project built from
+     * the POM of an artifact and for a stub project of the artifact.
+     */
+    private static final List<String> STUB_SAFE_OUTPUT_DIRECTORY_PROPERTIES =
+        Arrays.asList( "groupId", "artifactId", "version", "baseVersion" );
+
+    /**
+     * The <code>artifact.*</code> properties of an output file name mapping that are resolved from the artifact itself,
+     * before the project of the artifact is consulted.
+     */
+    private static final List<String> STUB_SAFE_FILE_NAME_MAPPING_PROPERTIES =
+        Arrays.asList( "groupId", "artifactId", "version", "baseVersion", "classifier", "type", "extension", "scope",
+                       "handler", "id", "dependencyConflictId" );
+
     private AssemblyFormatUtils()
     {
     }
@@ -92,14 +110,26 @@ public final class AssemblyFormatUtils
 
     @Nonnull
     public static FixedStringSearchInterpolator moduleProjectInterpolator( final MavenProject moduleProject )
+    {
+        return moduleProjectInterpolator( moduleProject, null );
+    }
+
+    /**
+     * @param moduleProject the module project, may be <code>null</code>.
+     * @param configSource the execution sharing the project snapshots, may be <code>null</code>.
+     * @return the interpolator for <code>module.</code> expressions.
+     */
+    @Nonnull
+    public static FixedStringSearchInterpolator moduleProjectInterpolator(
+        final MavenProject moduleProject, final AssemblerConfigurationSource configSource )
     {
         if ( moduleProject != null )
         {
             return FixedStringSearchInterpolator.createWithPermittedNulls(
-                new PrefixedObjectValueSource( "module.", moduleProject ),
+                SnapshotValueSource.prefixed( configSource, moduleProject, "module." ),
                 new PrefixedPropertiesValueSource( "module.properties.", moduleProject.getProperties() ),
                 moduleProject.getArtifact() != null
-                    ? new PrefixedObjectValueSource( "module.", moduleProject.getArtifact() )
+                    ? SnapshotValueSource.prefixed( configSource, moduleProject.getArtifact(), "module." )
                     : null );
         }
         else
@@ -110,18 +140,19 @@ public final class AssemblyFormatUtils
     }
 
     public static FixedStringSearchInterpolator moduleArtifactInterpolator( Artifact moduleArtifact )
+    {
+        return moduleArtifactInterpolator( moduleArtifact, null );
+    }
+
+    private static FixedStringSearchInterpolator moduleArtifactInterpolator( Artifact moduleArtifact,
+                                                                            AssemblerConfigurationSource configSource )
     {
         if ( moduleArtifact != null )
         {
-            // CHECKSTYLE_OFF: LineLength
-            return FixedStringSearchInterpolator.create( new PrefixedObjectValueSource( "module.", moduleArtifact ),
-                                                         new PrefixedObjectValueSource( "module.",
-                                                                                        moduleArtifact
-                                                                                            .getArtifactHandler() ),
-                                                         new PrefixedObjectValueSource( "module.handler.",
-                                                                                        moduleArtifact
-                                                                                            .getArtifactHandler() ) );
-            // CHECKSTYLE_ON: LineLength
+            return FixedStringSearchInterpolator.create(
+                SnapshotValueSource.prefixed( configSource, moduleArtifact, "module." ),
+                SnapshotValueSource.prefixed( configSource, moduleArtifact.getArtifactHandler(), "module." ),
+                SnapshotValueSource.prefixed( configSource, moduleArtifact.getArtifactHandler(), "module.handler." ) );
         }
         else
         {
@@ -132,17 +163,29 @@ public final class AssemblyFormatUtils
 
     @Nonnull
     public static FixedStringSearchInterpolator artifactProjectInterpolator( final MavenProject artifactProject )
+    {
+        return artifactProjectInterpolator( artifactProject, null );
+    }
+
+    /**
+     * @param artifactProject the project of the artifact, may be <code>null</code>.
+     * @param configSource the execution sharing the project snapshots, may be <code>null</code>.
+     * @return the interpolator for <code>artifact.</code> expressions.
+     */
+    @Nonnull
+    public static FixedStringSearchInterpolator artifactProjectInterpolator(
+        final MavenProject artifactProject, final AssemblerConfigurationSource configSource )
     {
         if ( artifactProject != null )
         {
-            PrefixedObjectValueSource vs = null;
+            FixedValueSource vs = null;
             if ( artifactProject.getArtifact() != null )
             {
-                vs = new PrefixedObjectValueSource( "artifact.", artifactProject.getArtifact() );
+                vs = SnapshotValueSource.prefixed( configSource, artifactProject.getArtifact(), "artifact." );
             }
 
             return FixedStringSearchInterpolator.createWithPermittedNulls(
-                new PrefixedObjectValueSource( "artifact.", artifactProject ),
+                SnapshotValueSource.prefixed( configSource, artifactProject, "artifact." ),
                 new PrefixedPropertiesValueSource( "artifact.properties.", artifactProject.getProperties() ), vs );
 
 
@@ -158,13 +201,18 @@ public final class AssemblyFormatUtils
     @Nonnull
     public static FixedStringSearchInterpolator artifactInterpolator( @Nonnull final Artifact artifact )
     {
-        return FixedStringSearchInterpolator.create( new PrefixedObjectValueSource( "artifact.", artifact ),
-                                                     new PrefixedObjectValueSource( "artifact.",
-                                                                                    artifact.getArtifactHandler() ),
-                                                     new PrefixedObjectValueSource( "artifact.handler.",
-                                                                                    artifact.getArtifactHandler() ) );
+        return artifactInterpolator( artifact, null );
     }
 
+    @Nonnull
+    private static FixedStringSearchInterpolator artifactInterpolator( @Nonnull final Artifact artifact,
+                                                                       final AssemblerConfigurationSource configSource )
+    {
+        return FixedStringSearchInterpolator.create(
+            SnapshotValueSource.prefixed( configSource, artifact, "artifact." ),
+            SnapshotValueSource.prefixed( configSource, artifact.getArtifactHandler(), "artifact." ),
+            SnapshotValueSource.prefixed( configSource, artifact.getArtifactHandler(), "artifact.handler." ) );
+    }
 
     @Nonnull
     public static FixedStringSearchInterpolator classifierRules( final Artifact artifact )
@@ -218,7 +266,7 @@ public final class AssemblyFormatUtils
         throws AssemblyFormattingException
     {
         return getOutputDirectory( output, finalName, configSource, moduleProjectInterpolator( null ),
-                                   artifactProjectInterpolator( artifactProject ) );
+                                   artifactProjectInterpolator( artifactProject, configSource ) );
     }
 
 
@@ -244,14 +292,15 @@ public final class AssemblyFormatUtils
         return FixedStringSearchInterpolator.empty();
     }
 
-    private static FixedStringSearchInterpolator mainProjectOnlyInterpolator( MavenProject mainProject )
+    private static FixedStringSearchInterpolator mainProjectOnlyInterpolator( MavenProject mainProject,
+                                                                             AssemblerConfigurationSource configSource )
     {
         if ( mainProject != null )
         {
             // 5
             return FixedStringSearchInterpolator.create(
-                new org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource(
-                    InterpolationConstants.PROJECT_PREFIXES, mainProject, true ) );
+                SnapshotValueSource.prefixed( configSource, mainProject, InterpolationConstants.PROJECT_PREFIXES,
+                                              true ) );
         }
         else
         {
@@ -385,24 +434,35 @@ public final class AssemblyFormatUtils
                                                   @Nullable final MavenProject mainProject,
                                                   @Nullable final Artifact moduleArtifact,
                                                   @Nonnull final AssemblerConfigurationSource configSource,
-                                                  FixedStringSearchInterpolator moduleProjectInterpolator,
-                                                  FixedStringSearchInterpolator artifactProjectInterpolator )
+                                                  final FixedStringSearchInterpolator moduleProjectInterpolator,
+                                                  final FixedStringSearchInterpolator artifactProjectInterpolator )
         throws AssemblyFormattingException
     {
-        String value = expression;
-
-        final FixedStringSearchInterpolator interpolator =
-            FixedStringSearchInterpolator.create( moduleArtifactInterpolator( moduleArtifact ),
-                                                  moduleProjectInterpolator, artifactInterpolator( artifact ),
-                                                  artifactProjectInterpolator,
-                                                  mainProjectOnlyInterpolator( mainProject ),
-                                                  classifierRules( artifact ),
-                                                  executionPropertiesInterpolator( configSource ),
-                                                  configSource.getMainProjectInterpolator(),
-                                                  configSource.getCommandLinePropsInterpolator(),
-                                                  configSource.getEnvInterpolator() );
+        String value = MappingTemplate.compile( expression ).evaluate( new MappingTemplate.Resolver()
+        {
+            @Override
+            String getValue( final String property )
+            {
+                return getFileNameMappingValue( property, artifact );
+            }
 
-        value = interpolator.interpolate( value );
+            @Override
+            FixedStringSearchInterpolator createInterpolator()
+            {
+                return FixedStringSearchInterpolator.create( moduleArtifactInterpolator( moduleArtifact,
+                                                                                          configSource ),
+                                                             moduleProjectInterpolator,
+                                                             artifactInterpolator( artifact, configSource ),
+                                                             artifactProjectInterpolator,
+                                                             mainProjectOnlyInterpolator( mainProject,
+                                                                                          configSource ),
+                                                             classifierRules( artifact ),
+                                                             executionPropertiesInterpolator( configSource ),
+                                                             configSource.getMainProjectInterpolator(),
+                                                             configSource.getCommandLinePropsInterpolator(),
+                                                             configSource.getEnvInterpolator() );
+            }
+        } );
 
         value = StringUtils.replace( value, "//", "/" );
         value = StringUtils.replace( value, "\\\\", "\\" );
@@ -439,25 +499,34 @@ public final class AssemblyFormatUtils
      */
     public static String getOutputDirectory( final String output, final String finalName,
                                              final AssemblerConfigurationSource configSource,
-                                             FixedStringSearchInterpolator moduleProjectIntrpolator,
-                                             FixedStringSearchInterpolator artifactProjectInterpolator )
+                                             final FixedStringSearchInterpolator moduleProjectIntrpolator,
+                                             final FixedStringSearchInterpolator artifactProjectInterpolator )
         throws AssemblyFormattingException
     {
-        String value = output;
-        if ( value == null )
+        String value = MappingTemplate.compile( output ).evaluate( new MappingTemplate.Resolver()
         {
-            value = "";
-        }
-
-        final FixedStringSearchInterpolator interpolator =
-            FixedStringSearchInterpolator.create( finalNameInterpolator( finalName ), moduleProjectIntrpolator,
-                                                  artifactProjectInterpolator,
-                                                  executionPropertiesInterpolator( configSource ),
-                                                  configSource.getMainProjectInterpolator(),
-                                                  configSource.getCommandLinePropsInterpolator(),
-                                                  configSource.getEnvInterpolator() );
+            @Override
+            String getValue( final String property )
+            {
+                // the final name of the assembly takes precedence over all other sources
+                if ( finalName != null && ( "finalName".equals( property ) || "build.finalName".equals( property ) ) )
+                {
+                    return finalName;
+                }
+                return null;
+            }
 
-        value = interpolator.interpolate( value );
+            @Override
+            FixedStringSearchInterpolator createInterpolator()
+            {
+                return FixedStringSearchInterpolator.create( finalNameInterpolator( finalName ),
+                                                             moduleProjectIntrpolator, artifactProjectInterpolator,
+                                                             executionPropertiesInterpolator( configSource ),
+                                                             configSource.getMainProjectInterpolator(),
+                                                             configSource.getCommandLinePropsInterpolator(),
+                                                             configSource.getEnvInterpolator() );
+            }
+        } );
 
         if ( ( value.length() > 0 ) && !value.endsWith( "/" ) && !value.endsWith( "\\" ) )
         {
@@ -476,6 +545,132 @@ public final class AssemblyFormatUtils
         return value;
     }
 
+    /**
+     * Resolves the expressions of a file name mapping that are answered by the artifact itself, without creating the
+     * interpolators. The <code>module.</code> and <code>artifact.</code> prefixed sources consulted before the
+     * artifact cannot resolve them, so the result is the same as the one of the interpolator chain.
+     *
+     * @return The value, or <code>null</code> if the interpolators have to resolve the expression.
+     */
+    private static String getFileNameMappingValue( final String property, final Artifact artifact )
+    {
+        if ( "dashClassifier?".equals( property ) || "dashClassifier".equals( property ) )
+        {
+            final String classifier = ProjectUtils.getClassifier( artifact );
+            return classifier != null ? "-" + classifier : "";
+        }
+
+        if ( !property.startsWith( ARTIFACT_PREFIX ) )
+        {
+            return null;
+        }
+
+        switch ( property.substring( ARTIFACT_PREFIX.length() ) )
+        {
+            case "groupId":
+                return artifact.getGroupId();
+            case "artifactId":
+                return artifact.getArtifactId();
+            case "version":
+                return artifact.getVersion();
+            case "baseVersion":
+                return artifact.getBaseVersion();
+            case "classifier":
+                return artifact.getClassifier();
+            case "type":
+                return artifact.getType();
+            case "scope":
+                return artifact.getScope();
+            case "id":
+                return artifact.getId();
+            case "dependencyConflictId":
+                return artifact.getDependencyConflictId();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Tells whether evaluating the given output directory and file name mapping needs the project built from the POM
+     * of the artifact, or whether a stub project derived from the artifact coordinates gives the same result. The
+     * expressions are analysed as written, expressions nested in the values of other properties are not considered.
+     *
+     * @param outputDirectory The output directory expression, may be <code>null</code>.
+     * @param outputFileNameMapping The output file name mapping expression, may be <code>null</code>.
+     * @param finalNameFromArtifactProject Whether <code>${finalName}</code> in the output directory is taken from the
+     *            build of the artifact project, instead of from the assembly configuration.
+     * @return <code>true</code> if the artifact project has to be built.
+     */
+    public static boolean isArtifactProjectRequired( @Nullable final String outputDirectory,
+                                                     @Nullable final String outputFileNameMapping,
+                                                     final boolean finalNameFromArtifactProject )
+    {
+        for ( final String expression : getExpressions( outputDirectory ) )
+        {
+            if ( finalNameFromArtifactProject && ( "finalName".equals( expression ) || "build.finalName".equals(
+                expression ) ) )
+            {
+                return true;
+            }
+
+            if ( isArtifactProjectExpression( expression, STUB_SAFE_OUTPUT_DIRECTORY_PROPERTIES ) )
+            {
+                return true;
+            }
+        }
+
+        for ( final String expression : getExpressions( outputFileNameMapping ) )
+        {
+            if ( isArtifactProjectExpression( expression, STUB_SAFE_FILE_NAME_MAPPING_PROPERTIES ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isArtifactProjectExpression( final String expression, final List<String> safeProperties )
+    {
+        if ( !expression.startsWith( ARTIFACT_PREFIX ) )
+        {
+            return "artifact".equals( expression );
+        }
+
+        String property = expression.substring( ARTIFACT_PREFIX.length() );
+        final int dot = property.indexOf( '.' );
+        if ( dot > -1 )
+        {
+            property = property.substring( 0, dot );
+        }
+
+        return !safeProperties.contains( property );
+    }
+
+    private static List<String> getExpressions( @Nullable final String value )
+    {
+        final List<String> expressions = new ArrayList<>();
+        if ( value == null )
+        {
+            return expressions;
+        }
+
+        int start = value.indexOf( "${" );
+        while ( start > -1 )
+        {
+            final int end = value.indexOf( '}', start + 2 );
+            if ( end < 0 )
+            {
+                break;
+            }
+
+            expressions.add( value.substring( start + 2, end ).trim() );
+            start = value.indexOf( "${", end + 1 );
+        }
+
+        return expressions;
+    }
+
     public static void warnForPlatformSpecifics( Logger logger, String destDirectory )
     {
         if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
@@ -24,8 +24,6 @@ import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.plugins.assembly.InvalidAssemblerConfigurationException;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.shared.artifact.filter.PatternExcludesArtifactFilter;
-import org.apache.maven.shared.artifact.filter.PatternIncludesArtifactFilter;
 import org.apache.maven.shared.artifact.filter.StatisticsReportingArtifactFilter;
 import org.apache.maven.shared.artifact.filter.resolve.ScopeFilter;
 import org.codehaus.plexus.logging.Logger;
@@ -46,22 +44,22 @@ public final class FilterUtils
                                                     final List<String> excludes, final boolean actTransitively,
                                                     final Logger logger )
     {
-        final List<PatternIncludesArtifactFilter> allFilters = new ArrayList<>();
+        final List<IndexedPatternArtifactFilter> allFilters = new ArrayList<>();
 
         final AndArtifactFilter filter = new AndArtifactFilter();
 
         if ( !includes.isEmpty() )
         {
-            final PatternIncludesArtifactFilter includeFilter =
-                new PatternIncludesArtifactFilter( includes, actTransitively );
+            final IndexedPatternArtifactFilter includeFilter =
+                IndexedPatternArtifactFilter.includes( includes, actTransitively );
 
             filter.add( includeFilter );
             allFilters.add( includeFilter );
         }
         if ( !excludes.isEmpty() )
         {
-            final PatternExcludesArtifactFilter excludeFilter =
-                new PatternExcludesArtifactFilter( excludes, actTransitively );
+            final IndexedPatternArtifactFilter excludeFilter =
+                IndexedPatternArtifactFilter.excludes( excludes, actTransitively );
 
             filter.add( excludeFilter );
             allFilters.add( excludeFilter );
@@ -78,7 +76,7 @@ public final class FilterUtils
             }
         }
 
-        for ( final PatternIncludesArtifactFilter f : allFilters )
+        for ( final IndexedPatternArtifactFilter f : allFilters )
         {
             if ( f != null )
             {
@@ -111,7 +109,7 @@ public final class FilterUtils
 
         if ( !includes.isEmpty() )
         {
-            final ArtifactFilter includeFilter = new PatternIncludesArtifactFilter( includes, actTransitively );
+            final ArtifactFilter includeFilter = IndexedPatternArtifactFilter.includes( includes, actTransitively );
 
             filter.add( includeFilter );
 
@@ -120,7 +118,7 @@ public final class FilterUtils
 
         if ( !excludes.isEmpty() )
         {
-            final ArtifactFilter excludeFilter = new PatternExcludesArtifactFilter( excludes, actTransitively );
+            final ArtifactFilter excludeFilter = IndexedPatternArtifactFilter.excludes( excludes, actTransitively );
 
             filter.add( excludeFilter );
 
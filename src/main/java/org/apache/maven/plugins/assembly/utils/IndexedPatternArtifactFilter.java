@@ -0,0 +1,655 @@
+package org.apache.maven.plugins.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.shared.artifact.filter.StatisticsReportingArtifactFilter;
+import org.codehaus.plexus.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Drop-in replacement for <code>PatternIncludesArtifactFilter</code> and <code>PatternExcludesArtifactFilter</code>,
+ * matching artifacts the same way and reporting the same statistics. The patterns are compiled once and indexed by
+ * their group and artifact tokens, so an artifact is only matched against the patterns that can possibly match it.
+ * Matches of dependency trail entries are remembered, as the same entries occur in the trails of many artifacts.
+ *
+ * @since 3.1.1
+ */
+final class IndexedPatternArtifactFilter
+    implements ArtifactFilter, StatisticsReportingArtifactFilter
+{
+    private final boolean exclusion;
+
+    private final boolean actTransitively;
+
+    private final List<String> positivePatterns = new ArrayList<>();
+
+    private final List<String> negativePatterns = new ArrayList<>();
+
+    private final PatternIndex positiveIndex;
+
+    private final PatternIndex negativeIndex;
+
+    private final Set<String> patternsTriggered = new HashSet<>();
+
+    private final List<String> filteredArtifactIds = new ArrayList<>();
+
+    private IndexedPatternArtifactFilter( final Collection<String> patterns, final boolean actTransitively,
+                                          final boolean exclusion )
+    {
+        this.exclusion = exclusion;
+        this.actTransitively = actTransitively;
+
+        if ( patterns != null )
+        {
+            for ( final String pattern : patterns )
+            {
+                if ( pattern.startsWith( "!" ) )
+                {
+                    negativePatterns.add( pattern.substring( 1 ) );
+                }
+                else
+                {
+                    positivePatterns.add( pattern );
+                }
+            }
+        }
+
+        positiveIndex = positivePatterns.isEmpty() ? null : new PatternIndex( positivePatterns );
+        negativeIndex = negativePatterns.isEmpty() ? null : new PatternIndex( negativePatterns );
+    }
+
+    /**
+     * @param patterns The include patterns.
+     * @param actTransitively Whether an artifact is also included when an entry of its dependency trail matches.
+     * @return A filter including the artifacts matching the patterns.
+     */
+    static IndexedPatternArtifactFilter includes( final Collection<String> patterns, final boolean actTransitively )
+    {
+        return new IndexedPatternArtifactFilter( patterns, actTransitively, false );
+    }
+
+    /**
+     * @param patterns The exclude patterns.
+     * @param actTransitively Whether an artifact is also excluded when an entry of its dependency trail matches.
+     * @return A filter excluding the artifacts matching the patterns.
+     */
+    static IndexedPatternArtifactFilter excludes( final Collection<String> patterns, final boolean actTransitively )
+    {
+        return new IndexedPatternArtifactFilter( patterns, actTransitively, true );
+    }
+
+    @Override
+    public boolean include( final Artifact artifact )
+    {
+        final boolean matches = patternMatches( artifact );
+        final boolean include = exclusion ? !matches : matches;
+        if ( !include )
+        {
+            filteredArtifactIds.add( artifact.getId() );
+        }
+
+        return include;
+    }
+
+    private boolean patternMatches( final Artifact artifact )
+    {
+        if ( positiveIndex != null && match( artifact, positiveIndex ) )
+        {
+            return true;
+        }
+
+        return negativeIndex != null && !match( artifact, negativeIndex );
+    }
+
+    private boolean match( final Artifact artifact, final PatternIndex index )
+    {
+        final String shortId = ArtifactUtils.versionlessKey( artifact );
+        final String id = artifact.getDependencyConflictId();
+        final String wholeId = artifact.getId();
+
+        if ( matchAgainst( wholeId, index, false ) || matchAgainst( id, index, false )
+            || matchAgainst( shortId, index, false ) )
+        {
+            return true;
+        }
+
+        if ( actTransitively )
+        {
+            final List<String> depTrail = artifact.getDependencyTrail();
+            if ( depTrail != null && depTrail.size() > 1 )
+            {
+                for ( final String trailItem : depTrail )
+                {
+                    if ( matchAgainst( trailItem, index, true ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private boolean matchAgainst( final String value, final PatternIndex index, final boolean regionMatch )
+    {
+        final int matched = regionMatch ? index.firstTrailMatch( value ) : index.firstMatch( value );
+        if ( matched < 0 )
+        {
+            return false;
+        }
+
+        patternsTriggered.add( index.patterns[matched].pattern );
+        return true;
+    }
+
+    @Override
+    public void reportMissedCriteria( final Logger logger )
+    {
+        // if there are no patterns, there is nothing to report.
+        if ( !positivePatterns.isEmpty() || !negativePatterns.isEmpty() )
+        {
+            final List<String> missed = getMissedPatterns();
+            if ( !missed.isEmpty() && logger.isWarnEnabled() )
+            {
+                final StringBuilder buffer = new StringBuilder();
+
+                buffer.append( "The following patterns were never triggered in this " );
+                buffer.append( getFilterDescription() );
+                buffer.append( ':' );
+
+                for ( final String pattern : missed )
+                {
+                    buffer.append( "\no  '" ).append( pattern ).append( "'" );
+                }
+
+                buffer.append( "\n" );
+
+                logger.warn( buffer.toString() );
+            }
+        }
+    }
+
+    @Override
+    public void reportFilteredArtifacts( final Logger logger )
+    {
+        if ( !filteredArtifactIds.isEmpty() && logger.isDebugEnabled() )
+        {
+            final StringBuilder buffer =
+                new StringBuilder( "The following artifacts were removed by this " + getFilterDescription() + ": " );
+
+            for ( final String artifactId : filteredArtifactIds )
+            {
+                buffer.append( '\n' ).append( artifactId );
+            }
+
+            logger.debug( buffer.toString() );
+        }
+    }
+
+    @Override
+    public boolean hasMissedCriteria()
+    {
+        // if there are no patterns, there is nothing to report.
+        return ( !positivePatterns.isEmpty() || !negativePatterns.isEmpty() ) && !getMissedPatterns().isEmpty();
+    }
+
+    private List<String> getMissedPatterns()
+    {
+        final List<String> missed = new ArrayList<>();
+        missed.addAll( positivePatterns );
+        missed.addAll( negativePatterns );
+
+        missed.removeAll( patternsTriggered );
+        return missed;
+    }
+
+    private String getFilterDescription()
+    {
+        return exclusion ? "artifact exclusion filter" : "artifact inclusion filter";
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder buffer = new StringBuilder( exclusion ? "Excludes filter:" : "Includes filter:" );
+        for ( final String pattern : positivePatterns )
+        {
+            buffer.append( "\no '" ).append( pattern ).append( "'" );
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * The patterns of one polarity, in declaration order, with indexes by their first two tokens.
+     */
+    private static final class PatternIndex
+    {
+        private static final int CLASSIFIER_TOKENS = 5;
+
+        private final CompiledPattern[] patterns;
+
+        /**
+         * Matching of values without classifier ends at the first five-token pattern requiring a classifier.
+         */
+        private final int shortValueLimit;
+
+        private final Map<String, BitSet> byGroupAndArtifact = new HashMap<>();
+
+        private final Map<String, BitSet> byGroup = new HashMap<>();
+
+        private final Map<String, BitSet> byGroupPrefix = new HashMap<>();
+
+        private final Set<Integer> groupPrefixLengths = new TreeSet<>();
+
+        private final Map<String, BitSet> byGroupSuffix = new HashMap<>();
+
+        private final Set<Integer> groupSuffixLengths = new TreeSet<>();
+
+        private final Map<String, BitSet> byArtifact = new HashMap<>();
+
+        private final Set<Integer> artifactPatternLengths = new TreeSet<>();
+
+        private final BitSet unindexed = new BitSet();
+
+        private final Map<String, Integer> trailMatches = new HashMap<>();
+
+        PatternIndex( final List<String> patternList )
+        {
+            patterns = new CompiledPattern[patternList.size()];
+
+            int limit = patterns.length;
+            for ( int i = 0; i < patterns.length; i++ )
+            {
+                final CompiledPattern pattern = new CompiledPattern( patternList.get( i ) );
+                patterns[i] = pattern;
+
+                if ( pattern.tokens.length == CLASSIFIER_TOKENS && pattern.shortTokens == null && limit > i )
+                {
+                    limit = i;
+                }
+
+                addToIndex( pattern, i );
+            }
+
+            shortValueLimit = limit;
+        }
+
+        private void addToIndex( final CompiledPattern pattern, final int position )
+        {
+            final TokenMatcher[] tokens = pattern.tokens;
+            if ( tokens.length == 0 )
+            {
+                unindexed.set( position );
+                return;
+            }
+
+            final TokenMatcher group = tokens[0];
+            final TokenMatcher artifact = tokens.length > 1 ? tokens[1] : null;
+
+            if ( group.kind == TokenMatcher.EXACT && artifact != null && artifact.kind == TokenMatcher.EXACT )
+            {
+                add( byGroupAndArtifact, group.text + ":" + artifact.text, position );
+            }
+            else if ( group.kind == TokenMatcher.EXACT )
+            {
+                add( byGroup, group.text, position );
+            }
+            else if ( group.kind == TokenMatcher.STARTS )
+            {
+                add( byGroupPrefix, group.text, position );
+                groupPrefixLengths.add( group.text.length() );
+            }
+            else if ( group.kind == TokenMatcher.ENDS )
+            {
+                add( byGroupSuffix, group.text, position );
+                groupSuffixLengths.add( group.text.length() );
+            }
+            else if ( group.kind == TokenMatcher.ANY && artifact != null && artifact.kind == TokenMatcher.EXACT )
+            {
+                // a leading '*' may also align the pattern with the end of the value
+                add( byArtifact, artifact.text, position );
+                artifactPatternLengths.add( tokens.length );
+            }
+            else
+            {
+                unindexed.set( position );
+            }
+        }
+
+        private static void add( final Map<String, BitSet> index, final String key, final int position )
+        {
+            BitSet positions = index.get( key );
+            if ( positions == null )
+            {
+                positions = new BitSet();
+                index.put( key, positions );
+            }
+            positions.set( position );
+        }
+
+        /**
+         * @return The position of the first pattern matching the value, or -1.
+         */
+        int firstMatch( final String value )
+        {
+            final String[] tokens = value.split( ":" );
+            final int limit = tokens.length < CLASSIFIER_TOKENS ? shortValueLimit : patterns.length;
+
+            final BitSet candidates = getCandidates( tokens );
+            for ( int i = candidates.nextSetBit( 0 ); i >= 0 && i < limit; i = candidates.nextSetBit( i + 1 ) )
+            {
+                if ( patterns[i].matches( value, tokens, false ) )
+                {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Dependency trail entries also match patterns they contain, so every pattern is a candidate. The result only
+         * depends on the entry, and is remembered.
+         *
+         * @return The position of the first pattern matching the trail entry, or -1.
+         */
+        int firstTrailMatch( final String value )
+        {
+            Integer matched = trailMatches.get( value );
+            if ( matched == null )
+            {
+                matched = -1;
+
+                final String[] tokens = value.split( ":" );
+                final int limit = tokens.length < CLASSIFIER_TOKENS ? shortValueLimit : patterns.length;
+                for ( int i = 0; i < limit; i++ )
+                {
+                    if ( patterns[i].matches( value, tokens, true ) )
+                    {
+                        matched = i;
+                        break;
+                    }
+                }
+
+                trailMatches.put( value, matched );
+            }
+
+            return matched;
+        }
+
+        private BitSet getCandidates( final String[] tokens )
+        {
+            final BitSet candidates = (BitSet) unindexed.clone();
+            if ( tokens.length == 0 )
+            {
+                return candidates;
+            }
+
+            final String group = tokens[0];
+            or( candidates, byGroup.get( group ) );
+            if ( tokens.length > 1 )
+            {
+                or( candidates, byGroupAndArtifact.get( group + ":" + tokens[1] ) );
+                or( candidates, byArtifact.get( tokens[1] ) );
+            }
+
+            for ( final int length : artifactPatternLengths )
+            {
+                if ( length < tokens.length )
+                {
+                    or( candidates, byArtifact.get( tokens[tokens.length - length + 1] ) );
+                }
+            }
+
+            for ( final int length : groupPrefixLengths )
+            {
+                if ( length > group.length() )
+                {
+                    break;
+                }
+                or( candidates, byGroupPrefix.get( group.substring( 0, length ) ) );
+            }
+
+            for ( final int length : groupSuffixLengths )
+            {
+                if ( length > group.length() )
+                {
+                    break;
+                }
+                or( candidates, byGroupSuffix.get( group.substring( group.length() - length ) ) );
+            }
+
+            return candidates;
+        }
+
+        private static void or( final BitSet candidates, final BitSet positions )
+        {
+            if ( positions != null )
+            {
+                candidates.or( positions );
+            }
+        }
+    }
+
+    /**
+     * A pattern split into its <code>groupId:artifactId:type:classifier:version</code> tokens.
+     */
+    private static final class CompiledPattern
+    {
+        private final String pattern;
+
+        private final TokenMatcher[] tokens;
+
+        /**
+         * The tokens used for values without classifier; <code>null</code> if the classifier of a five-token pattern
+         * is not a wildcard.
+         */
+        private final TokenMatcher[] shortTokens;
+
+        private final boolean firstTokenWildcard;
+
+        CompiledPattern( final String pattern )
+        {
+            this.pattern = pattern;
+
+            final String[] split = pattern.split( ":" );
+            tokens = new TokenMatcher[split.length];
+            for ( int i = 0; i < split.length; i++ )
+            {
+                tokens[i] = new TokenMatcher( split[i] );
+            }
+
+            if ( split.length != PatternIndex.CLASSIFIER_TOKENS )
+            {
+                shortTokens = tokens;
+            }
+            else if ( "*".equals( split[3] ) )
+            {
+                shortTokens = new TokenMatcher[] { tokens[0], tokens[1], tokens[2], tokens[4] };
+            }
+            else
+            {
+                shortTokens = null;
+            }
+
+            firstTokenWildcard = split.length > 0 && "*".equals( split[0] );
+        }
+
+        boolean matches( final String value, final String[] valueTokens, final boolean regionMatch )
+        {
+            final TokenMatcher[] patternTokens =
+                valueTokens.length < PatternIndex.CLASSIFIER_TOKENS ? shortTokens : tokens;
+
+            boolean matched = patternTokens.length <= valueTokens.length;
+            for ( int i = 0; matched && i < patternTokens.length; i++ )
+            {
+                matched = patternTokens[i].matches( valueTokens[i] );
+            }
+
+            // a leading wildcard also matches the trailing tokens, like '*:jar:*'
+            if ( !matched && patternTokens.length < valueTokens.length && firstTokenWildcard )
+            {
+                matched = true;
+                final int offset = valueTokens.length - patternTokens.length;
+                for ( int i = 0; matched && i < patternTokens.length; i++ )
+                {
+                    matched = patternTokens[i].matches( valueTokens[i + offset] );
+                }
+            }
+
+            return matched || ( regionMatch && value.contains( pattern ) );
+        }
+    }
+
+    /**
+     * Matches a single token, supporting wildcards and version ranges.
+     */
+    private static final class TokenMatcher
+    {
+        static final int ANY = 0;
+
+        static final int CONTAINS = 1;
+
+        static final int ENDS = 2;
+
+        static final int STARTS = 3;
+
+        static final int PARTS = 4;
+
+        static final int RANGE = 5;
+
+        static final int EXACT = 6;
+
+        private final int kind;
+
+        private final String text;
+
+        private final String[] parts;
+
+        private final VersionRange range;
+
+        TokenMatcher( final String pattern )
+        {
+            String matchText = pattern;
+            String[] matchParts = null;
+            VersionRange matchRange = null;
+
+            if ( "*".equals( pattern ) || pattern.length() == 0 )
+            {
+                kind = ANY;
+            }
+            else if ( pattern.startsWith( "*" ) && pattern.endsWith( "*" ) )
+            {
+                kind = CONTAINS;
+                matchText = pattern.substring( 1, pattern.length() - 1 );
+            }
+            else if ( pattern.startsWith( "*" ) )
+            {
+                kind = ENDS;
+                matchText = pattern.substring( 1 );
+            }
+            else if ( pattern.endsWith( "*" ) )
+            {
+                kind = STARTS;
+                matchText = pattern.substring( 0, pattern.length() - 1 );
+            }
+            else if ( pattern.indexOf( '*' ) > -1 )
+            {
+                kind = PARTS;
+                matchParts = pattern.split( "\\*" );
+            }
+            else if ( pattern.startsWith( "[" ) || pattern.startsWith( "(" ) )
+            {
+                kind = RANGE;
+                try
+                {
+                    matchRange = VersionRange.createFromVersionSpec( pattern );
+                }
+                catch ( final InvalidVersionSpecificationException e )
+                {
+                    // an invalid range matches no version
+                    matchRange = null;
+                }
+            }
+            else
+            {
+                kind = EXACT;
+            }
+
+            text = matchText;
+            parts = matchParts;
+            range = matchRange;
+        }
+
+        boolean matches( final String token )
+        {
+            switch ( kind )
+            {
+                case ANY:
+                    return true;
+                case CONTAINS:
+                    return token.contains( text );
+                case ENDS:
+                    return token.endsWith( text );
+                case STARTS:
+                    return token.startsWith( text );
+                case PARTS:
+                    return matchesParts( token );
+                case RANGE:
+                    return range != null && range.containsVersion( new DefaultArtifactVersion( token ) );
+                default:
+                    return token.equals( text );
+            }
+        }
+
+        private boolean matchesParts( final String token )
+        {
+            int lastPartEnd = -1;
+            for ( final String part : parts )
+            {
+                final int index = token.indexOf( part );
+                if ( index <= lastPartEnd )
+                {
+                    return false;
+                }
+                lastPartEnd = index + part.length();
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.apache.maven.plugins.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An output directory or file name mapping expression, parsed once into literal segments and <code>${...}</code>
+ * expressions the same way {@link FixedStringSearchInterpolator} does. Evaluating it asks a {@link Resolver} for the
+ * value of each expression, and only creates the interpolator chain for expressions the resolver cannot answer
+ * directly.
+ *
+ * @since 3.1.1
+ */
+final class MappingTemplate
+{
+    private static final String START_EXPR = "${";
+
+    private static final String END_EXPR = "}";
+
+    private static final int MAX_CACHED_TEMPLATES = 256;
+
+    private static final Map<String, MappingTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private static final MappingTemplate EMPTY = new MappingTemplate( "" );
+
+    /**
+     * The literal text before each expression, followed by the text after the last expression.
+     */
+    private final String[] literals;
+
+    /**
+     * The expressions including their delimiters.
+     */
+    private final String[] expressions;
+
+    /**
+     * The expressions without delimiters and leading dot, as passed to the value sources.
+     */
+    private final String[] properties;
+
+    private MappingTemplate( final String expression )
+    {
+        final List<String> literalList = new ArrayList<>();
+        final List<String> expressionList = new ArrayList<>();
+        final List<String> propertyList = new ArrayList<>();
+
+        int pos = 0;
+        int start = expression.indexOf( START_EXPR );
+        while ( start > -1 )
+        {
+            final int end = expression.indexOf( END_EXPR, start + 1 );
+            if ( end < 0 )
+            {
+                break;
+            }
+
+            literalList.add( expression.substring( pos, start ) );
+            expressionList.add( expression.substring( start, end + END_EXPR.length() ) );
+
+            String property = expression.substring( start + START_EXPR.length(), end );
+            if ( property.startsWith( "." ) )
+            {
+                property = property.substring( 1 );
+            }
+            propertyList.add( property );
+
+            pos = end + END_EXPR.length();
+            start = expression.indexOf( START_EXPR, pos );
+        }
+        literalList.add( expression.substring( pos ) );
+
+        literals = literalList.toArray( new String[literalList.size()] );
+        expressions = expressionList.toArray( new String[expressionList.size()] );
+        properties = propertyList.toArray( new String[propertyList.size()] );
+    }
+
+    /**
+     * @param expression The expression, may be <code>null</code>, which is evaluated as an empty string.
+     * @return The parsed expression.
+     */
+    static MappingTemplate compile( final String expression )
+    {
+        if ( expression == null )
+        {
+            return EMPTY;
+        }
+
+        MappingTemplate template = TEMPLATES.get( expression );
+        if ( template == null )
+        {
+            if ( TEMPLATES.size() >= MAX_CACHED_TEMPLATES )
+            {
+                TEMPLATES.clear();
+            }
+
+            template = new MappingTemplate( expression );
+            TEMPLATES.put( expression, template );
+        }
+        return template;
+    }
+
+    /**
+     * @return <code>true</code> if the expression contains no <code>${...}</code> expressions.
+     */
+    boolean isLiteral()
+    {
+        return expressions.length == 0;
+    }
+
+    /**
+     * @param resolver Resolves the expressions.
+     * @return The interpolated expression.
+     */
+    String evaluate( final Resolver resolver )
+    {
+        if ( isLiteral() )
+        {
+            return literals[0];
+        }
+
+        FixedStringSearchInterpolator interpolator = null;
+
+        final StringBuilder result = new StringBuilder();
+        for ( int i = 0; i < expressions.length; i++ )
+        {
+            result.append( literals[i] );
+
+            final String value = resolver.getValue( properties[i] );
+            if ( value != null && !value.contains( START_EXPR ) )
+            {
+                result.append( value );
+            }
+            else
+            {
+                // values referring to other expressions are interpolated recursively by the interpolator
+                if ( interpolator == null )
+                {
+                    interpolator = resolver.createInterpolator();
+                }
+                result.append( interpolator.interpolate( expressions[i] ) );
+            }
+        }
+        result.append( literals[expressions.length] );
+
+        return result.toString();
+    }
+
+    /**
+     * Supplies the values of the expressions of a template.
+     */
+    abstract static class Resolver
+    {
+        /**
+         * @param property The expression without delimiters.
+         * @return The value the interpolator would resolve the expression to, or <code>null</code> to let the
+         *         interpolator resolve it.
+         */
+        abstract String getValue( String property );
+
+        /**
+         * @return The interpolator resolving the expressions {@link #getValue(String)} does not resolve.
+         */
+        abstract FixedStringSearchInterpolator createInterpolator();
+    }
+}
@@ -27,10 +27,13 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -60,127 +63,143 @@ public final class ProjectUtils
                                                        final boolean includeSubModules, @Nonnull final Logger logger )
         throws IOException
     {
-        final Set<MavenProject> singleParentSet = Collections.singleton( project );
-
-        final Set<MavenProject> moduleCandidates = new LinkedHashSet<>( reactorProjects );
+        // index the projects by the canonical directories they declare as modules, so finding the parents of a
+        // candidate takes two lookups instead of canonicalizing every module entry of every potential parent
+        final Map<File, List<MavenProject>> declaringProjects = new HashMap<>();
+        final Map<String, File> canonicalFiles = new HashMap<>();
+        final Set<MavenProject> potentialParents = new LinkedHashSet<>();
+        potentialParents.add( project );
+        if ( includeSubModules )
+        {
+            potentialParents.addAll( reactorProjects );
+        }
 
-        final Set<MavenProject> modules = new LinkedHashSet<>();
+        for ( final MavenProject potentialParent : potentialParents )
+        {
+            if ( potentialParent.getFile() == null )
+            {
+                // other projects without a POM file cannot be modules in the first place
+                if ( potentialParent == project )
+                {
+                    logger.warn( "Cannot use: " + potentialParent.getId()
+                                     + " as a potential module-parent while computing the module set for: "
+                                     + project.getId()
+                                     + "; it does not have an associated POM file on the local filesystem." );
+                }
+                continue;
+            }
 
-        // we temporarily add the master project to the modules set, since this
-        // set is pulling double duty as a set of
-        // potential module parents in the tree rooted at the master
-        // project...this allows us to use the same looping
-        // algorithm below to discover both direct modules of the master project
-        // AND modules of those direct modules.
-        modules.add( project );
+            final File basedir = potentialParent.getBasedir();
+            for ( final String moduleSubpath : potentialParent.getModules() )
+            {
+                final File moduleDir = getCanonicalFile( new File( basedir, moduleSubpath ), canonicalFiles );
 
-        int changed;
+                List<MavenProject> declaring = declaringProjects.get( moduleDir );
+                if ( declaring == null )
+                {
+                    declaring = new ArrayList<>( 1 );
+                    declaringProjects.put( moduleDir, declaring );
+                }
+                declaring.add( potentialParent );
+            }
+        }
 
-        do
+        final Map<MavenProject, List<MavenProject>> candidateParents = new LinkedHashMap<>();
+        for ( final MavenProject moduleCandidate : reactorProjects )
         {
-            changed = 0;
+            if ( moduleCandidate.getFile() == null )
+            {
+                logger.warn(
+                    "Cannot compute whether " + moduleCandidate.getId() + " is a module of: " + project.getId()
+                        + "; it does not have an associated POM file on the local filesystem." );
+                continue;
+            }
 
-            for ( final Iterator<MavenProject> candidateIterator = moduleCandidates.iterator();
-                  candidateIterator.hasNext(); )
+            final List<MavenProject> parents = new ArrayList<>( 1 );
+            addAll( parents, declaringProjects.get( getCanonicalFile( moduleCandidate.getFile(), canonicalFiles ) ) );
+            addAll( parents, declaringProjects.get( getCanonicalFile( getBasedir( moduleCandidate ), canonicalFiles ) ) );
+            if ( !parents.isEmpty() )
             {
-                final MavenProject moduleCandidate = candidateIterator.next();
+                candidateParents.put( moduleCandidate, parents );
+            }
+        }
 
-                if ( moduleCandidate.getFile() == null )
-                {
-                    logger.warn(
-                        "Cannot compute whether " + moduleCandidate.getId() + " is a module of: " + project.getId()
-                            + "; it does not have an associated POM file on the local filesystem." );
-                    continue;
-                }
+        // walk the module tree down from the master project. Candidates are visited in reactor order and parents
+        // declared later in the reactor are caught up with by another pass, keeping the order of the result.
+        final Set<MavenProject> modules = new LinkedHashSet<>();
 
-                Set<MavenProject> currentPotentialParents;
-                if ( includeSubModules )
-                {
-                    currentPotentialParents = new LinkedHashSet<>( modules );
-                }
-                else
-                {
-                    currentPotentialParents = singleParentSet;
-                }
+        // the master project is temporarily part of the modules, as the parent of its direct modules
+        modules.add( project );
 
-                for ( final MavenProject potentialParent : currentPotentialParents )
-                {
-                    if ( potentialParent.getFile() == null )
-                    {
-                        logger.warn( "Cannot use: " + moduleCandidate.getId()
-                                         + " as a potential module-parent while computing the module set for: "
-                                         + project.getId()
-                                         + "; it does not have an associated POM file on the local filesystem." );
-                        continue;
-                    }
+        boolean changed;
+        do
+        {
+            changed = false;
 
-                    // if this parent has an entry for the module candidate in
-                    // the path adjustments map, it's a direct
-                    // module of that parent.
-                    if ( projectContainsModule( potentialParent, moduleCandidate ) )
+            for ( final Iterator<Map.Entry<MavenProject, List<MavenProject>>> it =
+                      candidateParents.entrySet().iterator(); it.hasNext(); )
+            {
+                final Map.Entry<MavenProject, List<MavenProject>> candidate = it.next();
+                for ( final MavenProject parent : candidate.getValue() )
+                {
+                    if ( modules.contains( parent ) )
                     {
-                        // add the candidate to the list of modules (and
-                        // potential parents)
-                        modules.add( moduleCandidate );
-
-                        // remove the candidate from the candidate pool, because
-                        // it's been verified.
-                        candidateIterator.remove();
-
-                        // increment the change counter, to show that we
-                        // verified a new module on this pass.
-                        changed++;
-                        
-                        // We need to move on to the next candidate since this one was just verified
+                        modules.add( candidate.getKey() );
+                        it.remove();
+                        changed = true;
                         break;
                     }
                 }
             }
         }
-        while ( changed != 0 );
+        while ( changed );
 
-        // remove the master project from the modules set, now that we're done
-        // using it as a set of potential module
-        // parents...
         modules.remove( project );
 
         return modules;
     }
 
-    private static boolean projectContainsModule( @Nonnull final MavenProject mainProject,
-                                                  @Nonnull final MavenProject moduleProject )
-        throws IOException
+    private static void addAll( final List<MavenProject> target, final List<MavenProject> projects )
     {
-        final List<String> modules = mainProject.getModules();
-        final File basedir = mainProject.getBasedir();
-
-        final File moduleFile = moduleProject.getFile().getCanonicalFile();
+        if ( projects != null )
+        {
+            target.addAll( projects );
+        }
+    }
 
-        File moduleBasedir = moduleProject.getBasedir();
+    private static File getBasedir( final MavenProject project )
+    {
+        File basedir = project.getBasedir();
 
-        if ( moduleBasedir == null )
+        if ( basedir == null )
         {
-            moduleBasedir = moduleFile.getParentFile();
+            basedir = project.getFile().getAbsoluteFile().getParentFile();
 
-            if ( moduleBasedir == null )
+            if ( basedir == null )
             {
-                moduleBasedir = new File( "." );
+                basedir = new File( "." );
             }
         }
 
-        moduleBasedir = moduleBasedir.getCanonicalFile();
+        return basedir;
+    }
 
-        for ( final String moduleSubpath : modules )
+    /**
+     * Canonicalizing needs file system calls for every path element, so each path is only canonicalized once while
+     * the modules of a project are computed. The cache does not outlive the call, so that later builds in the same
+     * JVM see the links and directories as they are then.
+     */
+    private static File getCanonicalFile( final File file, final Map<String, File> canonicalFiles )
+        throws IOException
+    {
+        final String path = file.getAbsolutePath();
+        File canonical = canonicalFiles.get( path );
+        if ( canonical == null )
         {
-            final File moduleDir = new File( basedir, moduleSubpath ).getCanonicalFile();
-
-            if ( moduleDir.equals( moduleFile ) || moduleDir.equals( moduleBasedir ) )
-            {
-                return true;
-            }
+            canonical = file.getCanonicalFile();
+            canonicalFiles.put( path, canonical );
         }
-
-        return false;
+        return canonical;
     }
 
 }
@@ -19,17 +19,27 @@ package org.apache.maven.plugins.assembly.archive.archiver;
  * under the License.
  */
 
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.maven.plugins.assembly.filter.ClassRelocationHandler;
+import org.apache.maven.plugins.assembly.filter.ContainerDescriptorHandler;
+import org.apache.maven.plugins.assembly.filter.Relocation;
 import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.archiver.ArchivedFileSet;
 import org.codehaus.plexus.archiver.Archiver;
 import org.codehaus.plexus.archiver.ArchiverException;
 import org.codehaus.plexus.archiver.diags.TrackingArchiver;
 import org.codehaus.plexus.archiver.jar.JarArchiver;
 import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
 import org.codehaus.plexus.components.io.fileselectors.FileInfo;
 import org.codehaus.plexus.components.io.fileselectors.FileSelector;
 import org.codehaus.plexus.logging.Logger;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
 import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
 import org.easymock.EasyMock;
 import org.easymock.classextension.EasyMockSupport;
 import org.junit.AfterClass;
@@ -37,9 +47,13 @@ import org.junit.Test;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.easymock.EasyMock.anyObject;
 import static org.junit.Assert.assertEquals;
@@ -177,6 +191,104 @@ public class AssemblyProxyArchiverTest
         assertEquals( 1, counter.getCount() );
     }
 
+    @Test
+    public void addFileSet_RelocatesEntriesBelowPrefix()
+        throws IOException, ArchiverException
+    {
+        final Archiver delegate = new JarArchiver();
+
+        final File output = fileManager.createTempFile();
+
+        delegate.setDestFile( output );
+
+        final AssemblyProxyArchiver archiver = newRelocatingArchiver( delegate );
+
+        final File classes = fileManager.createTempDir();
+        fileManager.createFile( classes, "com/acme/Foo.class", "not a class file" );
+        final File services = fileManager.createTempDir();
+        fileManager.createFile( services, "com.acme.Spi", "com.acme.Impl\n" );
+
+        archiver.addFileSet( DefaultFileSet.fileSet( classes ).prefixed( "WEB-INF/classes/" ) );
+        archiver.addFileSet( DefaultFileSet.fileSet( services ).prefixed( "META-INF/services/" ) );
+
+        archiver.createArchive();
+
+        try ( ZipFile zip = new ZipFile( output ) )
+        {
+            assertNotNull( zip.getEntry( "WEB-INF/classes/shaded/com/acme/Foo.class" ) );
+
+            final ZipEntry service = zip.getEntry( "META-INF/services/shaded.com.acme.Spi" );
+            assertNotNull( service );
+            assertEquals( "shaded.com.acme.Impl\n", IOUtil.toString( zip.getInputStream( service ), "UTF-8" ) );
+        }
+    }
+
+    @Test
+    public void addArchivedFileSet_AddsOtherArchivesUnchangedWhenRelocating()
+        throws IOException
+    {
+        final File archive = new File( fileManager.createTempDir(), "classes.tar" );
+        try ( TarArchiveOutputStream tar = new TarArchiveOutputStream( new FileOutputStream( archive ) ) )
+        {
+            final TarArchiveEntry entry = new TarArchiveEntry( "com/acme/Foo.class" );
+            entry.setSize( 3 );
+            tar.putArchiveEntry( entry );
+            tar.write( "foo".getBytes( "UTF-8" ) );
+            tar.closeArchiveEntry();
+        }
+
+        final TrackingArchiver tracker = new TrackingArchiver();
+        newRelocatingArchiver( tracker ).addArchivedFileSet( archive );
+
+        assertEquals( 1, tracker.added.size() );
+        assertEquals( archive, ( (ArchivedFileSet) tracker.added.get( 0 ).resource ).getArchive() );
+    }
+
+    @Test
+    public void addArchivedFileSet_KeepsUnixModesOfZipFilesWhenRelocating()
+        throws IOException
+    {
+        final File archive = new File( fileManager.createTempDir(), "bin.zip" );
+        try ( ZipArchiveOutputStream zip = new ZipArchiveOutputStream( archive ) )
+        {
+            final ZipArchiveEntry entry = new ZipArchiveEntry( "bin/run.sh" );
+            entry.setUnixMode( 0100755 );
+            zip.putArchiveEntry( entry );
+            zip.write( "#!/bin/sh".getBytes( "UTF-8" ) );
+            zip.closeArchiveEntry();
+        }
+
+        final Archiver delegate = new ZipArchiver();
+        final File output = fileManager.createTempFile();
+        delegate.setDestFile( output );
+
+        final AssemblyProxyArchiver archiver = newRelocatingArchiver( delegate );
+        archiver.addArchivedFileSet( archive );
+        archiver.createArchive();
+
+        try ( org.apache.commons.compress.archivers.zip.ZipFile zip =
+            new org.apache.commons.compress.archivers.zip.ZipFile( output ) )
+        {
+            assertEquals( 0755, zip.getEntry( "bin/run.sh" ).getUnixMode() & 0777 );
+        }
+    }
+
+    private static AssemblyProxyArchiver newRelocatingArchiver( final Archiver delegate )
+    {
+        final Relocation relocation = new Relocation();
+        relocation.setPattern( "com.acme" );
+        relocation.setShadedPattern( "shaded.com.acme" );
+
+        final ClassRelocationHandler handler = new ClassRelocationHandler();
+        handler.setRelocations( Collections.singletonList( relocation ) );
+
+        final AssemblyProxyArchiver archiver =
+            new AssemblyProxyArchiver( "", delegate, Collections.<ContainerDescriptorHandler>singletonList( handler ),
+                                       null, null, new File( "." ), logger );
+        archiver.setForced( true );
+        return archiver;
+    }
+
     private static final class CounterSelector
         implements FileSelector
     {
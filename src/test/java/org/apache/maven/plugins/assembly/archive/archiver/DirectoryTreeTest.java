@@ -0,0 +1,120 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DirectoryTreeTest
+    extends TestCase
+{
+
+    private TestFileManager fileManager;
+
+    private File dir;
+
+    @Override
+    public void setUp()
+        throws IOException
+    {
+        fileManager = new TestFileManager( "directory-tree.test.", "" );
+        dir = fileManager.createTempDir();
+        fileManager.createFile( dir, "sub/a.txt", "a" );
+        setOld( new File( dir, "sub" ), 1 );
+        setOld( dir, 1 );
+    }
+
+    @Override
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldKeepListingOfUnmodifiedDirectory()
+    {
+        final DirectoryTree tree = DirectoryTree.of( dir.toPath() );
+        final List<DirectoryTree> children = tree.getChildren();
+
+        assertEquals( Collections.singletonList( "sub" ), getNames( children ) );
+        assertTrue( children.get( 0 ).isDirectory() );
+        assertSame( children, tree.getChildren() );
+    }
+
+    public void testShouldListModifiedDirectoryAgainKeepingUnchangedSubdirectories()
+        throws IOException
+    {
+        final DirectoryTree tree = DirectoryTree.of( dir.toPath() );
+        final DirectoryTree sub = tree.getChildren().get( 0 );
+        final List<DirectoryTree> subChildren = sub.getChildren();
+
+        fileManager.createFile( dir, "b.txt", "b" );
+        setOld( dir, 2 );
+
+        final List<DirectoryTree> children = tree.getChildren();
+        assertEquals( Arrays.asList( "b.txt", "sub" ), sorted( getNames( children ) ) );
+        assertSame( subChildren, children.get( getNames( children ).indexOf( "sub" ) ).getChildren() );
+    }
+
+    public void testShouldNotTrustListingOfRecentlyModifiedDirectory()
+        throws IOException
+    {
+        fileManager.createFile( dir, "b.txt", "b" );
+
+        final DirectoryTree tree = DirectoryTree.of( dir.toPath() );
+        final List<DirectoryTree> children = tree.getChildren();
+        assertNotSame( children, tree.getChildren() );
+    }
+
+    public void testShouldShareTreeOfCanonicalDirectory()
+    {
+        final DirectoryScans scans = new DirectoryScans();
+        assertSame( scans.getTree( dir ), scans.getTree( new File( dir, "sub/.." ) ) );
+    }
+
+    private static void setOld( final File file, final int minutes )
+    {
+        assertTrue( file.setLastModified( System.currentTimeMillis() - minutes * 60000L ) );
+    }
+
+    private static List<String> getNames( final List<DirectoryTree> trees )
+    {
+        final List<String> names = new ArrayList<>();
+        for ( final DirectoryTree tree : trees )
+        {
+            names.add( tree.getName() );
+        }
+        return names;
+    }
+
+    private static List<String> sorted( final List<String> names )
+    {
+        Collections.sort( names );
+        return names;
+    }
+
+}
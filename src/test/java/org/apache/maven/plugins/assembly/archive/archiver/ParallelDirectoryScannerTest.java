@@ -0,0 +1,129 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+public class ParallelDirectoryScannerTest
+    extends TestCase
+{
+
+    private TestFileManager fileManager;
+
+    private File dir;
+
+    @Override
+    public void setUp()
+        throws IOException
+    {
+        fileManager = new TestFileManager( "parallel-directory-scanner.test.", "" );
+        dir = fileManager.createTempDir();
+        for ( int i = 0; i < 5; i++ )
+        {
+            fileManager.createFile( dir, "module" + i + "/pom.xml", "pom" );
+            fileManager.createFile( dir, "module" + i + "/src/main/java/App" + i + ".java", "app" );
+            fileManager.createFile( dir, "module" + i + "/src/main/resources/app.properties", "app" );
+            fileManager.createFile( dir, "module" + i + "/target/classes/App" + i + ".class", "class" );
+            fileManager.createFile( dir, "module" + i + "/.svn/entries", "svn" );
+        }
+        fileManager.createFile( dir, "README.TXT", "readme" );
+        fileManager.createFile( dir, "notes.txt", "notes" );
+        assertTrue( new File( dir, "empty/nested" ).mkdirs() );
+    }
+
+    @Override
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldScanLikeDirectoryScanner()
+    {
+        assertSameScan( null, null, true, true );
+        assertSameScan( null, null, false, true );
+        assertSameScan( new String[] { "**/*.java", "**/pom.xml", "empty/" }, new String[] { "module1/**" }, true,
+                        true );
+        assertSameScan( new String[] { "*.txt", "module*/src/" }, new String[] { "**/target/**", "**/resources/**" },
+                        true, true );
+        assertSameScan( new String[] { "*.txt" }, new String[] { "MODULE2/**" }, true, false );
+    }
+
+    public void testShouldListLinkedDirectoriesButNotTheirContents()
+        throws IOException
+    {
+        try
+        {
+            Files.createSymbolicLink( new File( dir, "link" ).toPath(), new File( dir, "module0" ).toPath() );
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+            return;
+        }
+
+        assertSameScan( null, null, true, true );
+    }
+
+    public void testShouldNotEnterPrunedDirectories()
+    {
+        final DirectoryScanner scanner = new ParallelDirectoryScanner( Collections.singleton( "module1" ) );
+        scanner.setBasedir( dir );
+        scanner.setIncludes( new String[] { "module1/pom.xml", "module2/pom.xml" } );
+        scanner.scan();
+
+        assertEquals( Arrays.asList( "module2" + File.separator + "pom.xml" ),
+                      Arrays.asList( scanner.getIncludedFiles() ) );
+    }
+
+    private void assertSameScan( final String[] includes, final String[] excludes, final boolean defaultExcludes,
+                                 final boolean caseSensitive )
+    {
+        final Set<String> pruned = PrunedFileResourceCollection.getPrunedDirectories( excludes, caseSensitive );
+        final DirectoryScanner expected = new DirectoryScanner();
+        final DirectoryScanner actual = new ParallelDirectoryScanner( pruned );
+        for ( final DirectoryScanner scanner : Arrays.asList( expected, actual ) )
+        {
+            scanner.setBasedir( dir );
+            scanner.setIncludes( includes );
+            scanner.setExcludes( excludes );
+            if ( defaultExcludes )
+            {
+                scanner.addDefaultExcludes();
+            }
+            scanner.setCaseSensitive( caseSensitive );
+            scanner.setFollowSymlinks( false );
+            scanner.scan();
+        }
+
+        assertEquals( Arrays.asList( expected.getIncludedDirectories() ),
+                      Arrays.asList( actual.getIncludedDirectories() ) );
+        assertEquals( Arrays.asList( expected.getIncludedFiles() ), Arrays.asList( actual.getIncludedFiles() ) );
+    }
+
+}
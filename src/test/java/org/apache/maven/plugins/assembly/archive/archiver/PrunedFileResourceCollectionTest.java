@@ -0,0 +1,139 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.components.io.resources.PlexusIoFileResourceCollection;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+public class PrunedFileResourceCollectionTest
+    extends TestCase
+{
+
+    private TestFileManager fileManager;
+
+    @Override
+    public void setUp()
+    {
+        fileManager = new TestFileManager( "pruned-file-resources.test.", "" );
+    }
+
+    @Override
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldPruneOnlyLiteralDirectories()
+    {
+        final String[] excludes =
+            { "module/**", "modules\\nested/**", "**/target/**", "src/*/x/**", "../other/**", "./here/**", "*.txt",
+                "%regex[a/.*]/**", "Upper/**" };
+
+        assertEquals( new HashSet<>( Arrays.asList( "module", "modules/nested", "Upper" ) ),
+                      PrunedFileResourceCollection.getPrunedDirectories( excludes, true ) );
+        assertTrue( PrunedFileResourceCollection.getPrunedDirectories( excludes, false ).contains( "upper" ) );
+        assertEquals( Collections.emptySet(), PrunedFileResourceCollection.getPrunedDirectories( null, true ) );
+        assertNull( PrunedFileResourceCollection.forExcludes( new String[] { "**/*.log" }, true ) );
+    }
+
+    public void testShouldListSameResourcesAsUnprunedCollection()
+        throws IOException
+    {
+        final File dir = fileManager.createTempDir();
+        fileManager.createFile( dir, "pom.xml", "pom" );
+        fileManager.createFile( dir, "src/main/App.java", "app" );
+        fileManager.createFile( dir, "module/pom.xml", "module" );
+        fileManager.createFile( dir, "module/src/main/Module.java", "module" );
+        fileManager.createFile( dir, "modules/nested/pom.xml", "nested" );
+        fileManager.createFile( dir, "modules/README.txt", "readme" );
+        assertTrue( new File( dir, "empty" ).mkdir() );
+
+        final String[] includes = { "**/*.java", "**/pom.xml", "**/*.txt", "empty/" };
+        final String[] excludes = { "module/**", "modules/nested/**" };
+
+        final PrunedFileResourceCollection pruned = PrunedFileResourceCollection.forExcludes( excludes, true );
+        final PlexusIoFileResourceCollection plain = new PlexusIoFileResourceCollection();
+        for ( final PlexusIoFileResourceCollection collection : Arrays.asList( pruned, plain ) )
+        {
+            collection.setBaseDir( dir );
+            collection.setIncludes( includes );
+            collection.setExcludes( excludes );
+            collection.setIncludingEmptyDirectories( true );
+            collection.setPrefix( "prefix/" );
+        }
+
+        final List<String> names = getNames( pruned );
+        assertEquals( getNames( plain ), names );
+        assertEquals( Arrays.asList( "prefix/empty", "prefix/modules/README.txt", "prefix/pom.xml",
+                                     "prefix/src/main/App.java" ), names );
+    }
+
+    public void testShouldTakePrefetchedScanOnce()
+        throws IOException
+    {
+        final File dir = fileManager.createTempDir();
+        fileManager.createFile( dir, "pom.xml", "pom" );
+
+        final DefaultFileSet fileSet = new DefaultFileSet( dir );
+        fileSet.setIncludes( new String[] { "*.xml" } );
+
+        final DirectoryScans scans = new DirectoryScans();
+        scans.prefetch( fileSet );
+        assertEquals( 1, scans.size() );
+
+        fileManager.createFile( dir, "later.xml", "later" );
+
+        final PrunedFileResourceCollection collection =
+            PrunedFileResourceCollection.forExcludes( fileSet.getExcludes(), true, scans );
+        collection.setFollowingSymLinks( false );
+        collection.setBaseDir( dir );
+        collection.setIncludes( new String[] { "*.xml" } );
+
+        assertEquals( Collections.singletonList( "pom.xml" ), getNames( collection ) );
+        assertEquals( 0, scans.size() );
+        assertEquals( Arrays.asList( "later.xml", "pom.xml" ), getNames( collection ) );
+    }
+
+    private static List<String> getNames( final PlexusIoFileResourceCollection collection )
+        throws IOException
+    {
+        final List<String> names = new ArrayList<>();
+        for ( final Iterator<PlexusIoResource> it = collection.getResources(); it.hasNext(); )
+        {
+            names.add( collection.getName( it.next() ) );
+        }
+        Collections.sort( names );
+        return names;
+    }
+
+}
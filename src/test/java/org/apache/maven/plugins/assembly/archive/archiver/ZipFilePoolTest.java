@@ -0,0 +1,220 @@
+package org.apache.maven.plugins.assembly.archive.archiver;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.components.io.functions.ResourceAttributeSupplier;
+import org.codehaus.plexus.components.io.resources.PlexusIoResource;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ZipFilePoolTest
+    extends TestCase
+{
+
+    private TestFileManager fileManager;
+
+    @Override
+    public void setUp()
+    {
+        fileManager = new TestFileManager( "zip-file-pool.test.", "" );
+    }
+
+    @Override
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldShareOpenArchive()
+        throws IOException
+    {
+        final ZipFilePool pool = new ZipFilePool( ZipFilePool.DEFAULT_MAX_OPEN );
+        final File archive = createZip( "a.txt" );
+
+        final ZipFilePool.Handle first = pool.acquire( archive, null );
+        pool.release( first );
+        final ZipFilePool.Handle second = pool.acquire( archive, null );
+        pool.release( second );
+
+        assertSame( first, second );
+        assertEquals( 1, pool.getOpenCount() );
+        pool.close();
+    }
+
+    public void testShouldCloseLeastRecentlyUsedReleasedArchives()
+        throws IOException
+    {
+        final ZipFilePool pool = new ZipFilePool( 1 );
+        final File first = createZip( "a.txt" );
+        final File second = createZip( "b.txt" );
+
+        final ZipFilePool.Handle held = pool.acquire( first, null );
+        final ZipFilePool.Handle other = pool.acquire( second, null );
+        assertEquals( 2, pool.getOpenCount() );
+
+        pool.release( other );
+        assertEquals( 1, pool.getOpenCount() );
+        assertFalse( other.isOpen() );
+
+        final ZipFilePool.Handle heldAgain = pool.acquire( first, null );
+        assertSame( held, heldAgain );
+        final ZipFilePool.Handle reopened = pool.acquire( second, null );
+        assertNotSame( other, reopened );
+
+        pool.release( heldAgain );
+        pool.release( held );
+        pool.release( reopened );
+        pool.close();
+
+        assertEquals( 0, pool.getOpenCount() );
+        assertFalse( held.isOpen() );
+        assertFalse( reopened.isOpen() );
+    }
+
+    public void testShouldKeepAcquiredArchiveReadableAfterClose()
+        throws IOException
+    {
+        final ZipFilePool pool = new ZipFilePool( ZipFilePool.DEFAULT_MAX_OPEN );
+        final ZipFilePool.Handle handle = pool.acquire( createZip( "a.txt" ), null );
+
+        pool.close();
+        assertEquals( 0, pool.getOpenCount() );
+        assertEquals( "a.txt", read( handle.getZipFile().getInputStream( handle.getEntries().get( 0 ) ) ) );
+        pool.release( handle );
+
+        try
+        {
+            pool.acquire( createZip( "b.txt" ), null );
+            fail( "A closed pool must not open archives." );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+    }
+
+    public void testShouldReadResourcesFromPool()
+        throws IOException
+    {
+        final ZipFilePool pool = new ZipFilePool( ZipFilePool.DEFAULT_MAX_OPEN );
+        final File archive = createZip( "a.txt", "b/c.txt" );
+
+        final PooledZipFileResourceCollection collection = new PooledZipFileResourceCollection( pool, null );
+        collection.setFile( archive );
+        assertTrue( collection.isSupported() );
+
+        final List<String> names = new ArrayList<>();
+        final Iterator<PlexusIoResource> resources = collection.getResources();
+        while ( resources.hasNext() )
+        {
+            final PlexusIoResource resource = resources.next();
+            assertTrue( resource.isFile() );
+            assertEquals( resource.getName(), read( resource.getContents() ) );
+            names.add( resource.getName() );
+        }
+        ( (Closeable) resources ).close();
+
+        assertEquals( 2, names.size() );
+        assertEquals( "a.txt", names.get( 0 ) );
+        assertEquals( "b/c.txt", names.get( 1 ) );
+
+        pool.close();
+        assertEquals( 0, pool.getOpenCount() );
+    }
+
+    public void testShouldKeepUnixModesOfEntries()
+        throws IOException
+    {
+        final File archive = fileManager.createTempFile();
+        try ( ZipArchiveOutputStream zip = new ZipArchiveOutputStream( archive ) )
+        {
+            final ZipArchiveEntry script = new ZipArchiveEntry( "bin/run.sh" );
+            script.setUnixMode( 0100755 );
+            zip.putArchiveEntry( script );
+            zip.write( "#!/bin/sh".getBytes( "UTF-8" ) );
+            zip.closeArchiveEntry();
+
+            final ZipArchiveEntry other = new ZipArchiveEntry( "README.txt" );
+            zip.putArchiveEntry( other );
+            zip.closeArchiveEntry();
+        }
+
+        final ZipFilePool pool = new ZipFilePool( ZipFilePool.DEFAULT_MAX_OPEN );
+        final PooledZipFileResourceCollection collection = new PooledZipFileResourceCollection( pool, null );
+        collection.setFile( archive );
+
+        final Iterator<PlexusIoResource> resources = collection.getResources();
+        final PlexusIoResource script = resources.next();
+        assertEquals( "bin/run.sh", script.getName() );
+        assertEquals( 0755, ( (ResourceAttributeSupplier) script ).getAttributes().getOctalMode() );
+
+        final PlexusIoResource other = resources.next();
+        assertEquals( "README.txt", other.getName() );
+        assertEquals( -1, ( (ResourceAttributeSupplier) other ).getAttributes().getOctalMode() );
+        ( (Closeable) resources ).close();
+
+        pool.close();
+    }
+
+    private static String read( final InputStream in )
+        throws IOException
+    {
+        try
+        {
+            return IOUtil.toString( in, "UTF-8" );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private File createZip( final String... names )
+        throws IOException
+    {
+        final File archive = fileManager.createTempFile();
+        try ( ZipOutputStream zip = new ZipOutputStream( new FileOutputStream( archive ) ) )
+        {
+            for ( final String name : names )
+            {
+                zip.putNextEntry( new ZipEntry( name ) );
+                zip.write( name.getBytes( "UTF-8" ) );
+                zip.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.apache.maven.plugins.assembly.archive.phase;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugins.assembly.model.ModuleSet;
+import org.apache.maven.plugins.assembly.testutils.PojoConfigSource;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ModuleProjectsCacheTest
+    extends TestCase
+{
+
+    private final Logger logger = new ConsoleLogger( Logger.LEVEL_INFO, "test" );
+
+    public void testShouldShareModuleProjectsOfSession()
+        throws Exception
+    {
+        final MavenProject master = createProject( "master", "project/pom.xml", "module" );
+        final MavenProject module = createProject( "module", "project/module/pom.xml" );
+
+        final PojoConfigSource configSource = createConfigSource( master, Arrays.asList( master, module ) );
+
+        final ModuleSet moduleSet = new ModuleSet();
+        assertEquals( Collections.singleton( module ),
+                      ModuleSetAssemblyPhase.getModuleProjects( moduleSet, configSource, logger ) );
+
+        // the modules declared by a project do not change within a session
+        master.getModel().getModules().clear();
+        assertEquals( Collections.singleton( module ),
+                      ModuleSetAssemblyPhase.getModuleProjects( moduleSet, configSource, logger ) );
+
+        moduleSet.addExclude( "group:module" );
+        assertTrue( ModuleSetAssemblyPhase.getModuleProjects( moduleSet, configSource, logger ).isEmpty() );
+    }
+
+    public void testShouldResolveAgainWhenReactorChanges()
+        throws Exception
+    {
+        final MavenProject master = createProject( "master", "project/pom.xml", "module", "other" );
+        final MavenProject module = createProject( "module", "project/module/pom.xml" );
+        final MavenProject other = createProject( "other", "project/other/pom.xml" );
+
+        final PojoConfigSource configSource = createConfigSource( master, Arrays.asList( master, module ) );
+
+        final ModuleSet moduleSet = new ModuleSet();
+        assertEquals( Collections.singleton( module ),
+                      ModuleSetAssemblyPhase.getModuleProjects( moduleSet, configSource, logger ) );
+
+        configSource.setReactorProjects( Arrays.asList( master, module, other ) );
+        assertEquals( 2, ModuleSetAssemblyPhase.getModuleProjects( moduleSet, configSource, logger ).size() );
+    }
+
+    private PojoConfigSource createConfigSource( final MavenProject project, final List<MavenProject> projects )
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        configSource.setMavenProject( project );
+        configSource.setReactorProjects( projects );
+        configSource.setMavenSession( new MavenSession( null, new DefaultMavenExecutionRequest(),
+                                                        new DefaultMavenExecutionResult(),
+                                                        new ArrayList<>( projects ) ) );
+        return configSource;
+    }
+
+    private MavenProject createProject( final String artifactId, final String pom, final String... modules )
+    {
+        final Model model = new Model();
+        model.setGroupId( "group" );
+        model.setArtifactId( artifactId );
+        model.setVersion( "1.0" );
+        for ( final String module : modules )
+        {
+            model.addModule( module );
+        }
+
+        final MavenProject project = new MavenProject( model );
+        project.setFile( new File( pom ) );
+        project.setArtifact( new DefaultArtifact( "group", artifactId, VersionRange.createFromVersion( "1.0" ),
+                                                  null, "jar", null, new DefaultArtifactHandler( "jar" ) ) );
+        return project;
+    }
+
+}
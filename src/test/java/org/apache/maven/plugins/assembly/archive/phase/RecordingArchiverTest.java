@@ -0,0 +1,133 @@
+package org.apache.maven.plugins.assembly.archive.phase;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugins.assembly.archive.task.ArtifactTargets;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.archiver.ArchiveEntry;
+import org.codehaus.plexus.archiver.Archiver;
+import org.codehaus.plexus.archiver.ResourceIterator;
+import org.codehaus.plexus.archiver.zip.ZipArchiver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RecordingArchiverTest
+    extends TestCase
+{
+
+    private final TestFileManager fileManager = new TestFileManager( "recording-archiver.test.", "" );
+
+    @Override
+    public void tearDown()
+        throws Exception
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldReplayEntriesInOrderWithTheirModes()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File first = fileManager.createFile( dir, "first.txt", "first" );
+        final File second = fileManager.createFile( dir, "second.txt", "second" );
+
+        final ZipArchiver target = new ZipArchiver();
+        final RecordingArchiver recording = new RecordingArchiver( target, null );
+        final Archiver archiver = recording.newArchiver();
+
+        archiver.setFileMode( 0600 );
+        assertEquals( 0100600, archiver.getOverrideFileMode() );
+        archiver.addFile( second, "second.txt" );
+        archiver.setFileMode( -1 );
+        archiver.addFile( first, "first.txt" );
+
+        assertEquals( -1, archiver.getOverrideFileMode() );
+        assertEquals( 4, recording.getCallCount() );
+        assertFalse( target.getResources().hasNext() );
+
+        assertEquals( 0, recording.replay( null ) );
+
+        final List<ArchiveEntry> entries = getEntries( target );
+        assertEquals( Arrays.asList( "second.txt", "first.txt" ), getNames( entries ) );
+        assertEquals( 0100600, entries.get( 0 ).getMode() );
+        assertEquals( -1, target.getOverrideFileMode() );
+    }
+
+    public void testShouldSkipEntriesAlreadyAddedByAnotherRecording()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File shared = fileManager.createFile( dir, "shared.jar", "shared" );
+        final File own = fileManager.createFile( dir, "own.jar", "own" );
+
+        final ZipArchiver target = new ZipArchiver();
+        final RecordingArchiver first = new RecordingArchiver( target, null );
+        first.newArchiver().addFile( shared, "lib/shared.jar" );
+        final RecordingArchiver second = new RecordingArchiver( target, null );
+        second.newArchiver().addFile( own, "lib/own.jar" );
+        second.newArchiver().addFile( shared, "lib/shared.jar" );
+
+        final ArtifactTargets targets = new ArtifactTargets();
+        assertEquals( 0, first.replay( targets ) );
+        assertEquals( 1, second.replay( targets ) );
+
+        assertEquals( Arrays.asList( "lib/shared.jar", "lib/own.jar" ), getNames( getEntries( target ) ) );
+    }
+
+    public void testShouldRejectChangesToTheArchiverItself()
+    {
+        final Archiver archiver = new RecordingArchiver( new ZipArchiver(), null ).newArchiver();
+        try
+        {
+            archiver.setDestFile( new File( "other.zip" ) );
+            fail( "should not change the archiver while recording" );
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+            // expected
+        }
+    }
+
+    private static List<ArchiveEntry> getEntries( final Archiver archiver )
+    {
+        final List<ArchiveEntry> entries = new ArrayList<>();
+        final ResourceIterator it = archiver.getResources();
+        while ( it.hasNext() )
+        {
+            entries.add( it.next() );
+        }
+        return entries;
+    }
+
+    private static List<String> getNames( final List<ArchiveEntry> entries )
+    {
+        final List<String> names = new ArrayList<>();
+        for ( final ArchiveEntry entry : entries )
+        {
+            names.add( entry.getName() );
+        }
+        return names;
+    }
+
+}
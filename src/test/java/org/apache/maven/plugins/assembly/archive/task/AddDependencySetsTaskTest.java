@@ -172,6 +172,53 @@ public class AddDependencySetsTaskTest
         macTask.expectBuildFromRepository( pbe );
         macTask.expectCSGetRepositories( null, null );
         macTask.expectCSGetFinalName( "final-name" );
+        macTask.expectAddFile( file, "out/" + type + "/" + aid + "-" + version + "." + type );
+
+        macTask.expectGetMode( 0222, 0222 );
+
+        final DependencySet ds = new DependencySet();
+        // refers to the dependency POM, so the project has to be built
+        ds.setOutputDirectory( "/out/${artifact.packaging}" );
+        DefaultAssemblyArchiverTest.setupInterpolators( macTask.configSource );
+
+        mockManager.replayAll();
+
+        final Logger logger = new ConsoleLogger( Logger.LEVEL_DEBUG, "test" );
+
+        final AddDependencySetsTask task =
+            new AddDependencySetsTask( Collections.singletonList( ds ), Collections.singleton( depMock.getArtifact() ),
+                                       project, macTask.projectBuilder, logger );
+
+        task.addDependencySet( ds, macTask.archiver, macTask.configSource );
+
+        mockManager.verifyAll();
+    }
+
+    public void testAddDependencySet_ShouldNotBuildProjectWhenMappingsUseOnlyArtifactCoordinates()
+        throws AssemblyFormattingException, ArchiveCreationException, InvalidAssemblerConfigurationException,
+        IOException
+    {
+        final MavenProject project = new MavenProject( new Model() );
+
+        final MockAndControlForAddDependencySetsTask macTask =
+            new MockAndControlForAddDependencySetsTask( mockManager, new MavenProject( new Model() ) );
+
+        final String gid = "org.test";
+        final String aid = "test-dep";
+        final String version = "2.0-SNAPSHOT";
+        final String type = "jar";
+
+        final File file = new File( "dep-artifact.jar" );
+
+        final ArtifactMock depMock = new ArtifactMock( mockManager, gid, aid, version, type, true );
+        depMock.setBaseVersion( version );
+        depMock.setFile( file );
+
+        final File destFile = new File( "assembly-dep-set.zip" );
+
+        macTask.expectGetDestFile( destFile );
+        macTask.expectCSGetRepositories( null, null );
+        macTask.expectCSGetFinalName( "final-name" );
         macTask.expectAddFile( file, "out/" + aid + "-" + version + "." + type );
 
         macTask.expectGetMode( 0222, 0222 );
@@ -184,6 +231,7 @@ public class AddDependencySetsTaskTest
 
         final Logger logger = new ConsoleLogger( Logger.LEVEL_DEBUG, "test" );
 
+        // the project builder mock has no expectations, building a project fails the test
         final AddDependencySetsTask task =
             new AddDependencySetsTask( Collections.singletonList( ds ), Collections.singleton( depMock.getArtifact() ),
                                        project, macTask.projectBuilder, logger );
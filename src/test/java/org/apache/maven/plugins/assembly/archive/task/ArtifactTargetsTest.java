@@ -0,0 +1,45 @@
+package org.apache.maven.plugins.assembly.archive.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class ArtifactTargetsTest
+    extends TestCase
+{
+
+    public void testShouldSkipRepeatedTargetsOnly()
+    {
+        final ArtifactTargets targets = new ArtifactTargets();
+        final File jar = new File( "lib.jar" );
+
+        assertTrue( targets.add( jar, "lib/lib.jar", "file:-1" ) );
+        assertFalse( targets.add( new File( jar.getAbsolutePath() ), "lib/lib.jar", "file:-1" ) );
+        assertTrue( targets.add( jar, "other/lib.jar", "file:-1" ) );
+        assertTrue( targets.add( jar, "lib/lib.jar", "file:420" ) );
+        assertTrue( targets.add( new File( "other.jar" ), "lib/lib.jar", "file:-1" ) );
+
+        assertEquals( 4, targets.getAddedCount() );
+        assertEquals( 1, targets.getSkippedCount() );
+    }
+
+}
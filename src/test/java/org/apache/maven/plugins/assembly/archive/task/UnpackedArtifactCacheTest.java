@@ -0,0 +1,262 @@
+package org.apache.maven.plugins.assembly.archive.task;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.plugins.assembly.testutils.PojoConfigSource;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.logging.Logger;
+import org.codehaus.plexus.logging.console.ConsoleLogger;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class UnpackedArtifactCacheTest
+    extends TestCase
+{
+
+    private final Logger logger = new ConsoleLogger( Logger.LEVEL_INFO, "test" );
+
+    private TestFileManager fileManager;
+
+    private File cacheDirectory;
+
+    @Override
+    public void setUp()
+    {
+        fileManager = new TestFileManager( "unpack-cache.test.", "" );
+        cacheDirectory = fileManager.createTempDir();
+    }
+
+    @Override
+    public void tearDown()
+        throws IOException
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldNotCacheWithoutDirectory()
+        throws IOException
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        final UnpackedArtifactCache cache = UnpackedArtifactCache.forConfigSource( configSource );
+
+        assertNull( cache.getContents( configSource, createArtifact( "1.0" ), createZip( "a.txt" ), null, null,
+                                       logger ) );
+    }
+
+    public void testShouldExtractSharedArchivesOnceWithoutDirectory()
+        throws IOException
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        configSource.setTemporaryRootDirectory( fileManager.createTempDir() );
+        final UnpackedArtifactCache cache = UnpackedArtifactCache.forConfigSource( configSource );
+        final File archive = createZip( "a.txt" );
+
+        final UnpackedArtifactCache.SharedSelection shared = new UnpackedArtifactCache.SharedSelection();
+        shared.add( AddArtifactTask.DEFAULT_INCLUDES_ARRAY, null );
+        final File contents =
+            cache.getContents( configSource, createArtifact( "1.0" ), archive, null, shared, logger );
+
+        assertNotNull( contents );
+        assertEquals( "a.txt", FileUtils.fileRead( new File( contents, "a.txt" ) ) );
+        assertTrue( new File( contents, "a.txt" ).delete() );
+        assertEquals( contents,
+                      cache.getContents( configSource, createArtifact( "1.0" ), archive, null, shared, logger ) );
+        assertFalse( new File( contents, "a.txt" ).exists() );
+    }
+
+    public void testShouldNotReuseSharedContentsOfEarlierBuilds()
+        throws IOException
+    {
+        final File temporaryRoot = fileManager.createTempDir();
+        final File archive = createZip( "a.txt" );
+        final long lastModified = archive.lastModified();
+
+        final UnpackedArtifactCache.SharedSelection shared = new UnpackedArtifactCache.SharedSelection();
+        shared.add( AddArtifactTask.DEFAULT_INCLUDES_ARRAY, null );
+
+        final PojoConfigSource first = new PojoConfigSource();
+        first.setTemporaryRootDirectory( temporaryRoot );
+        final File contents = UnpackedArtifactCache.forConfigSource( first )
+            .getContents( first, createArtifact( "1.0" ), archive, null, shared, logger );
+        assertTrue( new File( contents, "a.txt" ).isFile() );
+
+        // rebuilt with the same length and modification time
+        FileUtils.copyFile( createZip( "b.txt" ), archive );
+        assertTrue( archive.setLastModified( lastModified ) );
+
+        final PojoConfigSource second = new PojoConfigSource();
+        second.setTemporaryRootDirectory( temporaryRoot );
+        final File rebuilt = UnpackedArtifactCache.forConfigSource( second )
+            .getContents( second, createArtifact( "1.0" ), archive, null, shared, logger );
+
+        assertTrue( new File( rebuilt, "b.txt" ).isFile() );
+        assertFalse( new File( rebuilt, "a.txt" ).exists() );
+    }
+
+    public void testShouldExtractOnlyEntriesSelectedBySharingDependencySets()
+        throws IOException
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        configSource.setTemporaryRootDirectory( fileManager.createTempDir() );
+        final File archive = createZip( "a.properties", "b/c.properties", "b/README.txt", "d.class" );
+
+        final UnpackedArtifactCache.SharedSelection shared = new UnpackedArtifactCache.SharedSelection();
+        shared.add( new String[] { "**/*.properties" }, new String[] { "b/**" } );
+        shared.add( new String[] { "b/**" }, new String[] { "**/*.txt" } );
+        final File contents = UnpackedArtifactCache.forConfigSource( configSource )
+            .getContents( configSource, createArtifact( "1.0" ), archive, null, shared, logger );
+
+        assertTrue( new File( contents, "a.properties" ).isFile() );
+        assertTrue( new File( contents, "b/c.properties" ).isFile() );
+        assertFalse( new File( contents, "b/README.txt" ).exists() );
+        assertFalse( new File( contents, "d.class" ).exists() );
+    }
+
+    public void testShouldExtractOnceAndReuseContents()
+        throws IOException
+    {
+        final File archive = createZip( "a.txt", "dir/b.txt" );
+        final Artifact artifact = createArtifact( "1.0" );
+
+        final File contents = getContents( createCache( 10 ), artifact, archive );
+
+        assertNotNull( contents );
+        assertEquals( "a.txt", FileUtils.fileRead( new File( contents, "a.txt" ) ) );
+        assertEquals( "dir/b.txt", FileUtils.fileRead( new File( contents, "dir/b.txt" ) ) );
+
+        FileUtils.fileWrite( new File( contents, "a.txt" ), "cached" );
+
+        final File reused = getContents( createCache( 10 ), artifact, archive );
+
+        assertEquals( contents, reused );
+        assertEquals( "cached", FileUtils.fileRead( new File( reused, "a.txt" ) ) );
+    }
+
+    public void testShouldValidateSnapshotsByChecksum()
+        throws IOException
+    {
+        final Artifact artifact = createArtifact( "1.0-SNAPSHOT" );
+
+        final File first = getContents( createCache( 10 ), artifact, createZip( "a.txt" ) );
+        final File second = getContents( createCache( 10 ), artifact, createZip( "b.txt" ) );
+
+        assertFalse( first.equals( second ) );
+        assertTrue( new File( second, "b.txt" ).isFile() );
+    }
+
+    public void testShouldEvictLeastRecentlyUsedEntriesOnly()
+        throws IOException
+    {
+        final Artifact artifact = createArtifact( "1.0" );
+
+        final File unused = getContents( createCache( 0 ), artifact, createZip( "a.txt" ) );
+
+        final PojoConfigSource cache = createCache( 0 );
+        final File first = getContents( cache, artifact, createZip( "b.txt" ) );
+        final File second = getContents( cache, artifact, createZip( "c.txt" ) );
+
+        assertFalse( unused.exists() );
+        assertTrue( first.isDirectory() );
+        assertTrue( second.isDirectory() );
+    }
+
+    public void testShouldNotExtractEntriesDifferingOnlyByCase()
+        throws IOException
+    {
+        final File archive = createZip( "dir/Readme.txt", "dir/README.txt" );
+
+        assertNull( getContents( createCache( 10 ), createArtifact( "1.0" ), archive ) );
+        assertEquals( 0, cacheDirectory.list().length );
+    }
+
+    public void testShouldNotExtractSharedEntriesDifferingOnlyByCaseWhenSelected()
+        throws IOException
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        configSource.setTemporaryRootDirectory( fileManager.createTempDir() );
+        final File archive = createZip( "a.txt", "b/c.txt", "B/C.txt" );
+
+        final UnpackedArtifactCache.SharedSelection unselected = new UnpackedArtifactCache.SharedSelection();
+        unselected.add( new String[] { "a.txt" }, null );
+        assertNotNull( UnpackedArtifactCache.forConfigSource( configSource )
+                           .getContents( configSource, createArtifact( "1.0" ), archive, null, unselected, logger ) );
+
+        final UnpackedArtifactCache.SharedSelection selected = new UnpackedArtifactCache.SharedSelection();
+        selected.add( AddArtifactTask.DEFAULT_INCLUDES_ARRAY, null );
+        assertNull( UnpackedArtifactCache.forConfigSource( configSource )
+                        .getContents( configSource, createArtifact( "1.0" ), archive, null, selected, logger ) );
+    }
+
+    public void testShouldNotCacheOtherArchives()
+        throws IOException
+    {
+        final File archive = fileManager.createTempFile();
+        FileUtils.fileWrite( archive, "not a zip" );
+
+        assertNull( getContents( createCache( 10 ), createArtifact( "1.0" ), archive ) );
+    }
+
+    private PojoConfigSource createCache( final long maxSize )
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        configSource.setUnpackCacheDirectory( cacheDirectory );
+        configSource.setUnpackCacheMaxSize( maxSize );
+        return configSource;
+    }
+
+    private File getContents( final PojoConfigSource configSource, final Artifact artifact, final File archive )
+    {
+        return UnpackedArtifactCache.forConfigSource( configSource ).getContents( configSource, artifact, archive,
+                                                                                  null, null, logger );
+    }
+
+    private static Artifact createArtifact( final String version )
+    {
+        return new DefaultArtifact( "group", "artifact", VersionRange.createFromVersion( version ), "compile", "jar",
+                                    null, new DefaultArtifactHandler( "jar" ) );
+    }
+
+    private File createZip( final String... names )
+        throws IOException
+    {
+        final File archive = fileManager.createTempFile();
+        try ( ZipOutputStream zip = new ZipOutputStream( new FileOutputStream( archive ) ) )
+        {
+            for ( final String name : names )
+            {
+                zip.putNextEntry( new ZipEntry( name ) );
+                zip.write( name.getBytes( "UTF-8" ) );
+                zip.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+}
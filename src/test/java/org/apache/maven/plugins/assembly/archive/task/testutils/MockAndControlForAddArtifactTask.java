@@ -76,6 +76,7 @@ public class MockAndControlForAddArtifactTask
     {
         expect( configSource.getProject() ).andReturn( project ).anyTimes();
         expect( configSource.getMavenSession() ).andReturn( null ).anyTimes();
+        expect( configSource.getUnpackCacheDirectory() ).andReturn( null ).anyTimes();
     }
 
     public void expectGetFinalName( final String finalName )
@@ -101,6 +101,8 @@ public class MockAndControlForAddDependencySetsTask
     private void enableDefaultExpectations()
     {
         expect( configSource.getProject() ).andReturn( project ).anyTimes();
+        expect( configSource.getUnpackCacheDirectory() ).andReturn( null ).anyTimes();
+        expect( configSource.isShareUnpackedArchives() ).andReturn( false ).anyTimes();
         expect( session.getProjectBuildingRequest() ).andReturn( projectBuildingRequest ).anyTimes();
         expect( session.getSystemProperties() ).andReturn( new Properties() ).anyTimes();
         expect( session.getUserProperties() ).andReturn( new Properties() ).anyTimes();
@@ -0,0 +1,202 @@
+package org.apache.maven.plugins.assembly.artifact;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.same;
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingResult;
+import org.easymock.EasyMock;
+import org.easymock.classextension.EasyMockSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DefaultDependencyProjectBuilderTest
+    extends TestCase
+{
+
+    private static Artifact newArtifact( final String artifactId )
+    {
+        return new DefaultArtifact( "group", artifactId, "1.0", "compile", "jar", null,
+                                    new DefaultArtifactHandler( "jar" ) );
+    }
+
+    public void testBuildProject_ShouldBuildProjectOnlyOnce()
+        throws Exception
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final Artifact artifact = newArtifact( "artifact" );
+        final ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        final MavenProject project = new MavenProject( new Model() );
+
+        final ProjectBuildingResult result = mm.createMock( ProjectBuildingResult.class );
+        expect( result.getProject() ).andReturn( project ).once();
+
+        final ProjectBuilder projectBuilder = mm.createMock( ProjectBuilder.class );
+        expect( projectBuilder.build( artifact, request ) ).andReturn( result ).once();
+
+        mm.replayAll();
+
+        final DefaultDependencyProjectBuilder builder = new DefaultDependencyProjectBuilder( projectBuilder );
+
+        assertSame( project, builder.buildProject( artifact, request ) );
+        assertSame( project, builder.buildProject( newArtifact( "artifact" ), request ) );
+
+        mm.verifyAll();
+    }
+
+    public void testBuildProject_ShouldRememberBuildFailures()
+        throws Exception
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final Artifact artifact = newArtifact( "artifact" );
+        final ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        final ProjectBuildingException failure = new ProjectBuildingException( "id", "Test error.", new Exception() );
+
+        final ProjectBuilder projectBuilder = mm.createMock( ProjectBuilder.class );
+        expect( projectBuilder.build( artifact, request ) ).andThrow( failure ).once();
+
+        mm.replayAll();
+
+        final DefaultDependencyProjectBuilder builder = new DefaultDependencyProjectBuilder( projectBuilder );
+
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                builder.buildProject( artifact, request );
+                fail( "Should rethrow the build failure." );
+            }
+            catch ( final ProjectBuildingException e )
+            {
+                assertSame( failure, e );
+            }
+        }
+
+        mm.verifyAll();
+    }
+
+    public void testBuildProject_ShouldBuildAgainForDifferentRequest()
+        throws Exception
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final Artifact artifact = newArtifact( "artifact" );
+        final ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        final ProjectBuildingRequest otherRequest = new DefaultProjectBuildingRequest();
+        otherRequest.getUserProperties().setProperty( "key", "value" );
+
+        final ProjectBuildingResult result = mm.createMock( ProjectBuildingResult.class );
+        expect( result.getProject() ).andReturn( new MavenProject( new Model() ) ).times( 2 );
+
+        final ProjectBuilder projectBuilder = mm.createMock( ProjectBuilder.class );
+        expect( projectBuilder.build( artifact, request ) ).andReturn( result ).once();
+        expect( projectBuilder.build( artifact, otherRequest ) ).andReturn( result ).once();
+
+        mm.replayAll();
+
+        final DefaultDependencyProjectBuilder builder = new DefaultDependencyProjectBuilder( projectBuilder );
+
+        builder.buildProject( artifact, request );
+        builder.buildProject( artifact, otherRequest );
+
+        mm.verifyAll();
+    }
+
+    public void testBuildProject_ShouldEvictLeastRecentlyUsedProjects()
+        throws Exception
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+
+        final ProjectBuildingResult result = mm.createMock( ProjectBuildingResult.class );
+        expect( result.getProject() ).andReturn( new MavenProject( new Model() ) ).anyTimes();
+
+        final ProjectBuilder projectBuilder = mm.createMock( ProjectBuilder.class );
+        expect( projectBuilder.build( EasyMock.<Artifact>anyObject(), same( request ) ) ).andReturn( result )
+            .anyTimes();
+
+        mm.replayAll();
+
+        final DefaultDependencyProjectBuilder builder = new DefaultDependencyProjectBuilder( projectBuilder );
+
+        for ( int i = 0; i <= DefaultDependencyProjectBuilder.MAX_CACHED_PROJECTS; i++ )
+        {
+            builder.buildProject( newArtifact( "artifact" + i ), request );
+        }
+
+        assertEquals( DefaultDependencyProjectBuilder.MAX_CACHED_PROJECTS, builder.getCacheSize() );
+
+        mm.verifyAll();
+    }
+
+    public void testPrefetchProjects_ShouldServeBuildProjectFromCache()
+        throws Exception
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final ProjectBuildingRequest request = new DefaultProjectBuildingRequest();
+        final MavenProject project = new MavenProject( new Model() );
+
+        final ProjectBuildingResult result = mm.createMock( ProjectBuildingResult.class );
+        expect( result.getProject() ).andReturn( project ).times( 4 );
+
+        final List<Artifact> artifacts = new ArrayList<>();
+        final ProjectBuilder projectBuilder = mm.createMock( ProjectBuilder.class );
+        for ( int i = 0; i < 4; i++ )
+        {
+            final Artifact artifact = newArtifact( "artifact" + i );
+            artifacts.add( artifact );
+
+            // prefetching builds with a copy of the request
+            expect( projectBuilder.build( same( artifact ), EasyMock.<ProjectBuildingRequest>anyObject() ) )
+                .andReturn( result ).once();
+        }
+
+        mm.replayAll();
+
+        final DefaultDependencyProjectBuilder builder = new DefaultDependencyProjectBuilder( projectBuilder );
+
+        builder.prefetchProjects( artifacts, request );
+
+        assertEquals( 4, builder.getCacheSize() );
+        for ( final Artifact artifact : artifacts )
+        {
+            assertSame( project, builder.buildProject( artifact, request ) );
+        }
+
+        mm.verifyAll();
+    }
+
+}
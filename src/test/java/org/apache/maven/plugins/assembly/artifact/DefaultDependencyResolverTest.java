@@ -25,6 +25,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
@@ -40,6 +41,7 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
 import org.apache.maven.plugins.assembly.AssemblerConfigurationSource;
+import org.apache.maven.plugins.assembly.model.Assembly;
 import org.apache.maven.plugins.assembly.model.DependencySet;
 import org.apache.maven.plugins.assembly.model.ModuleBinaries;
 import org.apache.maven.plugins.assembly.model.ModuleSet;
@@ -197,6 +199,46 @@ public class DefaultDependencyResolverTest
         mm.verifyAll();
     }
 
+    public void test_resolveDependencySets_ShouldResolveOncePerConfigSource()
+        throws DependencyResolutionException
+    {
+        final EasyMockSupport mm = new EasyMockSupport();
+
+        final AssemblerConfigurationSource cs = mm.createMock( AssemblerConfigurationSource.class );
+
+        final MavenProject project = createMavenProject( "main-group", "main-artifact", "1", null );
+        project.setArtifacts( Collections.singleton( newArtifact( "g.id", "a-id", "1" ) ) );
+
+        // only the first resolution asks for the project
+        expect( cs.getProject() ).andReturn( project ).once();
+
+        final Assembly assembly = new Assembly();
+        final DependencySet ds = new DependencySet();
+        ds.setUseTransitiveDependencies( true );
+
+        mm.replayAll();
+
+        final Map<DependencySet, Set<Artifact>> first =
+            resolver.resolveDependencySets( assembly, cs, Collections.singletonList( ds ) );
+        final Map<DependencySet, Set<Artifact>> second =
+            resolver.resolveDependencySets( assembly, cs, Collections.singletonList( ds ) );
+
+        assertEquals( project.getArtifacts(), first.get( ds ) );
+        assertSame( first.get( ds ), second.get( ds ) );
+
+        try
+        {
+            first.get( ds ).clear();
+            fail( "Resolved artifacts should be immutable." );
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        mm.verifyAll();
+    }
+
     private MavenProject createMavenProject( final String groupId, final String artifactId, final String version,
                                              final File basedir )
     {
@@ -0,0 +1,196 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ClassRelocationHandlerTest
+    extends TestCase
+{
+
+    private static final String PACKAGE = "org.apache.maven.plugins.assembly.filter";
+
+    private static Relocation newRelocation( final String pattern, final String shadedPattern,
+                                             final String... excludes )
+    {
+        final Relocation relocation = new Relocation();
+        relocation.setPattern( pattern );
+        relocation.setShadedPattern( shadedPattern );
+        relocation.setExcludes( Arrays.asList( excludes ) );
+        return relocation;
+    }
+
+    private static ClassRelocationHandler newHandler( final String pattern, final String shadedPattern,
+                                                      final String... excludes )
+    {
+        final ClassRelocationHandler handler = new ClassRelocationHandler();
+        handler.setRelocations( Collections.singletonList( newRelocation( pattern, shadedPattern, excludes ) ) );
+        return handler;
+    }
+
+    public void testTransformPath_ShouldRelocateClassesDirectoriesAndServices()
+    {
+        final ClassRelocationHandler handler = newHandler( "com.acme", "shaded.com.acme", "com.acme.Keep*" );
+
+        assertEquals( "shaded/com/acme/Foo.class", handler.transformPath( "com/acme/Foo.class" ) );
+        assertEquals( "shaded/com/acme/sub/", handler.transformPath( "com/acme/sub/" ) );
+        assertEquals( "META-INF/services/shaded.com.acme.Spi",
+                      handler.transformPath( "META-INF/services/com.acme.Spi" ) );
+
+        assertEquals( "com/acme/KeepMe.class", handler.transformPath( "com/acme/KeepMe.class" ) );
+        assertEquals( "com/acmeco/Foo.class", handler.transformPath( "com/acmeco/Foo.class" ) );
+        assertEquals( "com/acme/foo.properties", handler.transformPath( "com/acme/foo.properties" ) );
+    }
+
+    public void testTransformPath_ShouldKeepRootOfServices()
+    {
+        final ClassRelocationHandler handler = newHandler( "com.acme", "shaded.com.acme" );
+
+        assertEquals( "/META-INF/services/shaded.com.acme.Spi",
+                      handler.transformPath( "/META-INF/services/com.acme.Spi" ) );
+        assertEquals( "./META-INF/services/shaded.com.acme.Spi",
+                      handler.transformPath( "./META-INF/services/com.acme.Spi" ) );
+    }
+
+    public void testTransformContents_ShouldRelocateServiceImplementations()
+        throws Exception
+    {
+        final ClassRelocationHandler handler = newHandler( "com.acme", "shaded.com.acme" );
+
+        final InputStream in =
+            new ByteArrayInputStream( "# comment\ncom.acme.Impl\norg.other.Impl\n".getBytes( StandardCharsets.UTF_8 ) );
+
+        final String result =
+            new String( IOUtil.toByteArray( handler.transformContents( "META-INF/services/com.acme.Spi", in ) ),
+                        StandardCharsets.UTF_8 );
+
+        assertEquals( "# comment\nshaded.com.acme.Impl\norg.other.Impl\n", result );
+    }
+
+    public void testTransformContents_ShouldNotTouchOtherEntries()
+        throws Exception
+    {
+        final ClassRelocationHandler handler = newHandler( "com.acme", "shaded.com.acme" );
+
+        final InputStream in = new ByteArrayInputStream( "com.acme.Impl".getBytes( StandardCharsets.UTF_8 ) );
+
+        assertSame( in, handler.transformContents( "com/acme/foo.properties", in ) );
+    }
+
+    public void testRelocateConstant_ShouldRelocateReferencesAfterPrimitives()
+    {
+        final Relocation relocation = newRelocation( "com.acme", "shaded.com.acme" );
+
+        assertEquals( "(ILshaded/com/acme/Foo;)V", relocation.relocateConstant( "(ILcom/acme/Foo;)V" ) );
+        assertEquals( "(JLshaded/com/acme/Foo;)V", relocation.relocateConstant( "(JLcom/acme/Foo;)V" ) );
+        assertEquals( "(ZLshaded/com/acme/Foo;J)Lshaded/com/acme/Bar;",
+                      relocation.relocateConstant( "(ZLcom/acme/Foo;J)Lcom/acme/Bar;" ) );
+        assertEquals( "(BCDFSLshaded/com/acme/Foo;)V", relocation.relocateConstant( "(BCDFSLcom/acme/Foo;)V" ) );
+    }
+
+    public void testRelocateConstant_ShouldRelocateArrays()
+    {
+        final Relocation relocation = newRelocation( "com.acme", "shaded.com.acme" );
+
+        assertEquals( "([Lshaded/com/acme/Foo;[[ILshaded/com/acme/Bar;)[Lshaded/com/acme/Baz;",
+                      relocation.relocateConstant( "([Lcom/acme/Foo;[[ILcom/acme/Bar;)[Lcom/acme/Baz;" ) );
+        assertEquals( "[Lshaded/com/acme/Foo;", relocation.relocateConstant( "[Lcom/acme/Foo;" ) );
+    }
+
+    public void testRelocateConstant_ShouldRelocateGenericSignatures()
+    {
+        final Relocation relocation = newRelocation( "com.acme", "shaded.com.acme" );
+
+        assertEquals( "<T:Lshaded/com/acme/Foo;>(Ljava/util/List<+Lshaded/com/acme/Foo;>;TT;)V^Lshaded/com/acme/Ex;",
+                      relocation.relocateConstant(
+                          "<T:Lcom/acme/Foo;>(Ljava/util/List<+Lcom/acme/Foo;>;TT;)V^Lcom/acme/Ex;" ) );
+        assertEquals( "Ljava/util/Map<Lshaded/com/acme/K;*>;Ljava/util/List<-Lshaded/com/acme/V;>;",
+                      relocation.relocateConstant( "Ljava/util/Map<Lcom/acme/K;*>;Ljava/util/List<-Lcom/acme/V;>;" ) );
+        assertEquals( "<T::Lshaded/com/acme/Spi;>Ljava/lang/Object;",
+                      relocation.relocateConstant( "<T::Lcom/acme/Spi;>Ljava/lang/Object;" ) );
+    }
+
+    public void testRelocateConstant_ShouldNotRelocateOtherStrings()
+    {
+        final Relocation relocation = newRelocation( "com.acme", "shaded.com.acme" );
+
+        assertEquals( "(ILcom/acmeco/Foo;)V", relocation.relocateConstant( "(ILcom/acmeco/Foo;)V" ) );
+        assertEquals( "xLcom/acme/Foo", relocation.relocateConstant( "xLcom/acme/Foo" ) );
+        assertEquals( "see com/acme/Foo", relocation.relocateConstant( "see com/acme/Foo" ) );
+    }
+
+    public void testRelocateClass_ShouldProduceLoadableRelocatedClass()
+        throws Exception
+    {
+        final byte[] original;
+        final InputStream in = getClass().getResourceAsStream( getClass().getSimpleName() + ".class" );
+        try
+        {
+            original = IOUtil.toByteArray( in );
+        }
+        finally
+        {
+            in.close();
+        }
+
+        final byte[] relocated = newHandler( PACKAGE, "relocated.filter" ).relocateClass( original );
+
+        final String constants = new String( relocated, StandardCharsets.ISO_8859_1 );
+        assertTrue( constants.contains( "(Ljava/lang/String;Ljava/lang/String;[Ljava/lang/String;)"
+                                            + "Lrelocated/filter/ClassRelocationHandler;" ) );
+        assertTrue( constants.contains( "(ILrelocated/filter/Relocation;J[Lrelocated/filter/Relocation;)"
+                                            + "Lrelocated/filter/Relocation;" ) );
+
+        final Class<?> relocatedClass = new DefiningClassLoader().define( relocated );
+        assertEquals( "relocated.filter.ClassRelocationHandlerTest", relocatedClass.getName() );
+        assertEquals( TestCase.class, relocatedClass.getSuperclass() );
+    }
+
+    /**
+     * Gives the class file of this test a descriptor mixing primitive and relocated parameters.
+     */
+    static Relocation mixedParameters( final int index, final Relocation relocation, final long count,
+                                       final Relocation[] relocations )
+    {
+        return index < count ? relocations[index] : relocation;
+    }
+
+    private static final class DefiningClassLoader
+        extends ClassLoader
+    {
+        DefiningClassLoader()
+        {
+            super( ClassRelocationHandlerTest.class.getClassLoader() );
+        }
+
+        Class<?> define( final byte[] classFile )
+        {
+            return defineClass( null, classFile, 0, classFile.length );
+        }
+    }
+
+}
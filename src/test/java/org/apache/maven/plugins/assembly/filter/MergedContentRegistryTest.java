@@ -0,0 +1,99 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class MergedContentRegistryTest
+    extends TestCase
+{
+
+    public void testReadIfNotMerged_ShouldSkipIdenticalContentForSameTarget()
+        throws Exception
+    {
+        final MergedContentRegistry registry = new MergedContentRegistry();
+
+        final byte[] first = registry.readIfNotMerged( "target", new StringFileInfo( "a/file", "content" ) );
+        assertTrue( Arrays.equals( "content".getBytes( StandardCharsets.UTF_8 ), first ) );
+
+        assertNull( registry.readIfNotMerged( "target", new StringFileInfo( "b/file", "content" ) ) );
+    }
+
+    public void testReadIfNotMerged_ShouldReturnDifferentContentOrOtherTarget()
+        throws Exception
+    {
+        final MergedContentRegistry registry = new MergedContentRegistry();
+
+        assertNotNull( registry.readIfNotMerged( "target", new StringFileInfo( "a/file", "content" ) ) );
+        assertNotNull( registry.readIfNotMerged( "target", new StringFileInfo( "b/file", "other content" ) ) );
+        assertNotNull( registry.readIfNotMerged( "other-target", new StringFileInfo( "c/file", "content" ) ) );
+    }
+
+    private static final class StringFileInfo
+        implements FileInfo
+    {
+        private final String name;
+
+        private final String content;
+
+        StringFileInfo( final String name, final String content )
+        {
+            this.name = name;
+            this.content = content;
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public InputStream getContents()
+        {
+            return new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        @Override
+        public boolean isFile()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean isDirectory()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isSymbolicLink()
+        {
+            return false;
+        }
+    }
+
+}
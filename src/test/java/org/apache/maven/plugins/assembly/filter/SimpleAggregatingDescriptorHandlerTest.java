@@ -0,0 +1,135 @@
+package org.apache.maven.plugins.assembly.filter;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.archiver.diags.TrackingArchiver;
+import org.codehaus.plexus.components.io.fileselectors.FileInfo;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class SimpleAggregatingDescriptorHandlerTest
+    extends TestCase
+{
+
+    public void testGetLiteralSuffix_ShouldReturnTrailingLiteralText()
+    {
+        assertEquals( ".xml", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\.xml" ) );
+        assertEquals( "/foo.properties",
+                      SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*/foo\\.properties" ) );
+        assertEquals( "a\\", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "a\\\\" ) );
+    }
+
+    public void testGetLiteralSuffix_ShouldReturnEmptyWhenNoSafeSuffix()
+    {
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "META-INF/services/.*" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "ab*" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "foo\\d" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "a\\.txt|b\\.txt" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( "(?i).*\\.txt" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\.tx\\u0074" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\.tx\\x74" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\.tx\\0164" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\.txt\\cI" ) );
+        assertEquals( "", SimpleAggregatingDescriptorHandler.getLiteralSuffix( ".*\\Q.txt\\E" ) );
+    }
+
+    public void testGetLiteralSuffix_ShouldEndEveryMatchingName()
+    {
+        final String[][] matches =
+            { { ".*\\.tx\\u0074", "a.txt" }, { ".*\\.tx\\x74", "a.txt" }, { ".*\\.tx\\0164", "a.txt" },
+                { ".*\\.txt\\cI", "a.txt\t" }, { ".*\\Q.txt\\E", "a.txt" },
+                { ".*/foo\\.properties", "a/foo.properties" }, { "a\\\\", "a\\" } };
+        for ( final String[] match : matches )
+        {
+            assertTrue( match[1].matches( match[0] ) );
+            final String suffix = SimpleAggregatingDescriptorHandler.getLiteralSuffix( match[0] );
+            assertTrue( match[0], match[1].endsWith( suffix ) );
+        }
+    }
+
+    public void testShouldAggregateIdenticalCopiesOfFiles()
+        throws Exception
+    {
+        final SimpleAggregatingDescriptorHandler handler = new SimpleAggregatingDescriptorHandler();
+        handler.setFilePattern( ".*\\.txt" );
+        handler.setOutputPath( "aggregated.txt" );
+
+        assertFalse( handler.isSelected( new StringFileInfo( "a/file.txt", "content" ) ) );
+        assertFalse( handler.isSelected( new StringFileInfo( "b/file.txt", "content" ) ) );
+
+        final TrackingArchiver archiver = new TrackingArchiver();
+        handler.finalizeArchiveCreation( archiver );
+
+        assertEquals( 1, archiver.added.size() );
+        final String aggregated = FileUtils.fileRead( (File) archiver.added.get( 0 ).resource );
+        assertTrue( aggregated, aggregated.contains( "\n# a/file.txt\n# b/file.txt\n" ) );
+        assertTrue( aggregated, aggregated.endsWith( "\ncontent\ncontent" ) );
+    }
+
+    private static final class StringFileInfo
+        implements FileInfo
+    {
+        private final String name;
+
+        private final String content;
+
+        StringFileInfo( final String name, final String content )
+        {
+            this.name = name;
+            this.content = content;
+        }
+
+        @Override
+        public String getName()
+        {
+            return name;
+        }
+
+        @Override
+        public InputStream getContents()
+        {
+            return new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        @Override
+        public boolean isFile()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean isDirectory()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isSymbolicLink()
+        {
+            return false;
+        }
+    }
+
+}
@@ -23,7 +23,11 @@ import org.apache.commons.io.IOUtils;
 import org.apache.maven.model.Model;
 import org.apache.maven.plugins.assembly.testutils.PojoConfigSource;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.filtering.AbstractMavenFilteringRequest;
 import org.apache.maven.shared.filtering.DefaultMavenReaderFilter;
+import org.apache.maven.shared.filtering.MavenFilteringException;
+import org.apache.maven.shared.filtering.MavenReaderFilterRequest;
+import org.apache.maven.shared.utils.io.FileUtils.FilterWrapper;
 import org.codehaus.plexus.archiver.resources.PlexusIoVirtualFileResource;
 import org.codehaus.plexus.components.io.functions.InputStreamTransformer;
 import org.codehaus.plexus.logging.console.ConsoleLogger;
@@ -33,6 +37,9 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -70,6 +77,112 @@ public class ReaderFormatterTest
         assertEquals( "This is a test for project: anArtifact anArtifact.", readResultStream( fud ) );
     }
 
+    @Test
+    public void passesThroughLinesWithoutDelimiters()
+        throws IOException, AssemblyFormattingException
+    {
+        final PojoConfigSource cfg = getPojoConfigSource();
+        cfg.setEscapeString( "\\" );
+        InputStreamTransformer fileSetTransformers = ReaderFormatter.getFileSetTransformers( cfg, true, "keep" );
+        InputStream fud = fileSetTransformers.transform( dummyResource(), payload(
+            "No token \\ here.\nEscaped \\${artifactId}, filtered ${artifactId}." ) );
+        assertEquals( "No token \\ here.\nEscaped ${artifactId}, filtered anArtifact.", readResultStream( fud ) );
+    }
+
+    @Test
+    public void filtersLikeWholeFileFilter()
+        throws IOException, AssemblyFormattingException, MavenFilteringException
+    {
+        final PojoConfigSource cfg = getPojoConfigSource();
+        cfg.setEscapeString( "\\" );
+        cfg.getProject().getProperties().setProperty( "path", "C:\\dir\\é" );
+        final String[] pieces =
+            { "${artifactId}", "@artifactId@", "${path}", "${missing}", "$", "{", "}", "@", "\\", "\n", "\r\n", "a",
+                " ", "é" };
+
+        final Random random = new Random( 4711 );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            final StringBuilder text = new StringBuilder();
+            final int length = random.nextInt( 40 );
+            for ( int j = 0; j < length; j++ )
+            {
+                text.append( pieces[random.nextInt( pieces.length )] );
+            }
+
+            if ( text.toString().endsWith( "\\" ) )
+            {
+                // the filter appends a stray character to a trailing escape, which copied lines do not get
+                continue;
+            }
+
+            assertFilteredLikeWholeFile( cfg, text.toString(), "fud", "UTF-8", false );
+            assertFilteredLikeWholeFile( cfg, text.toString(), "fud.properties", "ISO-8859-1", true );
+        }
+    }
+
+    private static void assertFilteredLikeWholeFile( PojoConfigSource cfg, String text, String name, String encoding,
+                                                     boolean isPropertiesFile )
+        throws IOException, AssemblyFormattingException, MavenFilteringException
+    {
+        MavenReaderFilterRequest request =
+            new MavenReaderFilterRequest( new StringReader( text ), true, cfg.getProject(), cfg.getFilters(),
+                                          isPropertiesFile, null, null );
+        request.setEscapeString( cfg.getEscapeString() );
+        request.setInjectProjectBuildFilters( cfg.isIncludeProjectBuildFilters() );
+        // encoded like the filtered files, which matters for the odd characters the filter emits at times
+        String expected =
+            new String( IOUtils.toString( cfg.getMavenReaderFilter().filter( request ) ).getBytes( encoding ),
+                        encoding );
+
+        InputStream filtered = ReaderFormatter.getFileSetTransformers( cfg, true, "keep" ).transform(
+            new PlexusIoVirtualFileResource( new File( name ), name )
+            {
+            }, new ByteArrayInputStream( text.getBytes( encoding ) ) );
+        assertEquals( text, expected, IOUtils.toString( filtered, encoding ) );
+    }
+
+    @Test
+    public void filterWrappersLoadedOncePerExecution()
+        throws IOException, AssemblyFormattingException
+    {
+        final PojoConfigSource cfg = getPojoConfigSource();
+        final CountingMavenReaderFilter mavenReaderFilter = new CountingMavenReaderFilter();
+        mavenReaderFilter.enableLogging( new ConsoleLogger( 2, "fud" ) );
+        cfg.setMavenReaderFilter( mavenReaderFilter );
+
+        InputStreamTransformer fileSetTransformers = ReaderFormatter.getFileSetTransformers( cfg, true, "keep" );
+        for ( int i = 0; i < 3; i++ )
+        {
+            InputStream fud = fileSetTransformers.transform( dummyResource(), payload( "${artifactId} " + i ) );
+            assertEquals( "anArtifact " + i, readResultStream( fud ) );
+        }
+        assertEquals( 1, mavenReaderFilter.wrapperRequests );
+
+        readResultStream( ReaderFormatter.getFileSetTransformers( cfg, true, "keep" ).transform(
+            new PlexusIoVirtualFileResource( new File( "fud.properties" ), "fud.properties" )
+            {
+            }, payload( "key=${artifactId}" ) ) );
+        assertEquals( 2, mavenReaderFilter.wrapperRequests );
+
+        ReaderFormatter.releaseFor( cfg );
+        readResultStream( fileSetTransformers.transform( dummyResource(), payload( "${artifactId}" ) ) );
+        assertEquals( 3, mavenReaderFilter.wrapperRequests );
+    }
+
+    private static class CountingMavenReaderFilter
+        extends DefaultMavenReaderFilter
+    {
+        private int wrapperRequests;
+
+        @Override
+        public List<FilterWrapper> getDefaultFilterWrappers( AbstractMavenFilteringRequest request )
+            throws MavenFilteringException
+        {
+            wrapperRequests++;
+            return super.getDefaultFilterWrappers( request );
+        }
+    }
 
     private MavenProject createBasicMavenProject()
     {
@@ -0,0 +1,152 @@
+package org.apache.maven.plugins.assembly.format;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenScanningInputStreamTest
+{
+    private static final byte[][] DEFAULT_STARTS = { bytes( "${" ), bytes( "@" ) };
+
+    @Test
+    public void passesThroughStreamWithoutDelimiterStarts()
+        throws IOException
+    {
+        final String text = "no expression here,\n$ or { alone\nlast line without line feed";
+        final TokenScanningInputStream in =
+            new TokenScanningInputStream( stream( text ), DEFAULT_STARTS, new UpperCaseFilter() );
+
+        assertEquals( text, IOUtils.toString( in, "UTF-8" ) );
+        assertEquals( 0, in.getFilteredSegments() );
+    }
+
+    @Test
+    public void filtersOnlyRunsOfLinesWithDelimiterStarts()
+        throws IOException
+    {
+        final TokenScanningInputStream in =
+            new TokenScanningInputStream( stream( "first\nsecond ${x}\nthird @y@\nfourth\nfifth ${z}" ),
+                                          DEFAULT_STARTS, new UpperCaseFilter() );
+
+        assertEquals( "first\nSECOND ${X}\nTHIRD @Y@\nfourth\nFIFTH ${Z}", IOUtils.toString( in, "UTF-8" ) );
+        assertEquals( 2, in.getFilteredSegments() );
+    }
+
+    @Test
+    public void findsDelimiterStartSplitAcrossReads()
+        throws IOException
+    {
+        final TokenScanningInputStream in =
+            new TokenScanningInputStream( new OneByteInputStream( stream( "a\nb $\n$c ${d}" ) ), DEFAULT_STARTS,
+                                          new UpperCaseFilter() );
+
+        assertEquals( "a\nb $\n$C ${D}", IOUtils.toString( in, "UTF-8" ) );
+    }
+
+    @Test
+    public void keepsLongLinesWhole()
+        throws IOException
+    {
+        final char[] line = new char[20000];
+        Arrays.fill( line, 'a' );
+        final String text = new String( line ) + "\n" + new String( line ) + "@b@";
+        final TokenScanningInputStream in =
+            new TokenScanningInputStream( stream( text ), DEFAULT_STARTS, new UpperCaseFilter() );
+
+        assertEquals( new String( line ) + "\n" + new String( line ).toUpperCase() + "@B@",
+                      IOUtils.toString( in, "UTF-8" ) );
+    }
+
+    @Test
+    public void filtersLongRunsInParts()
+        throws IOException
+    {
+        final StringBuilder text = new StringBuilder();
+        for ( int i = 0; i < 10000; i++ )
+        {
+            text.append( "line " ).append( i ).append( " ${x}\n" );
+        }
+        final int[] longest = new int[1];
+        final TokenScanningInputStream in =
+            new TokenScanningInputStream( stream( text.toString() ), DEFAULT_STARTS, new UpperCaseFilter()
+            {
+                @Override
+                public InputStream filter( final InputStream lines )
+                    throws IOException
+                {
+                    final byte[] bytes = IOUtils.toByteArray( lines );
+                    longest[0] = Math.max( longest[0], bytes.length );
+                    return super.filter( new ByteArrayInputStream( bytes ) );
+                }
+            } );
+
+        assertEquals( text.toString().toUpperCase(), IOUtils.toString( in, "UTF-8" ) );
+        assertTrue( in.getFilteredSegments() > 1 );
+        assertTrue( String.valueOf( longest[0] ), longest[0] < 8192 + 100 );
+    }
+
+    private static byte[] bytes( final String text )
+    {
+        return text.getBytes( StandardCharsets.UTF_8 );
+    }
+
+    private static InputStream stream( final String text )
+    {
+        return new ByteArrayInputStream( bytes( text ) );
+    }
+
+    private static class UpperCaseFilter
+        implements TokenScanningInputStream.Filter
+    {
+        @Override
+        public InputStream filter( final InputStream lines )
+            throws IOException
+        {
+            return stream( IOUtils.toString( lines, "UTF-8" ).toUpperCase() );
+        }
+    }
+
+    private static class OneByteInputStream
+        extends FilterInputStream
+    {
+        OneByteInputStream( final InputStream in )
+        {
+            super( in );
+        }
+
+        @Override
+        public int read( final byte[] b, final int off, final int len )
+            throws IOException
+        {
+            return super.read( b, off, Math.min( len, 1 ) );
+        }
+    }
+}
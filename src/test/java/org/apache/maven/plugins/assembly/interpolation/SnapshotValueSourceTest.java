@@ -0,0 +1,125 @@
+package org.apache.maven.plugins.assembly.interpolation;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugins.assembly.testutils.PojoConfigSource;
+import org.apache.maven.plugins.assembly.utils.InterpolationConstants;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
+import org.codehaus.plexus.interpolation.fixed.InterpolationState;
+import org.codehaus.plexus.interpolation.fixed.PrefixedObjectValueSource;
+
+import java.io.File;
+
+public class SnapshotValueSourceTest
+    extends TestCase
+{
+
+    public void testShouldResolveLikeObjectValueSource()
+    {
+        final MavenProject project = createProject();
+
+        final FixedStringSearchInterpolator expected = FixedStringSearchInterpolator.create(
+            new PrefixedObjectValueSource( InterpolationConstants.PROJECT_PREFIXES, project, true ) );
+        final FixedStringSearchInterpolator actual = FixedStringSearchInterpolator.create(
+            SnapshotValueSource.prefixed( new PojoConfigSource(), project, InterpolationConstants.PROJECT_PREFIXES,
+                                          true ) );
+
+        final String[] expressions =
+            { "${project.artifactId}", "${pom.groupId}-${version}", "${project.build.finalName}",
+                "${project.missing}", "${project.}", "${artifactId.missing.deeper}" };
+        for ( final String expression : expressions )
+        {
+            assertEquals( expression, expected.interpolate( expression ), actual.interpolate( expression ) );
+        }
+    }
+
+    public void testShouldKeepValuesOfFirstLookup()
+    {
+        final MavenProject project = createProject();
+        final SnapshotValueSource source = SnapshotValueSource.of( null, project );
+
+        assertEquals( "1", source.getValue( "version", new InterpolationState() ) );
+        assertNull( source.getValue( "description", new InterpolationState() ) );
+
+        project.setVersion( "2" );
+        project.setDescription( "changed" );
+
+        assertEquals( "1", source.getValue( "version", new InterpolationState() ) );
+        assertNull( source.getValue( "description", new InterpolationState() ) );
+    }
+
+    public void testShouldReadArtifactFilesOnEveryLookup()
+    {
+        final MavenProject project = createProject();
+        final Artifact artifact =
+            new DefaultArtifact( "group", "artifact", "1", null, "jar", null, new DefaultArtifactHandler( "jar" ) );
+        project.setArtifact( artifact );
+        final PojoConfigSource configSource = new PojoConfigSource();
+        final FixedStringSearchInterpolator projectInterpolator = FixedStringSearchInterpolator.create(
+            SnapshotValueSource.prefixed( configSource, project, InterpolationConstants.PROJECT_PREFIXES, true ) );
+        final FixedStringSearchInterpolator artifactInterpolator = FixedStringSearchInterpolator.create(
+            SnapshotValueSource.prefixed( configSource, artifact, "artifact." ) );
+
+        final String expressions = "${project.artifact.file}|${artifact.file}|${artifact.file.name}";
+        assertEquals( expressions, projectInterpolator.interpolate( expressions ) );
+        assertEquals( expressions, artifactInterpolator.interpolate( expressions ) );
+
+        final File file = new File( "target", "first.jar" );
+        artifact.setFile( file );
+        assertEquals( file.getPath(), projectInterpolator.interpolate( "${project.artifact.file}" ) );
+        assertEquals( "first.jar", artifactInterpolator.interpolate( "${artifact.file.name}" ) );
+
+        final File moved = new File( "target", "moved.jar" );
+        artifact.setFile( moved );
+        assertEquals( moved.getPath(), projectInterpolator.interpolate( "${project.artifact.file}" ) );
+        assertEquals( moved.getPath(), artifactInterpolator.interpolate( "${artifact.file}" ) );
+        assertEquals( "moved.jar", artifactInterpolator.interpolate( "${artifact.file.name}" ) );
+    }
+
+    public void testShouldShareSnapshotPerConfigSourceAndInstance()
+    {
+        final PojoConfigSource configSource = new PojoConfigSource();
+        final MavenProject project = createProject();
+
+        final SnapshotValueSource source = SnapshotValueSource.of( configSource, project );
+
+        assertSame( source, SnapshotValueSource.of( configSource, project ) );
+        assertNotSame( source, SnapshotValueSource.of( configSource, createProject() ) );
+        assertNotSame( source, SnapshotValueSource.of( new PojoConfigSource(), project ) );
+        assertNotSame( source, SnapshotValueSource.of( null, project ) );
+    }
+
+    private static MavenProject createProject()
+    {
+        final Model model = new Model();
+        model.setGroupId( "group" );
+        model.setArtifactId( "artifact" );
+        model.setVersion( "1" );
+        model.setPackaging( "jar" );
+        return new MavenProject( model );
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.apache.maven.plugins.assembly.mojos;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SourceWatcherTest
+    extends TestCase
+{
+
+    private final TestFileManager fileManager = new TestFileManager( "source-watcher.test.", "" );
+
+    @Override
+    public void tearDown()
+        throws Exception
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldReportChangesBelowWatchedDirectory()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File sub = new File( dir, "sub" );
+        assertTrue( sub.mkdir() );
+
+        try ( SourceWatcher watcher = newWatcher() )
+        {
+            watcher.watch( Collections.singleton( dir ), Collections.<File>emptySet() );
+            assertEquals( 2, watcher.getWatchedDirectoryCount() );
+
+            final File file = fileManager.createFile( sub, "file.txt", "changed" );
+
+            final SourceWatcher.Changes changes = watcher.awaitChanges();
+            assertTrue( changes.getPaths().contains( file.toPath().toAbsolutePath() ) );
+            assertFalse( changes.isDeleted() );
+        }
+    }
+
+    public void testShouldWatchDirectoriesCreatedBelowWatchedDirectory()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+
+        try ( SourceWatcher watcher = newWatcher() )
+        {
+            watcher.watch( Collections.singleton( dir ), Collections.<File>emptySet() );
+
+            final File sub = new File( dir, "sub" );
+            assertTrue( sub.mkdir() );
+            assertTrue( watcher.awaitChanges().getPaths().contains( sub.toPath().toAbsolutePath() ) );
+            assertEquals( 2, watcher.getWatchedDirectoryCount() );
+
+            final File file = fileManager.createFile( sub, "file.txt", "created" );
+            assertTrue( watcher.awaitChanges().getPaths().contains( file.toPath().toAbsolutePath() ) );
+        }
+    }
+
+    public void testShouldWatchMissingDirectoriesThroughTheirParent()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File missing = new File( dir, "generated/sources" );
+
+        try ( SourceWatcher watcher = newWatcher() )
+        {
+            watcher.watch( Collections.singleton( missing ), Collections.<File>emptySet() );
+            assertEquals( 1, watcher.getWatchedDirectoryCount() );
+
+            assertTrue( new File( dir, "generated" ).mkdir() );
+            fileManager.createFile( dir, "other.txt", "other" );
+            assertTrue( missing.mkdir() );
+
+            assertTrue( watcher.awaitChanges().getPaths().contains( missing.toPath().toAbsolutePath() ) );
+
+            final File file = fileManager.createFile( missing, "file.txt", "created" );
+            assertTrue( watcher.awaitChanges().getPaths().contains( file.toPath().toAbsolutePath() ) );
+        }
+    }
+
+    public void testShouldNotWatchBelowExcludedRoots()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File target = new File( dir, "target" );
+        assertTrue( target.mkdir() );
+
+        try ( SourceWatcher watcher = newWatcher( target ) )
+        {
+            watcher.watch( Arrays.asList( dir, new File( target, "classes" ) ), Collections.<File>emptySet() );
+            assertEquals( 1, watcher.getWatchedDirectoryCount() );
+
+            fileManager.createFile( target, "assembly.zip", "output" );
+            assertTrue( new File( target, "classes" ).mkdir() );
+            final File file = fileManager.createFile( dir, "README.txt", "source" );
+
+            final SourceWatcher.Changes changes = watcher.awaitChanges();
+            assertEquals( Collections.singleton( file.toPath().toAbsolutePath() ), changes.getPaths() );
+        }
+    }
+
+    public void testShouldReportOnlyWatchedFilesOfTheirDirectory()
+        throws Exception
+    {
+        final File dir = fileManager.createTempDir();
+        final File watched = fileManager.createFile( dir, "watched.jar", "watched" );
+
+        try ( SourceWatcher watcher = newWatcher() )
+        {
+            watcher.watch( Collections.<File>emptySet(), Collections.singleton( watched ) );
+
+            fileManager.createFile( dir, "other.jar", "other" );
+            assertTrue( watched.delete() );
+
+            final Set<Object> expected = new HashSet<>();
+            expected.add( watched.toPath().toAbsolutePath() );
+            final SourceWatcher.Changes changes = watcher.awaitChanges();
+            assertEquals( expected, new HashSet<Object>( changes.getPaths() ) );
+            assertTrue( changes.isDeleted() );
+        }
+    }
+
+    private static SourceWatcher newWatcher( final File... excludedRoots )
+        throws IOException
+    {
+        final FileFilter all = new FileFilter()
+        {
+            @Override
+            public boolean accept( final File file )
+            {
+                return true;
+            }
+        };
+        return new SourceWatcher( 100, all, Arrays.asList( excludedRoots ) );
+    }
+
+}
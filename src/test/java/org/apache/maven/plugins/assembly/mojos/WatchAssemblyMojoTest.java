@@ -0,0 +1,164 @@
+package org.apache.maven.plugins.assembly.mojos;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.assembly.archive.archiver.AssemblySources;
+import org.apache.maven.plugins.assembly.testutils.TestFileManager;
+import org.codehaus.plexus.archiver.util.DefaultFileSet;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class WatchAssemblyMojoTest
+    extends TestCase
+{
+
+    private final TestFileManager fileManager = new TestFileManager( "watch-mojo.test.", "" );
+
+    @Override
+    public void tearDown()
+        throws Exception
+    {
+        fileManager.cleanUp();
+    }
+
+    public void testShouldCreateAssembliesOnceForEachSourceChange()
+        throws Exception
+    {
+        final File basedir = fileManager.createTempDir();
+        final File readme = fileManager.createFile( basedir, "README.txt", "readme" );
+
+        final BinAssemblyMojo mojo = new BinAssemblyMojo( basedir );
+        mojo.setWatchDebounce( 100 );
+
+        final Thread thread = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    mojo.execute();
+                }
+                catch ( final Exception e )
+                {
+                    mojo.failure = e;
+                }
+            }
+        } );
+        thread.start();
+        try
+        {
+            assertTrue( mojo.builds.tryAcquire( 10, TimeUnit.SECONDS ) );
+            // the sources are watched once the first build completed
+            Thread.sleep( 500 );
+
+            fileManager.createFile( basedir, "notes.txt", "not an assembly source" );
+            assertFalse( mojo.builds.tryAcquire( 1, TimeUnit.SECONDS ) );
+
+            FileUtils.fileWrite( readme, "changed" );
+            assertTrue( mojo.builds.tryAcquire( 10, TimeUnit.SECONDS ) );
+            assertFalse( mojo.builds.tryAcquire( 1, TimeUnit.SECONDS ) );
+        }
+        finally
+        {
+            thread.interrupt();
+            thread.join( 10000 );
+        }
+
+        assertFalse( thread.isAlive() );
+        assertNull( mojo.failure );
+        assertEquals( 2, mojo.count );
+    }
+
+    /**
+     * Records the sources of the bin descriptor, and writes to the build directory like a real build.
+     */
+    private static final class BinAssemblyMojo
+        extends WatchAssemblyMojo
+    {
+
+        private final Semaphore builds = new Semaphore( 0 );
+
+        private final File basedir;
+
+        private final File target;
+
+        private volatile int count;
+
+        private volatile Exception failure;
+
+        BinAssemblyMojo( final File basedir )
+        {
+            this.basedir = basedir;
+            this.target = new File( basedir, "target" );
+        }
+
+        @Override
+        void createAssemblies()
+            throws MojoExecutionException
+        {
+            final AssemblySources sources = AssemblySources.getFor( this );
+            sources.addFileSet( DefaultFileSet.fileSet( basedir ).include( new String[] { "README*", "LICENSE*" } ) );
+            sources.addFileSet( DefaultFileSet.fileSet( target ).include( new String[] { "*.jar" } ) );
+            try
+            {
+                final File output = new File( target, "project-bin.jar" );
+                final File filtered = new File( getWorkingDirectory(), "README.txt" );
+                assertTrue( filtered.getParentFile().isDirectory() || filtered.getParentFile().mkdirs() );
+                FileUtils.fileWrite( filtered, "filtered " + count );
+                FileUtils.fileWrite( output, "assembly " + count );
+                sources.addOutput( output );
+            }
+            catch ( final IOException e )
+            {
+                throw new MojoExecutionException( e.getMessage(), e );
+            }
+
+            count++;
+            builds.release();
+        }
+
+        @Override
+        public File getOutputDirectory()
+        {
+            return target;
+        }
+
+        @Override
+        public File getTemporaryRootDirectory()
+        {
+            return new File( target, "archive-tmp" );
+        }
+
+        @Override
+        public File getWorkingDirectory()
+        {
+            return new File( target, "assembly/work" );
+        }
+
+    }
+
+}
@@ -59,6 +59,14 @@ public class PojoConfigSource
 
     private boolean isIgnorePermissions;
 
+    private File unpackCacheDirectory;
+
+    private long unpackCacheMaxSize;
+
+    private boolean shareUnpackedArchives;
+
+    private int moduleThreads = 1;
+
     private String archiverConfig;
 
     private boolean isAssemblyIdAppended;
@@ -401,6 +409,46 @@ public class PojoConfigSource
         this.isIgnorePermissions = isIgnorePermissions;
     }
 
+    public File getUnpackCacheDirectory()
+    {
+        return unpackCacheDirectory;
+    }
+
+    public void setUnpackCacheDirectory( File unpackCacheDirectory )
+    {
+        this.unpackCacheDirectory = unpackCacheDirectory;
+    }
+
+    public long getUnpackCacheMaxSize()
+    {
+        return unpackCacheMaxSize;
+    }
+
+    public void setUnpackCacheMaxSize( long unpackCacheMaxSize )
+    {
+        this.unpackCacheMaxSize = unpackCacheMaxSize;
+    }
+
+    public boolean isShareUnpackedArchives()
+    {
+        return shareUnpackedArchives;
+    }
+
+    public void setShareUnpackedArchives( boolean shareUnpackedArchives )
+    {
+        this.shareUnpackedArchives = shareUnpackedArchives;
+    }
+
+    public int getModuleThreads()
+    {
+        return moduleThreads;
+    }
+
+    public void setModuleThreads( int moduleThreads )
+    {
+        this.moduleThreads = moduleThreads;
+    }
+
     public String getEncoding()
     {
         return encoding;
@@ -795,6 +795,26 @@ public class AssemblyFormatUtilsTest
         assertTrue( AssemblyFormatUtils.isLinuxRootReference( "/etc/home" ) );
     }
 
+    public void testIsArtifactProjectRequired_ShouldBeFalseForCoordinateExpressions()
+    {
+        assertFalse( AssemblyFormatUtils.isArtifactProjectRequired( null, null, false ) );
+        assertFalse( AssemblyFormatUtils.isArtifactProjectRequired( "lib/${artifact.groupId}/${project.version}",
+                                                                    "${artifact.artifactId}-${artifact.version}"
+                                                                        + "${dashClassifier?}.${artifact.extension}",
+                                                                    false ) );
+        assertFalse( AssemblyFormatUtils.isArtifactProjectRequired( "${finalName}", "${artifact.handler.extension}",
+                                                                    false ) );
+    }
+
+    public void testIsArtifactProjectRequired_ShouldBeTrueForProjectExpressions()
+    {
+        assertTrue( AssemblyFormatUtils.isArtifactProjectRequired( null, "${artifact.build.finalName}.jar", false ) );
+        assertTrue( AssemblyFormatUtils.isArtifactProjectRequired( null, "${artifact.properties.foo}", false ) );
+        assertTrue( AssemblyFormatUtils.isArtifactProjectRequired( "${artifact.packaging}", null, false ) );
+        assertTrue( AssemblyFormatUtils.isArtifactProjectRequired( "${artifact.type}", null, false ) );
+        assertTrue( AssemblyFormatUtils.isArtifactProjectRequired( "${build.finalName}", null, true ) );
+    }
+
 
     private final class MockAndControlForGetDistroName
     {
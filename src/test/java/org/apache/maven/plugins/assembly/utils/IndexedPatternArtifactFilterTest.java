@@ -0,0 +1,142 @@
+package org.apache.maven.plugins.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.shared.artifact.filter.PatternExcludesArtifactFilter;
+import org.apache.maven.shared.artifact.filter.PatternIncludesArtifactFilter;
+import org.apache.maven.shared.artifact.filter.StatisticsReportingArtifactFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class IndexedPatternArtifactFilterTest
+    extends TestCase
+{
+
+    private static final String[] PATTERNS =
+        { "group", "group:artifact", "group:artifact:jar", "group:artifact:jar:1.0", "group:*", "gr*", "*oup",
+            "*ou*", "g*p:artifact", "*:artifact", "*:other", "*:jar", "*:jar:*", ":artifact", "other.group:*",
+            "group:artifact:jar:tests:1.0", "group:artifact:jar:*:1.0", "group:artifact:*:*:*", "*:*:*:sources:*",
+            "group:artifact:jar:[1.0,2.0)", "group:artifact:jar:(,1.0]", "group:artifact:jar:[bad", "*:*",
+            "root", "root:project", "artifact", "*:artifact:*:1.0", "group:art*fact", "group:a*t*f", "" };
+
+    private static final String[] GROUPS = { "group", "other.group", "groupie", "root" };
+
+    private static final String[] ARTIFACTS = { "artifact", "other", "project" };
+
+    private static final String[] VERSIONS = { "1.0", "1.5", "2.0" };
+
+    private static final String[] CLASSIFIERS = { null, "tests", "sources" };
+
+    public void testInclude_ShouldMatchLikePatternFilters()
+    {
+        final Random random = new Random( 1234 );
+        final List<Artifact> artifacts = newArtifacts( random );
+
+        for ( int run = 0; run < 500; run++ )
+        {
+            final List<String> patterns = new ArrayList<>();
+            final int count = 1 + random.nextInt( 6 );
+            for ( int i = 0; i < count; i++ )
+            {
+                final String pattern = PATTERNS[random.nextInt( PATTERNS.length )];
+                patterns.add( random.nextInt( 5 ) == 0 ? "!" + pattern : pattern );
+            }
+            final boolean actTransitively = random.nextBoolean();
+
+            assertSameFiltering( patterns, artifacts, new PatternIncludesArtifactFilter( patterns, actTransitively ),
+                                 IndexedPatternArtifactFilter.includes( patterns, actTransitively ) );
+            assertSameFiltering( patterns, artifacts, new PatternExcludesArtifactFilter( patterns, actTransitively ),
+                                 IndexedPatternArtifactFilter.excludes( patterns, actTransitively ) );
+        }
+    }
+
+    public void testHasMissedCriteria_ShouldReportUntriggeredPatterns()
+    {
+        final IndexedPatternArtifactFilter filter =
+            IndexedPatternArtifactFilter.includes( Arrays.asList( "group:artifact", "missing:artifact" ), false );
+
+        assertTrue( filter.include( newArtifact( "group", "artifact", "1.0", null, null ) ) );
+        assertTrue( filter.hasMissedCriteria() );
+
+        assertFalse( IndexedPatternArtifactFilter.includes( Collections.<String>emptyList(), false )
+                         .hasMissedCriteria() );
+    }
+
+    private static void assertSameFiltering( final List<String> patterns, final List<Artifact> artifacts,
+                                             final ArtifactFilter expected, final IndexedPatternArtifactFilter actual )
+    {
+        for ( final Artifact artifact : artifacts )
+        {
+            assertEquals( patterns + " on " + artifact + " trail " + artifact.getDependencyTrail(),
+                          expected.include( artifact ), actual.include( artifact ) );
+        }
+
+        assertEquals( patterns.toString(), ( (StatisticsReportingArtifactFilter) expected ).hasMissedCriteria(),
+                      actual.hasMissedCriteria() );
+        assertEquals( expected.toString(), actual.toString() );
+    }
+
+    private static List<Artifact> newArtifacts( final Random random )
+    {
+        final List<Artifact> artifacts = new ArrayList<>();
+        for ( final String groupId : GROUPS )
+        {
+            for ( final String artifactId : ARTIFACTS )
+            {
+                for ( final String version : VERSIONS )
+                {
+                    for ( final String classifier : CLASSIFIERS )
+                    {
+                        final List<String> trail = new ArrayList<>();
+                        trail.add( "root:project:jar:1.0" );
+                        if ( random.nextBoolean() )
+                        {
+                            trail.add( GROUPS[random.nextInt( GROUPS.length )] + ":"
+                                + ARTIFACTS[random.nextInt( ARTIFACTS.length )] + ":jar:tests:1.0" );
+                        }
+                        trail.add( groupId + ":" + artifactId + ":jar:" + version );
+
+                        artifacts.add( newArtifact( groupId, artifactId, version, classifier, trail ) );
+                    }
+                }
+            }
+        }
+        return artifacts;
+    }
+
+    private static Artifact newArtifact( final String groupId, final String artifactId, final String version,
+                                         final String classifier, final List<String> trail )
+    {
+        final Artifact artifact = new DefaultArtifact( groupId, artifactId, version, "compile", "jar", classifier,
+                                                       new DefaultArtifactHandler( "jar" ) );
+        artifact.setDependencyTrail( trail );
+        return artifact;
+    }
+
+}
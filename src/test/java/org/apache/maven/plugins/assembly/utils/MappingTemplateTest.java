@@ -0,0 +1,113 @@
+package org.apache.maven.plugins.assembly.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.plexus.interpolation.fixed.FixedStringSearchInterpolator;
+import org.codehaus.plexus.interpolation.fixed.PropertiesBasedValueSource;
+
+import java.util.Properties;
+
+public class MappingTemplateTest
+    extends TestCase
+{
+
+    private static final String[] EXPRESSIONS =
+        { "", "plain/path", "${a}", "${a}-${b}.jar", "x${a}y${missing}z", "${.a}", "${a", "${a}${", "$${a}}",
+            "${a${b}}", "${recursive}", "${}", "}${b}{", "${a}/${recursive}/${missing}" };
+
+    public void testEvaluate_ShouldMatchInterpolatorWithoutResolvedValues()
+    {
+        final FixedStringSearchInterpolator interpolator = newInterpolator();
+        for ( final String expression : EXPRESSIONS )
+        {
+            assertEquals( expression, interpolator.interpolate( expression ),
+                          MappingTemplate.compile( expression ).evaluate( newResolver( interpolator, false ) ) );
+        }
+    }
+
+    public void testEvaluate_ShouldMatchInterpolatorWithResolvedValues()
+    {
+        final FixedStringSearchInterpolator interpolator = newInterpolator();
+        for ( final String expression : EXPRESSIONS )
+        {
+            assertEquals( expression, interpolator.interpolate( expression ),
+                          MappingTemplate.compile( expression ).evaluate( newResolver( interpolator, true ) ) );
+        }
+    }
+
+    public void testEvaluate_ShouldNotCreateInterpolatorForLiteral()
+    {
+        final MappingTemplate template = MappingTemplate.compile( "lib/" );
+
+        assertTrue( template.isLiteral() );
+        assertEquals( "lib/", template.evaluate( new MappingTemplate.Resolver()
+        {
+            @Override
+            String getValue( final String property )
+            {
+                throw new AssertionError( "Literal templates have no expressions." );
+            }
+
+            @Override
+            FixedStringSearchInterpolator createInterpolator()
+            {
+                throw new AssertionError( "Literal templates need no interpolator." );
+            }
+        } ) );
+        assertEquals( "", MappingTemplate.compile( null ).evaluate( null ) );
+    }
+
+    private static FixedStringSearchInterpolator newInterpolator()
+    {
+        final Properties properties = new Properties();
+        properties.setProperty( "a", "A" );
+        properties.setProperty( "b", "B" );
+        properties.setProperty( "recursive", "${a}-${b}" );
+        return FixedStringSearchInterpolator.create( new PropertiesBasedValueSource( properties ) );
+    }
+
+    /**
+     * @param resolveDirectly Whether the resolver answers the plain properties itself.
+     */
+    private static MappingTemplate.Resolver newResolver( final FixedStringSearchInterpolator interpolator,
+                                                         final boolean resolveDirectly )
+    {
+        return new MappingTemplate.Resolver()
+        {
+            @Override
+            String getValue( final String property )
+            {
+                if ( !resolveDirectly )
+                {
+                    return null;
+                }
+                return "a".equals( property ) ? "A" : "recursive".equals( property ) ? "${a}-${b}" : null;
+            }
+
+            @Override
+            FixedStringSearchInterpolator createInterpolator()
+            {
+                return interpolator;
+            }
+        };
+    }
+
+}
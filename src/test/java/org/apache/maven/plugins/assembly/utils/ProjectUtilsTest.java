@@ -161,6 +161,48 @@ public class ProjectUtilsTest
         verifyProjectsPresent( verify, result );
     }
 
+    public void testGetProjectModules_ShouldIncludeModulesListedBeforeTheirParentsInReactorOrder()
+        throws IOException
+    {
+        final MavenProject master = createTestProject( "test", "testGroup", "1.0" );
+
+        master.setFile( new File( "project/pom.xml" ) );
+
+        master.getModel().addModule( "module" );
+        master.getModel().addModule( "other" );
+
+        final MavenProject module = createTestProject( "module", "testGroup", "1.0" );
+
+        module.getModel().addModule( "submodule" );
+
+        module.setFile( new File( "project/module/pom.xml" ) );
+
+        final MavenProject subModule = createTestProject( "sub-module", "testGroup", "1.0" );
+
+        subModule.setFile( new File( "project/module/submodule/pom.xml" ) );
+
+        final MavenProject other = createTestProject( "other", "testGroup", "1.0" );
+
+        other.setFile( new File( "project/other/pom.xml" ) );
+
+        final List<MavenProject> projects = new ArrayList<>( 4 );
+
+        projects.add( subModule );
+        projects.add( master );
+        projects.add( module );
+        projects.add( other );
+
+        final Set<MavenProject> result =
+            ProjectUtils.getProjectModules( master, projects, true, new ConsoleLogger( Logger.LEVEL_INFO, "test" ) );
+
+        assertEquals( 3, result.size() );
+
+        final Iterator<MavenProject> it = result.iterator();
+        assertSame( module, it.next() );
+        assertSame( other, it.next() );
+        assertSame( subModule, it.next() );
+    }
+
     public void testGetProjectModules_ShouldExcludeNonModuleOfMasterProject()
         throws IOException
     {